@@ -0,0 +1,205 @@
+package com.example.new_better.dao;
+
+import com.example.new_better.models.Song;
+import com.example.new_better.models.User;
+import com.example.new_better.utils.DbExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking facade over every DAO. Controllers talk to this instead of the
+ * DAOs directly so no JDBC call ever runs on the JavaFX Application Thread.
+ *
+ * Every method returns a CompletableFuture that completes ON THE FX THREAD,
+ * so callers can chain .thenAccept(...) and touch UI nodes directly.
+ *
+ * Reads run on the parallel reader lane, writes on the single writer lane
+ * (see DbExecutor). To read your own write, chain the read off the write's
+ * future: removeSongFromPlaylist(...).thenRun(this::loadPlaylist).
+ */
+public class AsyncDAO {
+
+    private static AsyncDAO instance;
+
+    private final SongDAO songDAO = new SongDAO();
+    private final LikedSongsDAO likedSongsDAO = new LikedSongsDAO();
+    private final PlaylistDAO playlistDAO = new PlaylistDAO();
+    private final RecentlyPlayedDAO recentlyPlayedDAO = new RecentlyPlayedDAO();
+    private final UserDAO userDAO = new UserDAO();
+
+    private AsyncDAO() {}
+
+    public static synchronized AsyncDAO getInstance() {
+        if (instance == null) {
+            instance = new AsyncDAO();
+        }
+        return instance;
+    }
+
+    /* ================= SONGS ================= */
+
+    public CompletableFuture<List<Song>> getAllSongs() {
+        return read(songDAO::getAllSongs);
+    }
+
+    public CompletableFuture<Song> getSongById(int songId) {
+        return read(() -> songDAO.getSongById(songId));
+    }
+
+    public CompletableFuture<List<Song>> getSongsByGenre(String genre) {
+        return read(() -> songDAO.getSongsByGenre(genre));
+    }
+
+    public CompletableFuture<List<Song>> getSongsByGenreId(int genreId) {
+        return read(() -> songDAO.getSongsByGenreId(genreId));
+    }
+
+    public CompletableFuture<List<Song>> searchSongs(String query) {
+        return read(() -> songDAO.searchSongs(query));
+    }
+
+    public CompletableFuture<Long> getCatalogVersion() {
+        return read(songDAO::getCatalogVersion);
+    }
+
+    public CompletableFuture<Void> insertSong(Song song) {
+        return write(() -> songDAO.insertSong(song));
+    }
+
+    public CompletableFuture<Void> updateSongDuration(int songId, double duration) {
+        return write(() -> songDAO.updateSongDuration(songId, duration));
+    }
+
+    /* ================= LIKED SONGS ================= */
+
+    public CompletableFuture<Void> likeSong(int userId, int songId) {
+        return write(() -> likedSongsDAO.likeSong(userId, songId));
+    }
+
+    public CompletableFuture<Void> unlikeSong(int userId, int songId) {
+        return write(() -> likedSongsDAO.unlikeSong(userId, songId));
+    }
+
+    public CompletableFuture<Boolean> isLiked(int userId, int songId) {
+        return read(() -> likedSongsDAO.isLiked(userId, songId));
+    }
+
+    public CompletableFuture<Set<Integer>> getLikedSongIds(int userId) {
+        return read(() -> likedSongsDAO.getLikedSongIds(userId));
+    }
+
+    public CompletableFuture<List<Song>> getLikedSongs(int userId) {
+        return read(() -> likedSongsDAO.getLikedSongs(userId));
+    }
+
+    /* ================= RECENTLY PLAYED ================= */
+
+    public CompletableFuture<Void> addToRecentlyPlayed(int userId, int songId) {
+        return write(() -> recentlyPlayedDAO.addToRecentlyPlayed(userId, songId));
+    }
+
+    public CompletableFuture<Void> incrementPlayCount(int userId, int songId) {
+        return write(() -> recentlyPlayedDAO.incrementPlayCount(userId, songId));
+    }
+
+    public CompletableFuture<List<Song>> getRecentlyPlayed(int userId) {
+        return read(() -> recentlyPlayedDAO.getRecentlyPlayed(userId));
+    }
+
+    public CompletableFuture<Map<Integer, Integer>> getPlayCounts(int userId) {
+        return read(() -> recentlyPlayedDAO.getPlayCounts(userId));
+    }
+
+    /* ================= PLAYLISTS ================= */
+
+    public CompletableFuture<Integer> createPlaylist(int userId, String playlistName, boolean isSystem) {
+        return writeAndGet(() -> playlistDAO.createPlaylist(userId, playlistName, isSystem));
+    }
+
+    public CompletableFuture<Map<String, Object>> getPlaylistById(int playlistId) {
+        return read(() -> playlistDAO.getPlaylistById(playlistId));
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getUserPlaylists(int userId) {
+        return read(() -> playlistDAO.getUserPlaylists(userId));
+    }
+
+    public CompletableFuture<List<Song>> getPlaylistSongs(int playlistId) {
+        return read(() -> playlistDAO.getPlaylistSongs(playlistId));
+    }
+
+    public CompletableFuture<Void> addSongToPlaylist(int playlistId, int songId) {
+        return write(() -> playlistDAO.addSongToPlaylist(playlistId, songId));
+    }
+
+    public CompletableFuture<Void> removeSongFromPlaylist(int playlistId, int songId) {
+        return write(() -> playlistDAO.removeSongFromPlaylist(playlistId, songId));
+    }
+
+    public CompletableFuture<Void> renamePlaylist(int playlistId, String newName) {
+        return write(() -> playlistDAO.renamePlaylist(playlistId, newName));
+    }
+
+    public CompletableFuture<Void> deletePlaylist(int playlistId) {
+        return write(() -> playlistDAO.deletePlaylist(playlistId));
+    }
+
+    /* ================= USERS ================= */
+
+    public CompletableFuture<User> authenticateUser(String input, String plainPassword) {
+        return read(() -> userDAO.authenticateUser(input, plainPassword));
+    }
+
+    public CompletableFuture<User> getUserByUsername(String username) {
+        return read(() -> userDAO.getUserByUsername(username));
+    }
+
+    public CompletableFuture<User> getUserByEmail(String email) {
+        return read(() -> userDAO.getUserByEmail(email));
+    }
+
+    public CompletableFuture<User> insertUser(User user) {
+        return writeAndGet(() -> userDAO.insertUser(user));
+    }
+
+    public CompletableFuture<Boolean> updatePassword(String username, String newPassword) {
+        return writeAndGet(() -> userDAO.updatePassword(username, newPassword));
+    }
+
+    public CompletableFuture<Void> verifyUser(int userId) {
+        return write(() -> userDAO.verifyUser(userId));
+    }
+
+    /* ================= LANES ================= */
+
+    private <T> CompletableFuture<T> read(Supplier<T> op) {
+        return deliver(CompletableFuture.supplyAsync(op, DbExecutor.readers()));
+    }
+
+    private <T> CompletableFuture<T> writeAndGet(Supplier<T> op) {
+        return deliver(CompletableFuture.supplyAsync(op, DbExecutor.writer()));
+    }
+
+    private CompletableFuture<Void> write(Runnable op) {
+        return deliver(CompletableFuture.runAsync(op, DbExecutor.writer()));
+    }
+
+    // Hop back onto the FX thread so dependants can update the UI directly —
+    // failures too, so exceptionally()/whenComplete() handlers may touch controls.
+    private <T> CompletableFuture<T> deliver(CompletableFuture<T> future) {
+        CompletableFuture<T> delivered = new CompletableFuture<>();
+        future.whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                System.err.println("❌ Async DB operation failed: " + error.getMessage());
+                delivered.completeExceptionally(error);
+            } else {
+                delivered.complete(result);
+            }
+        }, DbExecutor.fx());
+        return delivered;
+    }
+}
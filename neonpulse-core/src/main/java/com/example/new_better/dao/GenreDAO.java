@@ -0,0 +1,107 @@
+package com.example.new_better.dao;
+
+import com.example.new_better.models.Genre;
+import com.example.new_better.utils.DatabaseInitializer;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GenreDAO {
+
+    private String getDbUrl() {
+        return DatabaseInitializer.getDbUrl();
+    }
+
+    public List<Genre> getAllGenres() {
+        List<Genre> genres = new ArrayList<>();
+        String sql = "SELECT * FROM genres ORDER BY genre_id";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                genres.add(extractGenre(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching genres:");
+            e.printStackTrace();
+        }
+        return genres;
+    }
+
+    public Genre getGenreByFolder(String folder) {
+        String sql = "SELECT * FROM genres WHERE folder = ?";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, folder);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return extractGenre(rs);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching genre: " + folder);
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the genre for this folder, creating it on first sight. A newly
+     * discovered genre also gets its system playlist for every existing user,
+     * in the same transaction.
+     */
+    public Genre ensureGenre(String folder, String name) {
+        Genre existing = getGenreByFolder(folder);
+        if (existing != null) return existing;
+
+        String insertSql   = "INSERT OR IGNORE INTO genres (folder, name) VALUES (?, ?)";
+        String playlistSql = "INSERT INTO playlists (user_id, playlist_name, is_system, genre_id) " +
+                "SELECT u.user_id, ?, 1, ? FROM users u WHERE NOT EXISTS (" +
+                "  SELECT 1 FROM playlists p WHERE p.user_id = u.user_id AND p.genre_id = ?)";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement playlists = conn.prepareStatement(playlistSql)) {
+
+                insert.setString(1, folder);
+                insert.setString(2, name);
+                if (insert.executeUpdate() == 0) {
+                    conn.rollback();
+                    return getGenreByFolder(folder); // another thread won the race
+                }
+                ResultSet keys = insert.getGeneratedKeys();
+                keys.next();
+                int genreId = keys.getInt(1);
+
+                playlists.setString(1, name);
+                playlists.setInt(2, genreId);
+                playlists.setInt(3, genreId);
+                playlists.executeUpdate();
+
+                conn.commit();
+                System.out.println("🏷️ New genre discovered: " + name);
+                return new Genre(genreId, folder, name);
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error creating genre: " + folder);
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private Genre extractGenre(ResultSet rs) throws SQLException {
+        return new Genre(rs.getInt("genre_id"), rs.getString("folder"), rs.getString("name"));
+    }
+}
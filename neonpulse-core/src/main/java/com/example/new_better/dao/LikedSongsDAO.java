@@ -5,7 +5,10 @@ import com.example.new_better.models.Song;
 import com.example.new_better.utils.DatabaseInitializer; // ✅ Imported your utility
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class LikedSongsDAO {
 
@@ -42,6 +45,45 @@ public class LikedSongsDAO {
         }
     }
 
+    /**
+     * Applies a batch of like/unlike changes in ONE transaction.
+     * Returns false (and rolls everything back) if any statement fails, so the
+     * caller can revert its optimistic in-memory state.
+     */
+    public boolean applyLikeChanges(int userId, Collection<Integer> toLike, Collection<Integer> toUnlike) {
+        String likeSql   = "INSERT OR IGNORE INTO liked_songs (user_id, song_id) VALUES (?, ?)";
+        String unlikeSql = "DELETE FROM liked_songs WHERE user_id = ? AND song_id = ?";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement like = conn.prepareStatement(likeSql);
+                 PreparedStatement unlike = conn.prepareStatement(unlikeSql)) {
+
+                for (int songId : toLike) {
+                    like.setInt(1, userId);
+                    like.setInt(2, songId);
+                    like.addBatch();
+                }
+                for (int songId : toUnlike) {
+                    unlike.setInt(1, userId);
+                    unlike.setInt(2, songId);
+                    unlike.addBatch();
+                }
+                if (!toLike.isEmpty())   like.executeBatch();
+                if (!toUnlike.isEmpty()) unlike.executeBatch();
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
     public boolean isLiked(int userId, int songId) {
         String sql = "SELECT COUNT(*) FROM liked_songs WHERE user_id = ? AND song_id = ?";
         try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Dynamic Connection
@@ -61,11 +103,34 @@ public class LikedSongsDAO {
         return false;
     }
 
+    /**
+     * All liked song ids for a user in ONE query. List views use this to paint
+     * every heart icon instead of calling isLiked() once per row.
+     */
+    public Set<Integer> getLikedSongIds(int userId) {
+        Set<Integer> ids = new HashSet<>();
+        String sql = "SELECT song_id FROM liked_songs WHERE user_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
     public List<Song> getLikedSongs(int userId) {
         List<Song> songs = new ArrayList<>();
         String sql = "SELECT s.* FROM songs s " +
                 "INNER JOIN liked_songs ls ON s.song_id = ls.song_id " +
-                "WHERE ls.user_id = ? ORDER BY ls.liked_at DESC";
+                "WHERE ls.user_id = ? AND s.available = 1 ORDER BY ls.liked_at DESC";
 
         try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Dynamic Connection
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -84,12 +149,6 @@ public class LikedSongsDAO {
     }
 
     private Song extractSongFromResultSet(ResultSet rs) throws SQLException {
-        Song song = new Song();
-        song.setSongId(rs.getInt("song_id"));
-        song.setTitle(rs.getString("title"));
-        song.setGenre(rs.getString("genre"));
-        song.setFilePath(rs.getString("file_path"));
-        song.setDuration(rs.getDouble("duration"));
-        return song;
+        return SongDAO.mapSong(rs);
     }
 }
\ No newline at end of file
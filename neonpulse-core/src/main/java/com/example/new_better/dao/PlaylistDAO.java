@@ -1,5 +1,6 @@
 package com.example.new_better.dao;
 
+import com.example.new_better.models.Genre;
 import com.example.new_better.models.Song;
 import com.example.new_better.utils.DatabaseInitializer;
 
@@ -38,6 +39,30 @@ public class PlaylistDAO {
         return -1;
     }
 
+    /** A genre's system playlist: its songs are resolved live by genre_id. */
+    public int createSystemPlaylist(int userId, Genre genre) {
+        String sql = "INSERT INTO playlists (user_id, playlist_name, is_system, genre_id) VALUES (?, ?, 1, ?)";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, genre.getName());
+            pstmt.setInt(3, genre.getGenreId());
+
+            pstmt.executeUpdate();
+
+            ResultSet rs = pstmt.getGeneratedKeys();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
     /* ================= GET ================= */
 
     public Map<String, Object> getPlaylistById(int playlistId) {
@@ -56,6 +81,7 @@ public class PlaylistDAO {
                 playlist.put("playlist_name", rs.getString("playlist_name"));
                 // 🔥 KEEP AS INTEGER: Controller uses (int) details.get("is_system")
                 playlist.put("is_system",     rs.getInt("is_system"));
+                playlist.put("genre_id",      rs.getInt("genre_id")); // 0 = not genre-keyed
                 playlist.put("created_at",    rs.getString("created_at"));
 
                 return playlist;
@@ -73,11 +99,14 @@ public class PlaylistDAO {
         // ✅ User-created playlists (is_system=0) come first, sorted by song count DESC
         // ✅ System playlists (is_system=1) always appear after
         // ✅ Alphabetical tiebreaker when song counts are equal
-        String sql = "SELECT p.*, COUNT(ps.song_id) as song_count " +
+        // ✅ Genre-keyed system playlists have no playlist_songs rows: count their
+        // songs live by genre_id (indexed), the same set the playlist page shows
+        String sql = "SELECT p.*, CASE WHEN p.is_system = 1 AND p.genre_id > 0 " +
+                "THEN (SELECT COUNT(*) FROM songs s WHERE s.genre_id = p.genre_id AND s.available = 1) " +
+                "ELSE (SELECT COUNT(*) FROM playlist_songs ps WHERE ps.playlist_id = p.playlist_id) " +
+                "END as song_count " +
                 "FROM playlists p " +
-                "LEFT JOIN playlist_songs ps ON p.playlist_id = ps.playlist_id " +
                 "WHERE p.user_id = ? " +
-                "GROUP BY p.playlist_id " +
                 "ORDER BY p.is_system ASC, song_count DESC, p.playlist_name ASC";
 
         try (Connection conn = DriverManager.getConnection(getDbUrl());
@@ -92,6 +121,7 @@ public class PlaylistDAO {
                 playlist.put("user_id",       rs.getInt("user_id"));
                 playlist.put("playlist_name", rs.getString("playlist_name"));
                 playlist.put("is_system",     rs.getInt("is_system"));
+                playlist.put("genre_id",      rs.getInt("genre_id"));
                 playlist.put("created_at",    rs.getString("created_at"));
                 playlist.put("song_count",    rs.getInt("song_count"));
 
@@ -159,20 +189,14 @@ public class PlaylistDAO {
     /* ================= HELPER ================= */
 
     private Song extractSong(ResultSet rs) throws SQLException {
-        Song song = new Song();
-        song.setSongId(rs.getInt("song_id"));
-        song.setTitle(rs.getString("title"));
-        song.setGenre(rs.getString("genre"));
-        song.setFilePath(rs.getString("file_path"));
-        song.setDuration(rs.getDouble("duration"));
-        return song;
+        return SongDAO.mapSong(rs);
     }
 
     public List<Song> getPlaylistSongs(int playlistId) {
         List<Song> songs = new ArrayList<>();
         String sql = "SELECT s.* FROM songs s " +
                 "INNER JOIN playlist_songs ps ON s.song_id = ps.song_id " +
-                "WHERE ps.playlist_id = ? ORDER BY ps.added_at";
+                "WHERE ps.playlist_id = ? AND s.available = 1 ORDER BY ps.added_at";
 
         try (Connection conn = DriverManager.getConnection(getDbUrl());
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -78,7 +78,7 @@
 //        List<Song> songs = new ArrayList<>();
 //        String sql = "SELECT DISTINCT s.* FROM songs s " +
 //                "INNER JOIN recently_played rp ON s.song_id = rp.song_id " +
-//                "WHERE rp.user_id = ? ORDER BY rp.played_at DESC LIMIT 50";
+//                "WHERE rp.user_id = ? AND s.available = 1 ORDER BY rp.played_at DESC LIMIT 50";
 //
 //        try (Connection conn = DriverManager.getConnection(DB_URL);
 //             PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -112,7 +112,9 @@ import com.example.new_better.models.Song;
 import com.example.new_better.utils.DatabaseInitializer; // ✅ Keep: Utility import
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RecentlyPlayedDAO {
 
@@ -153,6 +155,26 @@ public class RecentlyPlayedDAO {
         }
     }
 
+    /**
+     * One more play of this song. Called by MusicPlayerManager when a track
+     * actually starts, not from the recents insert above, which also runs on
+     * queue edits.
+     */
+    public void incrementPlayCount(int userId, int songId) {
+        String sql = "INSERT INTO play_counts (user_id, song_id, play_count) VALUES (?, ?, 1) " +
+                "ON CONFLICT(user_id, song_id) DO UPDATE SET play_count = play_count + 1";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, songId);
+            pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     private boolean isLastPlayedSong(int userId, int songId) {
         String sql = "SELECT song_id FROM recently_played WHERE user_id = ? ORDER BY played_at DESC LIMIT 1";
         try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
@@ -186,11 +208,32 @@ public class RecentlyPlayedDAO {
         }
     }
 
+    /** song_id → lifetime play count for this user (songs never played are absent). */
+    public Map<Integer, Integer> getPlayCounts(int userId) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        String sql = "SELECT song_id, play_count FROM play_counts WHERE user_id = ?";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                counts.put(rs.getInt("song_id"), rs.getInt("play_count"));
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return counts;
+    }
+
     public List<Song> getRecentlyPlayed(int userId) {
         List<Song> songs = new ArrayList<>();
         String sql = "SELECT DISTINCT s.* FROM songs s " +
                 "INNER JOIN recently_played rp ON s.song_id = rp.song_id " +
-                "WHERE rp.user_id = ? ORDER BY rp.played_at DESC LIMIT 50";
+                "WHERE rp.user_id = ? AND s.available = 1 ORDER BY rp.played_at DESC LIMIT 50";
 
         try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -209,13 +252,6 @@ public class RecentlyPlayedDAO {
     }
 
     private Song extractSongFromResultSet(ResultSet rs) throws SQLException {
-        // ✅ Keep: Mapping logic
-        Song song = new Song();
-        song.setSongId(rs.getInt("song_id"));
-        song.setTitle(rs.getString("title"));
-        song.setGenre(rs.getString("genre"));
-        song.setFilePath(rs.getString("file_path"));
-        song.setDuration(rs.getDouble("duration"));
-        return song;
+        return SongDAO.mapSong(rs);
     }
 }
\ No newline at end of file
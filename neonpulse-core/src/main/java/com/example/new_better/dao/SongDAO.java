@@ -0,0 +1,803 @@
+package com.example.new_better.dao;
+
+import com.example.new_better.models.Genre;
+import com.example.new_better.models.Song;
+import com.example.new_better.utils.DatabaseInitializer;
+import com.example.new_better.utils.GenreRegistry;
+import com.example.new_better.utils.SearchKeys;
+import com.example.new_better.utils.SongPool;
+
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SongDAO {
+
+    // ✅ Dynamic getter to ensure we always have the current deployment path
+    private String getDbUrl() {
+        return DatabaseInitializer.getDbUrl();
+    }
+
+    static {
+        // 🔥 DEBUG: Keep your original debug checks
+        String currentUrl = DatabaseInitializer.getDbUrl();
+        System.out.println("SongDAO initializing with DB URL: " + currentUrl);
+
+        if (currentUrl != null && currentUrl.startsWith("jdbc:sqlite:")) {
+            String path = currentUrl.replace("jdbc:sqlite:", "");
+            File dbFile = new File(path);
+            System.out.println("DB Absolute Path: " + dbFile.getAbsolutePath());
+            System.out.println("DB Exists: " + dbFile.exists());
+        }
+    }
+
+    public List<Song> getAllSongs() {
+        List<Song> songs = new ArrayList<>();
+        // Songs whose file went missing stay in the DB (likes, playlists) but are hidden
+        String sql = "SELECT * FROM songs WHERE available = 1 ORDER BY title";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                songs.add(extractSong(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching all songs:");
+            e.printStackTrace();
+        }
+
+        System.out.println("getAllSongs() returned: " + songs.size());
+        return songs;
+    }
+
+    public Song getSongById(int songId) {
+        String sql = "SELECT * FROM songs WHERE song_id = ?";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, songId);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return extractSong(rs);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching song by ID:");
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /** Also resolves paths that were merged into another song as duplicates. */
+    public Song getSongByFilePath(String filePath) {
+        String sql = "SELECT * FROM songs WHERE file_path = ? " +
+                "UNION ALL " +
+                "SELECT s.* FROM song_aliases a JOIN songs s ON s.song_id = a.song_id WHERE a.file_path = ? " +
+                "LIMIT 1";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, filePath);
+            pstmt.setString(2, filePath);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return extractSong(rs);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching song by file path:");
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /* =========================================================
+       GENRE LOADING: by integer genre_id (indexed)
+       ========================================================= */
+    public List<Song> getSongsByGenreId(int genreId) {
+        List<Song> songs = new ArrayList<>();
+        String sql = "SELECT * FROM songs WHERE genre_id = ? AND available = 1 ORDER BY title";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, genreId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                songs.add(extractSong(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching songs by genre id: " + genreId);
+            e.printStackTrace();
+        }
+
+        return songs;
+    }
+
+    /** Legacy name-based lookup (old system playlists without a genre_id). */
+    public List<Song> getSongsByGenre(String genre) {
+        List<Song> songs = new ArrayList<>();
+        String sql = "SELECT * FROM songs WHERE genre_id = " +
+                "(SELECT genre_id FROM genres WHERE folder = lower(?)) AND available = 1 ORDER BY title";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, genre);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                songs.add(extractSong(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching songs by genre: " + genre);
+            e.printStackTrace();
+        }
+
+        return songs;
+    }
+
+    /** Inserts the song and returns its new song_id, or -1 on failure (Song is immutable). */
+    public int insertSong(Song song) {
+        // genre_id falls back to the folder matching the genre name if the caller didn't set one
+        String sql = "INSERT INTO songs (title, genre, genre_id, file_path, duration, search_key) VALUES " +
+                "(?, ?, COALESCE(?, (SELECT genre_id FROM genres WHERE folder = lower(?))), ?, ?, ?)";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            pstmt.setString(1, song.getTitle());
+            pstmt.setString(2, song.getGenre());
+            if (song.getGenreId() > 0) pstmt.setInt(3, song.getGenreId());
+            else pstmt.setNull(3, Types.INTEGER);
+            pstmt.setString(4, song.getGenre());
+            pstmt.setString(5, song.getFilePath());
+            pstmt.setDouble(6, song.getDuration());
+            pstmt.setString(7, SearchKeys.normalize(song.getTitle()));
+
+            pstmt.executeUpdate();
+
+            ResultSet rs = pstmt.getGeneratedKeys();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error inserting song:");
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /**
+     * ✅ FIX: LIKE only folds ASCII case, so "cafe" never found "Café". Titles
+     * are matched on the stored search_key and the query is normalized the same
+     * way (SearchKeys); genre names come from folder names, plain lower() is enough.
+     */
+    public List<Song> searchSongs(String query) {
+        List<Song> songs = new ArrayList<>();
+        String sql = "SELECT * FROM songs WHERE (search_key LIKE ? OR lower(genre) LIKE ?) " +
+                "AND available = 1 ORDER BY title";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            String searchPattern = SearchKeys.likePattern(query);
+            pstmt.setString(1, searchPattern);
+            pstmt.setString(2, searchPattern);
+
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                songs.add(extractSong(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error searching songs:");
+            e.printStackTrace();
+        }
+
+        return songs;
+    }
+
+    /* =========================================================
+       🔥 REPAIR METHOD: Used by AllSongsController
+       ========================================================= */
+    public void updateSongDuration(int songId, double duration) {
+        String sql = "UPDATE songs SET duration = ? WHERE song_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl()); // ✅ Updated to dynamic URL
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDouble(1, duration);
+            pstmt.setInt(2, songId);
+            pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            System.err.println("Error updating song duration:");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The file at this path is gone. A merged alias is simply forgotten; a real
+     * song is kept (likes, playlists, history) but marked unavailable so views
+     * hide it until LibraryReconciler relinks it. Returns true if anything changed.
+     */
+    public boolean markMissingByFilePath(String filePath) {
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement alias = conn.prepareStatement("DELETE FROM song_aliases WHERE file_path = ?");
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE songs SET available = 0 WHERE file_path = ? AND available = 1")) {
+
+            alias.setString(1, filePath);
+            pstmt.setString(1, filePath);
+            return alias.executeUpdate() + pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error marking song missing:");
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /** Every known file_path (songs + merged aliases), for cheap diffing against a directory listing. */
+    public Set<String> getAllFilePaths() {
+        Set<String> paths = new HashSet<>();
+        String sql = "SELECT file_path FROM songs UNION ALL SELECT file_path FROM song_aliases";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                paths.add(rs.getString(1));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching song file paths:");
+            e.printStackTrace();
+        }
+        return paths;
+    }
+
+    /* =========================================================
+       AVAILABILITY: used by LibraryReconciler
+       ========================================================= */
+
+    /** Path and availability of one song, for the bulk existence check. */
+    public record FileState(int songId, String filePath, boolean available) {}
+
+    public List<FileState> getFileStates(int afterSongId, int limit) {
+        List<FileState> states = new ArrayList<>();
+        String sql = "SELECT song_id, file_path, available FROM songs WHERE song_id > ? ORDER BY song_id LIMIT ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, afterSongId);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                states.add(new FileState(rs.getInt(1), rs.getString(2), rs.getInt(3) == 1));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching song file states:");
+            e.printStackTrace();
+        }
+        return states;
+    }
+
+    /** Flips availability for a batch of songs in one transaction. */
+    public void setAvailability(Map<Integer, Boolean> changes) {
+        String sql = "UPDATE songs SET available = ? WHERE song_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<Integer, Boolean> change : changes.entrySet()) {
+                    pstmt.setInt(1, change.getValue() ? 1 : 0);
+                    pstmt.setInt(2, change.getKey());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error updating song availability:");
+            e.printStackTrace();
+        }
+    }
+
+    /** A file reappeared at its stored path. Returns true if the song was unavailable. */
+    public boolean markAvailableByFilePath(String filePath) {
+        String sql = "UPDATE songs SET available = 1 WHERE file_path = ? AND available = 0";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, filePath);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error marking song available:");
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    public int countUnavailable() {
+        String sql = "SELECT COUNT(*) FROM songs WHERE available = 0";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) return rs.getInt(1);
+
+        } catch (SQLException e) {
+            System.err.println("Error counting unavailable songs:");
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /** Unavailable songs of exactly this size that were hashed while their file still existed. */
+    public List<HashRow> findMissingCandidates(long fileSize) {
+        List<HashRow> rows = new ArrayList<>();
+        String sql = "SELECT song_id, file_size, sample_hash, content_hash FROM songs " +
+                "WHERE available = 0 AND file_size = ? AND sample_hash IS NOT NULL ORDER BY song_id";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, fileSize);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                rows.add(new HashRow(rs.getInt(1), rs.getLong(2), rs.getLong(3), rs.getString(4)));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching relink candidates:");
+            e.printStackTrace();
+        }
+        return rows;
+    }
+
+    /** Points an existing song (same song_id, likes, playlists) at its new file. */
+    public boolean relinkSong(int songId, String newFilePath, Genre genre) {
+        String sql = "UPDATE songs SET file_path = ?, genre = ?, genre_id = ?, available = 1 WHERE song_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, newFilePath);
+            pstmt.setString(2, genre.getName());
+            pstmt.setInt(3, genre.getGenreId());
+            pstmt.setInt(4, songId);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error relinking song:");
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /* =========================================================
+       CONTENT HASHES: used by ContentIndexer
+       ========================================================= */
+
+    /** One computed hash result. contentHash is null for the sampling pass. */
+    public record HashRow(int songId, long fileSize, long sampleHash, String contentHash) {}
+
+    /** Next page of songs that have no sampled hash yet (keyset paging, resumable). */
+    public List<Song> getSongsMissingSampleHash(int afterSongId, int limit) {
+        return querySongPage("SELECT * FROM songs WHERE sample_hash IS NULL AND song_id > ? " +
+                "ORDER BY song_id LIMIT ?", afterSongId, limit);
+    }
+
+    /** Next page of songs whose (size, sampled hash) collides with another song's. */
+    public List<Song> getSongsNeedingContentHash(int afterSongId, int limit) {
+        return querySongPage("SELECT s.* FROM songs s " +
+                "JOIN (SELECT file_size, sample_hash FROM songs WHERE sample_hash IS NOT NULL " +
+                "      GROUP BY file_size, sample_hash HAVING COUNT(*) > 1) g " +
+                "  ON s.file_size = g.file_size AND s.sample_hash = g.sample_hash " +
+                "WHERE s.content_hash IS NULL AND s.song_id > ? ORDER BY s.song_id LIMIT ?",
+                afterSongId, limit);
+    }
+
+    private List<Song> querySongPage(String sql, int afterSongId, int limit) {
+        List<Song> songs = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, afterSongId);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                songs.add(extractSong(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching hash work page:");
+            e.printStackTrace();
+        }
+        return songs;
+    }
+
+    /** Stores a page of hash results in one transaction. */
+    public void saveHashes(List<HashRow> rows) {
+        String sampleSql  = "UPDATE songs SET file_size = ?, sample_hash = ?, content_hash = NULL WHERE song_id = ?";
+        String contentSql = "UPDATE songs SET content_hash = ? WHERE song_id = ?";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement sample = conn.prepareStatement(sampleSql);
+                 PreparedStatement content = conn.prepareStatement(contentSql)) {
+
+                for (HashRow row : rows) {
+                    if (row.contentHash() == null) {
+                        sample.setLong(1, row.fileSize());
+                        sample.setLong(2, row.sampleHash());
+                        sample.setInt(3, row.songId());
+                        sample.addBatch();
+                    } else {
+                        content.setString(1, row.contentHash());
+                        content.setInt(2, row.songId());
+                        content.addBatch();
+                    }
+                }
+                sample.executeBatch();
+                content.executeBatch();
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving content hashes:");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The file changed on disk: forget its hashes, loudness and playability so
+     * the next ContentIndexer / LoudnessAnalyzer / MediaValidator passes recompute them.
+     */
+    public void clearHashes(int songId) {
+        String sql = "UPDATE songs SET file_size = NULL, sample_hash = NULL, content_hash = NULL, " +
+                "gain_db = NULL, gain_source = NULL, playable = NULL, playable_reason = NULL WHERE song_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, songId);
+            pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            System.err.println("Error clearing content hashes:");
+            e.printStackTrace();
+        }
+    }
+
+    /* =========================================================
+       LOUDNESS (see LoudnessAnalyzer)
+       ========================================================= */
+
+    /** gainDb is null when nothing could be measured (source "none"): played unchanged. */
+    public record GainRow(int songId, Double gainDb, String source) {}
+
+    /** Next page of available songs without a gain decision yet (keyset paging, resumable). */
+    public List<Song> getSongsMissingGain(int afterSongId, int limit) {
+        return querySongPage("SELECT * FROM songs WHERE gain_source IS NULL AND available = 1 " +
+                "AND song_id > ? ORDER BY song_id LIMIT ?", afterSongId, limit);
+    }
+
+    public int countSongsMissingGain() {
+        String sql = "SELECT COUNT(*) FROM songs WHERE gain_source IS NULL AND available = 1";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting songs without gain:");
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /** Stores a page of gains in one transaction. */
+    public void saveGains(List<GainRow> rows) {
+        String sql = "UPDATE songs SET gain_db = ?, gain_source = ? WHERE song_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (GainRow row : rows) {
+                    if (row.gainDb() == null) pstmt.setNull(1, Types.REAL);
+                    else pstmt.setDouble(1, row.gainDb());
+                    pstmt.setString(2, row.source());
+                    pstmt.setInt(3, row.songId());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving track gains:");
+            e.printStackTrace();
+        }
+    }
+
+    /** song_id → gain in dB for every song that has one. */
+    public Map<Integer, Double> getTrackGains() {
+        Map<Integer, Double> gains = new HashMap<>();
+        String sql = "SELECT song_id, gain_db FROM songs WHERE gain_db IS NOT NULL";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                gains.put(rs.getInt(1), rs.getDouble(2));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading track gains:");
+            e.printStackTrace();
+        }
+        return gains;
+    }
+
+    /* =========================================================
+       PLAYABILITY (see MediaValidator)
+       ========================================================= */
+
+    /** reason is null for playable files, a short explanation otherwise. */
+    public record VerdictRow(int songId, boolean playable, String reason) {}
+
+    /** Next page of available songs not validated yet (keyset paging, resumable). */
+    public List<Song> getSongsUnvalidated(int afterSongId, int limit) {
+        return querySongPage("SELECT * FROM songs WHERE playable IS NULL AND available = 1 " +
+                "AND song_id > ? ORDER BY song_id LIMIT ?", afterSongId, limit);
+    }
+
+    public int countSongsUnvalidated() {
+        String sql = "SELECT COUNT(*) FROM songs WHERE playable IS NULL AND available = 1";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting unvalidated songs:");
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /** Stores a page of verdicts in one transaction. */
+    public void saveVerdicts(List<VerdictRow> rows) {
+        String sql = "UPDATE songs SET playable = ?, playable_reason = ? WHERE song_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (VerdictRow row : rows) {
+                    pstmt.setInt(1, row.playable() ? 1 : 0);
+                    pstmt.setString(2, row.reason());
+                    pstmt.setInt(3, row.songId());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving playability verdicts:");
+            e.printStackTrace();
+        }
+    }
+
+    /** Forgets the verdicts on files that changed, so the next validator run checks them again. */
+    public void clearVerdicts(List<Integer> songIds) {
+        String sql = "UPDATE songs SET playable = NULL, playable_reason = NULL WHERE song_id = ?";
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int songId : songIds) {
+                    pstmt.setInt(1, songId);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error clearing playability verdicts:");
+            e.printStackTrace();
+        }
+    }
+
+    /** Ids of every song known not to play. */
+    public List<Integer> getUnplayableSongIds() {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT song_id FROM songs WHERE playable = 0";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading unplayable songs:");
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
+    /**
+     * Byte-identical copies grouped by full content hash, oldest song first.
+     * Only songs that actually have a duplicate are loaded.
+     */
+    public Map<String, List<Song>> getDuplicateGroups() {
+        Map<String, List<Song>> groups = new LinkedHashMap<>();
+        String sql = "SELECT * FROM songs WHERE content_hash IN (" +
+                "  SELECT content_hash FROM songs WHERE content_hash IS NOT NULL " +
+                "  GROUP BY content_hash HAVING COUNT(*) > 1) " +
+                "ORDER BY content_hash, song_id";
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                groups.computeIfAbsent(rs.getString("content_hash"), k -> new ArrayList<>())
+                        .add(extractSong(rs));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error fetching duplicate groups:");
+            e.printStackTrace();
+        }
+        return groups;
+    }
+
+    /**
+     * Folds duplicate songs into the canonical one in ONE transaction: likes,
+     * playlist entries and play history are re-pointed (rows that would collide
+     * are dropped), play counts are summed into the canonical song's, the
+     * duplicate's file path becomes an alias of the canonical song, and the
+     * duplicate row is deleted. Returns false and rolls back on error.
+     */
+    public boolean mergeSongs(int canonicalId, List<Integer> duplicateIds) {
+        String[] repoint = {
+                // Play counts add up: each user's duplicate plays are folded into the canonical row
+                "INSERT INTO play_counts (user_id, song_id, play_count) " +
+                        "SELECT user_id, ?, play_count FROM play_counts WHERE song_id = ? " +
+                        "ON CONFLICT(user_id, song_id) DO UPDATE SET play_count = play_count + excluded.play_count",
+                "UPDATE OR IGNORE liked_songs SET song_id = ? WHERE song_id = ?",
+                "UPDATE OR IGNORE playlist_songs SET song_id = ? WHERE song_id = ?",
+                "UPDATE OR IGNORE recently_played SET song_id = ? WHERE song_id = ?",
+                "UPDATE song_aliases SET song_id = ? WHERE song_id = ?"
+        };
+        String aliasSql  = "INSERT OR REPLACE INTO song_aliases (file_path, song_id) " +
+                "SELECT file_path, ? FROM songs WHERE song_id = ?";
+        // Leftovers are the rows that collided with an existing canonical row.
+        // Deleted explicitly: foreign_keys (and so CASCADE) is per connection.
+        String[] delete = {
+                "DELETE FROM play_counts WHERE song_id = ?",
+                "DELETE FROM liked_songs WHERE song_id = ?",
+                "DELETE FROM playlist_songs WHERE song_id = ?",
+                "DELETE FROM recently_played WHERE song_id = ?",
+                "DELETE FROM songs WHERE song_id = ?"
+        };
+
+        try (Connection conn = DriverManager.getConnection(getDbUrl())) {
+            conn.setAutoCommit(false);
+            try {
+                for (int duplicateId : duplicateIds) {
+                    for (String sql : repoint) {
+                        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                            pstmt.setInt(1, canonicalId);
+                            pstmt.setInt(2, duplicateId);
+                            pstmt.executeUpdate();
+                        }
+                    }
+                    try (PreparedStatement alias = conn.prepareStatement(aliasSql)) {
+                        alias.setInt(1, canonicalId);
+                        alias.setInt(2, duplicateId);
+                        alias.executeUpdate();
+                    }
+                    for (String sql : delete) {
+                        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                            pstmt.setInt(1, duplicateId);
+                            pstmt.executeUpdate();
+                        }
+                    }
+                }
+                conn.commit();
+                for (int duplicateId : duplicateIds) SongPool.evict(duplicateId);
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error merging duplicate songs:");
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /** Current catalog version (bumped by triggers on every songs change). */
+    public long getCatalogVersion() {
+        String sql = "SELECT version FROM catalog_version WHERE id = 1";
+        try (Connection conn = DriverManager.getConnection(getDbUrl());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error reading catalog version:");
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    private Song extractSong(ResultSet rs) throws SQLException {
+        return mapSong(rs);
+    }
+
+    /**
+     * Shared row mapper for every DAO that selects songs.*: returns the pooled
+     * instance for this song_id (see SongPool), so repeated loads don't allocate
+     * a second copy of an unchanged song.
+     */
+    static Song mapSong(ResultSet rs) throws SQLException {
+        int genreId = rs.getInt("genre_id");
+        long uploadedAt = Song.NO_TIME;
+        String uploadedAtStr = rs.getString("uploaded_at");
+        if (uploadedAtStr != null) {
+            try {
+                uploadedAt = LocalDateTime.parse(uploadedAtStr.replace(" ", "T")).toEpochSecond(ZoneOffset.UTC);
+            } catch (Exception ignored) {
+                uploadedAt = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+            }
+        }
+        return SongPool.get(
+                rs.getInt("song_id"),
+                rs.getString("title"),
+                genreId,
+                GenreRegistry.nameOf(genreId, rs.getString("genre")),
+                rs.getString("file_path"),
+                rs.getDouble("duration"),
+                uploadedAt);
+    }
+}
\ No newline at end of file
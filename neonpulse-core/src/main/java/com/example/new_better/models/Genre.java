@@ -0,0 +1,46 @@
+package com.example.new_better.models;
+
+/**
+ * One row of the genres table. A genre is a folder under the songs directory;
+ * songs and system playlists reference it by its small integer id.
+ */
+public class Genre {
+    private int genreId;
+    private String folder;   // folder name on disk, e.g. "pop"
+    private String name;     // display name, e.g. "Pop"
+
+    public Genre() {}
+
+    public Genre(int genreId, String folder, String name) {
+        this.genreId = genreId;
+        this.folder = folder;
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public int getGenreId() { return genreId; }
+    public void setGenreId(int genreId) { this.genreId = genreId; }
+
+    public String getFolder() { return folder; }
+    public void setFolder(String folder) { this.folder = folder; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        return genreId == ((Genre) obj).genreId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(genreId);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.new_better.models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+/**
+ * Immutable, memory-lean song. One instance per song_id is shared by every
+ * view, queue and cache (see SongPool), so it must never change after
+ * construction — an edited row produces a new instance that replaces the old
+ * one in the pool.
+ *
+ * Layout choices (≈100k songs stay resident with the library open):
+ *   - genre is the interned GenreRegistry name: one String per genre, not per song.
+ *   - file_path is stored as an interned directory prefix ("pop/") + file name,
+ *     so the prefix is shared by every song in the folder.
+ *   - uploadedAt is epoch seconds (UTC) instead of a LocalDateTime, which cost
+ *     three extra objects per song.
+ *   - duration is a float: sub-millisecond precision is irrelevant for an estimate.
+ */
+public final class Song {
+
+    /** uploadedAt value when the row has no timestamp. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private final int songId;
+    private final int genreId;     // genres.genre_id; genre below is its display name
+    private final String title;
+    private final String genre;
+    private final String pathPrefix; // "" for a bare file name
+    private final String fileName;
+    private final float duration;
+    private final long uploadedAt;   // epoch seconds, UTC
+
+    public Song(int songId, String title, int genreId, String genre, String filePath,
+                double duration, long uploadedAt) {
+        this.songId = songId;
+        this.title = title;
+        this.genreId = genreId;
+        this.genre = genre == null ? null : genre.intern();
+        int sep = filePath == null ? -1 : Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\'));
+        this.pathPrefix = sep < 0 ? "" : filePath.substring(0, sep + 1).intern();
+        this.fileName = sep < 0 ? filePath : filePath.substring(sep + 1);
+        this.duration = (float) duration;
+        this.uploadedAt = uploadedAt;
+    }
+
+    /** A not-yet-inserted song (song_id 0, no timestamp), e.g. from the importer. */
+    public Song(String title, int genreId, String genre, String filePath, double duration) {
+        this(0, title, genreId, genre, filePath, duration, NO_TIME);
+    }
+
+    // Getters
+    public int getSongId() { return songId; }
+
+    public String getTitle() { return title; }
+
+    public String getGenre() { return genre; }
+
+    public int getGenreId() { return genreId; }
+
+    public String getFilePath() {
+        return pathPrefix.isEmpty() ? fileName : pathPrefix + fileName;
+    }
+
+    public double getDuration() { return duration; }
+
+    /** Epoch seconds (UTC), or NO_TIME. */
+    public long getUploadedAtEpoch() { return uploadedAt; }
+
+    public LocalDateTime getUploadedAt() {
+        return uploadedAt == NO_TIME ? null : LocalDateTime.ofEpochSecond(uploadedAt, 0, ZoneOffset.UTC);
+    }
+
+    // "Setters" for the few fields that change after load: they return a copy
+    public Song withSongId(int newSongId) {
+        return new Song(newSongId, title, genreId, genre, getFilePath(), duration, uploadedAt);
+    }
+
+    public Song withDuration(double newDuration) {
+        return new Song(songId, title, genreId, genre, getFilePath(), newDuration, uploadedAt);
+    }
+
+    /** True if this instance already holds exactly these column values. */
+    public boolean matches(String title, int genreId, String genre, String filePath,
+                           double duration, long uploadedAt) {
+        return this.genreId == genreId
+                && this.duration == (float) duration
+                && this.uploadedAt == uploadedAt
+                && Objects.equals(this.title, title)
+                && Objects.equals(this.genre, genre)
+                && filePath != null
+                && filePath.length() == pathPrefix.length() + fileName.length()
+                && filePath.startsWith(pathPrefix)
+                && filePath.endsWith(fileName);
+    }
+
+    public String getFormattedDuration() {
+        int minutes = (int) (duration / 60);
+        int seconds = (int) (duration % 60);
+        return String.format("%d:%02d", minutes, seconds);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Song song = (Song) obj;
+        return songId == song.songId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(songId);
+    }
+}
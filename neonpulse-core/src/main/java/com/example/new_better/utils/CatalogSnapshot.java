@@ -0,0 +1,309 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Song;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Binary snapshot of the song catalog, read in one go at startup so the library
+ * view can paint before SQLite has answered a single query.
+ *
+ * Layout (big-endian, columnar, strings de-duplicated into one pool):
+ *
+ *   header   int MAGIC, int FORMAT, long catalogVersion, int songCount,
+ *            int poolSize, int poolBytes
+ *   columns  int[n] songId, int[n] genreId, int[n] titleRef, int[n] genreRef, int[n] pathRef,
+ *            double[n] duration, long[n] uploadedAt (epoch seconds, Song.NO_TIME if null)
+ *   pool     int[poolSize + 1] offsets, byte[poolBytes] UTF-8 data
+ *
+ * The snapshot is stamped with catalog_version, which triggers bump on every
+ * change to the songs table. Callers paint from the snapshot immediately, then
+ * compare its version with the DB and fall back to SQL (and rewrite the file)
+ * when it is stale. A missing, truncated or foreign file simply loads as null.
+ *
+ * Songs are decoded lazily: read() copies the file into one heap buffer and
+ * validates the header and sizes, and each Song (and each pooled string) is
+ * built the first time it is asked for. The file is closed once read — it is
+ * deliberately not memory-mapped, because Windows refuses to replace a file
+ * that is still mapped, and a lazily decoded list keeps its buffer for the
+ * whole session.
+ *
+ * Written via a temp file + atomic move, so a crash mid-write never leaves a
+ * half-written snapshot behind. Writers serialize on their own lock; the class
+ * lock only guards the cached future, so load() never waits on file I/O.
+ */
+public final class CatalogSnapshot {
+
+    private static final int MAGIC   = 0x4E504353; // "NPCS"
+    private static final int FORMAT  = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4;
+
+    // ✅ PORTABLE: lives next to neonpulse.db, like everything else.
+    private static final Path FILE =
+            Path.of(System.getProperty("user.dir"), "neonpulse.catalog");
+
+    /** Decoded snapshot: the version it was built from plus the songs in title order. */
+    public record Snapshot(long version, List<Song> songs) {}
+
+    private static CompletableFuture<Snapshot> cached;  // guarded by CatalogSnapshot.class
+    private static final Object WRITE_LOCK = new Object();
+
+    private CatalogSnapshot() {}
+
+    /** Starts reading the snapshot in the background. Called first thing at launch. */
+    public static void preload() {
+        load();
+    }
+
+    /**
+     * The decoded snapshot, or null when there is none. Loaded once per session
+     * on the DB reader lane (file I/O only — SQLite is never touched) and
+     * replaced in memory whenever a fresh snapshot is written.
+     */
+    public static synchronized CompletableFuture<Snapshot> load() {
+        if (cached == null) {
+            cached = CompletableFuture.supplyAsync(CatalogSnapshot::read, DbExecutor.readers())
+                    .exceptionally(e -> null);
+        }
+        return cached;
+    }
+
+    /** Re-reads the catalog from SQL and rewrites the snapshot (after an import). */
+    public static void rebuildAsync() {
+        DbExecutor.readers().execute(() -> {
+            SongDAO songDAO = new SongDAO();
+            // Version first: if songs change in between, the file is stamped with
+            // an older version and is simply rebuilt again next time.
+            long version = songDAO.getCatalogVersion();
+            if (version < 0) return;
+            write(songDAO.getAllSongs(), version);
+        });
+    }
+
+    /** Writes the given catalog off the FX thread. */
+    public static void writeAsync(List<Song> songs, long version) {
+        List<Song> copy = List.copyOf(songs);
+        DbExecutor.readers().execute(() -> write(copy, version));
+    }
+
+    // ─── Reading ─────────────────────────────────────────────────────────────
+
+    private static Snapshot read() {
+        if (!Files.isRegularFile(FILE)) return null;
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(FILE, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) return null;
+
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) < 0) return null; // truncated while we read it
+            }
+            buf.flip();
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT) return null;
+
+            long version  = buf.getLong();
+            int count     = buf.getInt();
+            int poolSize  = buf.getInt();
+            int poolBytes = buf.getInt();
+
+            long expected = HEADER_BYTES
+                    + (long) count * (4 + 4 + 4 + 4 + 4 + 8 + 8)
+                    + (long) (poolSize + 1) * 4
+                    + poolBytes;
+            if (count < 0 || poolSize < 0 || poolBytes < 0 || expected != size) {
+                System.err.println("⚠️ Catalog snapshot is damaged, ignoring it.");
+                return null;
+            }
+
+            int idsAt      = HEADER_BYTES;
+            int genreIdsAt = idsAt + count * 4;
+            int titlesAt   = genreIdsAt + count * 4;
+            int genresAt   = titlesAt + count * 4;
+            int pathsAt    = genresAt + count * 4;
+            int durationAt = pathsAt + count * 4;
+            int uploadedAt = durationAt + count * 8;
+            int offsetsAt  = uploadedAt + count * 8;
+            int dataAt     = offsetsAt + (poolSize + 1) * 4;
+
+            List<Song> songs = new LazySongs(buf, count, poolSize, idsAt, genreIdsAt, titlesAt,
+                    genresAt, pathsAt, durationAt, uploadedAt, offsetsAt, dataAt);
+
+            System.out.printf("⚡ Catalog snapshot v%d: %d songs read in %.1f ms%n",
+                    version, count, (System.nanoTime() - start) / 1_000_000.0);
+            return new Snapshot(version, songs);
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Could not read catalog snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read-only song list over the snapshot's columns. Song i is built on its first
+     * get(i) and kept; each pooled string is decoded at most once, so every
+     * song of a genre shares one String instance.
+     */
+    private static final class LazySongs extends AbstractList<Song> implements RandomAccess {
+
+        private final ByteBuffer buf;
+        private final Song[] songs;
+        private final String[] pool;
+        private final int idsAt, genreIdsAt, titlesAt, genresAt, pathsAt, durationAt, uploadedAt,
+                offsetsAt, dataAt;
+
+        LazySongs(ByteBuffer buf, int count, int poolSize, int idsAt, int genreIdsAt, int titlesAt,
+                    int genresAt, int pathsAt, int durationAt, int uploadedAt, int offsetsAt, int dataAt) {
+            this.buf = buf;
+            this.songs = new Song[count];
+            this.pool = new String[poolSize];
+            this.idsAt = idsAt;
+            this.genreIdsAt = genreIdsAt;
+            this.titlesAt = titlesAt;
+            this.genresAt = genresAt;
+            this.pathsAt = pathsAt;
+            this.durationAt = durationAt;
+            this.uploadedAt = uploadedAt;
+            this.offsetsAt = offsetsAt;
+            this.dataAt = dataAt;
+        }
+
+        @Override
+        public int size() {
+            return songs.length;
+        }
+
+        @Override
+        public synchronized Song get(int i) {
+            Song song = songs[i];
+            if (song == null) {
+                song = SongPool.get(
+                        buf.getInt(idsAt + i * 4),
+                        poolString(buf.getInt(titlesAt + i * 4)),
+                        buf.getInt(genreIdsAt + i * 4),
+                        poolString(buf.getInt(genresAt + i * 4)),
+                        poolString(buf.getInt(pathsAt + i * 4)),
+                        buf.getDouble(durationAt + i * 8),
+                        buf.getLong(uploadedAt + i * 8));
+                songs[i] = song;
+            }
+            return song;
+        }
+
+        private String poolString(int ref) {
+            if (ref < 0) return null;
+            String s = pool[ref];
+            if (s == null) {
+                int from = buf.getInt(offsetsAt + ref * 4);
+                int to   = buf.getInt(offsetsAt + (ref + 1) * 4);
+                byte[] bytes = new byte[to - from];
+                buf.get(dataAt + from, bytes);
+                s = new String(bytes, StandardCharsets.UTF_8);
+                pool[ref] = s;
+            }
+            return s;
+        }
+    }
+
+    // ─── Writing ─────────────────────────────────────────────────────────────
+
+    private static void write(List<Song> songs, long version) {
+        synchronized (WRITE_LOCK) {
+            writeLocked(songs, version);
+        }
+    }
+
+    private static void writeLocked(List<Song> songs, long version) {
+        long start = System.nanoTime();
+        int n = songs.size();
+
+        Map<String, Integer> refs = new HashMap<>();
+        List<byte[]> poolData = new ArrayList<>();
+        int[] titles = new int[n], genres = new int[n], paths = new int[n];
+        for (int i = 0; i < n; i++) {
+            Song song = songs.get(i);
+            titles[i] = intern(song.getTitle(), refs, poolData);
+            genres[i] = intern(song.getGenre(), refs, poolData);
+            paths[i]  = intern(song.getFilePath(), refs, poolData);
+        }
+        int poolBytes = 0;
+        for (byte[] b : poolData) poolBytes += b.length;
+
+        Path tmp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+        try (OutputStream fileOut = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(version);
+            out.writeInt(n);
+            out.writeInt(poolData.size());
+            out.writeInt(poolBytes);
+
+            for (Song song : songs) out.writeInt(song.getSongId());
+            for (Song song : songs) out.writeInt(song.getGenreId());
+            for (int ref : titles)  out.writeInt(ref);
+            for (int ref : genres)  out.writeInt(ref);
+            for (int ref : paths)   out.writeInt(ref);
+            for (Song song : songs) out.writeDouble(song.getDuration());
+            for (Song song : songs) out.writeLong(song.getUploadedAtEpoch());
+
+            int offset = 0;
+            out.writeInt(0);
+            for (byte[] b : poolData) {
+                offset += b.length;
+                out.writeInt(offset);
+            }
+            for (byte[] b : poolData) out.write(b);
+
+        } catch (IOException e) {
+            System.err.println("❌ Could not write catalog snapshot: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(tmp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Nothing keeps the old file open (see read()); if it fails anyway (a virus
+            // scanner holding it, say), the stale file stays, fails the version
+            // check next launch and is rewritten then.
+            System.err.println("⚠️ Could not replace catalog snapshot: " + e.getMessage());
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            return;
+        }
+
+        Snapshot written = new Snapshot(version, List.copyOf(songs));
+        synchronized (CatalogSnapshot.class) {
+            cached = CompletableFuture.completedFuture(written);
+        }
+        System.out.printf("💾 Catalog snapshot v%d written: %d songs in %.1f ms%n",
+                version, n, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    private static int intern(String s, Map<String, Integer> refs, List<byte[]> poolData) {
+        if (s == null) return -1;
+        return refs.computeIfAbsent(s, key -> {
+            poolData.add(key.getBytes(StandardCharsets.UTF_8));
+            return poolData.size() - 1;
+        });
+    }
+}
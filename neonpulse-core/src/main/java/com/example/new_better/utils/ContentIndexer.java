@@ -0,0 +1,286 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds byte-identical copies of the same file imported under different paths
+ * (e.g. the same track dropped into both "pop" and "party").
+ *
+ * Two passes, both over keyset-paged batches of PAGE_SIZE songs so memory stays
+ * flat no matter how big the library is (a 200 GB library costs the same heap
+ * as a 2 GB one):
+ *
+ *   1. SAMPLE — file size + a fast 64-bit hash over three 64 KB chunks (head,
+ *      middle, tail). Reads ≤192 KB per file regardless of its size.
+ *   2. CONFIRM — only for songs whose (size, sample) collides with another song:
+ *      a full SHA-256 streamed through a fixed 1 MB buffer.
+ *
+ * Files are hashed in parallel on a small pool; each page's results are written
+ * in one transaction on the DB writer lane before the next page is read. Progress
+ * therefore lives in the songs table itself — quitting mid-run loses at most one
+ * page, and the next run picks up the songs that still have no hash.
+ *
+ * Duplicates are reported, never merged automatically: mergeDuplicates() folds
+ * a group into its oldest song (likes, playlists, history and the file path move
+ * over; see SongDAO.mergeSongs).
+ */
+public final class ContentIndexer {
+
+    private static final int PAGE_SIZE    = 256;
+    private static final int SAMPLE_BYTES = 64 * 1024;
+    private static final int HASH_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** Songs sharing one content hash, oldest (canonical) first. */
+    public record DuplicateGroup(String contentHash, List<Song> songs) {
+        public Song canonical()        { return songs.get(0); }
+        public List<Song> duplicates() { return songs.subList(1, songs.size()); }
+    }
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static final AtomicBoolean rerunRequested = new AtomicBoolean(false);
+
+    private ContentIndexer() {}
+
+    /**
+     * Starts a background indexing run, or queues one more if a run is already
+     * in progress (so files added mid-run are not missed).
+     */
+    public static void requestRun() {
+        rerunRequested.set(true);
+        if (!running.compareAndSet(false, true)) return;
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (rerunRequested.getAndSet(false)) {
+                    runOnce();
+                }
+            } finally {
+                running.set(false);
+            }
+        }, "content-indexer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public static boolean isRunning() {
+        return running.get();
+    }
+
+    private static void runOnce() {
+        long start = System.nanoTime();
+        SongDAO songDAO = new SongDAO();
+        AtomicInteger threadCount = new AtomicInteger(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HASH_THREADS, r -> {
+            Thread t = new Thread(r, "content-hash-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        try {
+            int sampled   = runPass(pool, songDAO, false);
+            int confirmed = runPass(pool, songDAO, true);
+            System.out.printf("🧬 Content index: %d sampled, %d confirmed in %.1f s%n",
+                    sampled, confirmed, (System.nanoTime() - start) / 1e9);
+            printReport(findDuplicates());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int runPass(ExecutorService pool, SongDAO songDAO, boolean confirm)
+            throws InterruptedException {
+        int afterId = 0, done = 0;
+
+        while (true) {
+            List<Song> page = confirm
+                    ? songDAO.getSongsNeedingContentHash(afterId, PAGE_SIZE)
+                    : songDAO.getSongsMissingSampleHash(afterId, PAGE_SIZE);
+            if (page.isEmpty()) return done;
+            afterId = page.get(page.size() - 1).getSongId();
+
+            List<Future<SongDAO.HashRow>> futures = new ArrayList<>(page.size());
+            for (Song song : page) {
+                futures.add(pool.submit(() -> confirm ? contentHash(song) : sampleHash(song)));
+            }
+
+            List<SongDAO.HashRow> rows = new ArrayList<>(page.size());
+            for (Future<SongDAO.HashRow> future : futures) {
+                try {
+                    SongDAO.HashRow row = future.get();
+                    if (row != null) rows.add(row);
+                } catch (Exception e) {
+                    System.err.println("⚠️ Hashing failed: " + e.getMessage());
+                }
+            }
+
+            // Persist this page before reading the next: that is our resume point.
+            if (!rows.isEmpty()) {
+                CompletableFuture.runAsync(() -> songDAO.saveHashes(rows), DbExecutor.writer()).join();
+            }
+            done += rows.size();
+        }
+    }
+
+    // ─── Hashing ─────────────────────────────────────────────────────────────
+
+    /** Returns null when the file is missing/unreadable; it is retried next run. */
+    static SongDAO.HashRow sampleHash(Song song) {
+        return sampleHash(song.getSongId(), SongFolderImporter.resolveFile(song.getFilePath()));
+    }
+
+    static SongDAO.HashRow sampleHash(int songId, File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buf = ByteBuffer.allocate(SAMPLE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+            long h = mix(size ^ 0x9E3779B97F4A7C15L);
+            if (size <= 3L * SAMPLE_BYTES) {
+                for (long pos = 0; pos < size; pos += SAMPLE_BYTES) {
+                    h = hashChunk(channel, buf, pos, h);
+                }
+            } else {
+                h = hashChunk(channel, buf, 0, h);
+                h = hashChunk(channel, buf, size / 2 - SAMPLE_BYTES / 2, h);
+                h = hashChunk(channel, buf, size - SAMPLE_BYTES, h);
+            }
+            return new SongDAO.HashRow(songId, size, h, null);
+
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long hashChunk(FileChannel channel, ByteBuffer buf, long position, long h)
+            throws IOException {
+        buf.clear();
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) break;
+        }
+        buf.flip();
+        while (buf.remaining() >= 8) {
+            h = Long.rotateLeft(h ^ mix(buf.getLong()), 27) * 0x9E3779B97F4A7C15L + 0x52DCE729L;
+        }
+        while (buf.hasRemaining()) {
+            h = (h ^ (buf.get() & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3 fmix64 finaliser
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    static SongDAO.HashRow contentHash(Song song) {
+        return contentHash(song.getSongId(), SongFolderImporter.resolveFile(song.getFilePath()));
+    }
+
+    static SongDAO.HashRow contentHash(int songId, File file) {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[1 << 20];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+            }
+            return new SongDAO.HashRow(songId, 0, 0, HexFormat.of().formatHex(digest.digest()));
+
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    // ─── Report & merge ──────────────────────────────────────────────────────
+
+    public static List<DuplicateGroup> findDuplicates() {
+        List<DuplicateGroup> groups = new ArrayList<>();
+        for (Map.Entry<String, List<Song>> entry : new SongDAO().getDuplicateGroups().entrySet()) {
+            groups.add(new DuplicateGroup(entry.getKey(), entry.getValue()));
+        }
+        return groups;
+    }
+
+    private static void printReport(List<DuplicateGroup> groups) {
+        if (groups.isEmpty()) {
+            System.out.println("🧬 No duplicate files found.");
+            return;
+        }
+        int copies = 0;
+        long wasted = 0;
+        for (DuplicateGroup group : groups) {
+            copies += group.duplicates().size();
+            long size = SongFolderImporter.resolveFile(group.canonical().getFilePath()).length();
+            wasted += size * group.duplicates().size();
+
+            StringBuilder line = new StringBuilder("   • ").append(group.canonical().getFilePath());
+            for (Song dup : group.duplicates()) line.append("  ==  ").append(dup.getFilePath());
+            System.out.println(line);
+        }
+        System.out.printf("🧬 %d duplicate group(s), %d redundant cop%s, %.1f MB%n",
+                groups.size(), copies, copies == 1 ? "y" : "ies", wasted / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Folds every duplicate in the group into its canonical (oldest) song.
+     * Runs on the DB writer lane; completes with false if the merge rolled back.
+     */
+    public static CompletableFuture<Boolean> mergeDuplicates(DuplicateGroup group) {
+        return CompletableFuture.supplyAsync(() -> {
+            boolean ok = merge(group);
+            if (ok) SongFolderImporter.notifyLibraryChanged();
+            return ok;
+        }, DbExecutor.writer());
+    }
+
+    /** Merges every duplicate group currently in the index. Completes with the number merged. */
+    public static CompletableFuture<Integer> mergeAllDuplicates() {
+        return CompletableFuture.supplyAsync(() -> {
+            int merged = 0;
+            for (DuplicateGroup group : findDuplicates()) {
+                if (merge(group)) merged++;
+            }
+            if (merged > 0) SongFolderImporter.notifyLibraryChanged();
+            return merged;
+        }, DbExecutor.writer());
+    }
+
+    private static boolean merge(DuplicateGroup group) {
+        List<Integer> ids = group.duplicates().stream().map(Song::getSongId).toList();
+        int canonicalId = group.canonical().getSongId();
+        boolean ok = new SongDAO().mergeSongs(canonicalId, ids);
+        if (ok) System.out.println("🧬 Merged " + ids.size() + " duplicate(s) into song " + canonicalId);
+        return ok;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.new_better.utils;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Portable DB strategy preserved: DB file sits next to the .exe in user.dir.
+ * Copy the folder to any PC → it works. No registry, no AppData, no admin rights needed.
+ *
+ * Actual bugs fixed:
+ *   1. Exception is now RETHROWN so MainApp's Task.setOnFailed() shows the Alert.
+ *      Original swallowed it — app continued running with no database.
+ *   2. SQL injection in genre seed loop → replaced with PreparedStatement.
+ *   3. PRAGMA foreign_keys moved before DDL (correct SQLite ordering).
+ *   4. PRAGMA journal_mode = WAL added — prevents DB lock errors when import
+ *      thread and player thread open connections simultaneously.
+ *   5. Broken user_id=1 seed block removed — system playlists are created in
+ *      SignupController after insertUser() returns the actual user ID.
+ */
+public class DatabaseInitializer {
+
+    // ✅ PORTABLE: DB lives next to the EXE. Copy folder = works anywhere.
+    private static final String DB_PATH =
+            System.getProperty("user.dir") + File.separator + "neonpulse.db";
+
+    private static final String DB_URL = "jdbc:sqlite:" + DB_PATH;
+
+    public static void initialize() {
+        System.out.println("🚀 Initializing Database at: " + DB_PATH);
+
+        try (Connection conn = DriverManager.getConnection(DB_URL);
+             Statement stmt = conn.createStatement()) {
+
+            // ✅ FIX 3 & 4: Configure connection before any DDL
+            // auto_vacuum must be set before the first table exists; older DBs are
+            // converted once by DatabaseMaintenance while the app is idle.
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA foreign_keys = ON");
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS users (
+                    user_id         INTEGER PRIMARY KEY AUTOINCREMENT,
+                    username        TEXT UNIQUE NOT NULL,
+                    email           TEXT UNIQUE NOT NULL,
+                    password        TEXT NOT NULL,
+                    profile_picture BLOB,
+                    is_verified     INTEGER DEFAULT 1,
+                    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS songs (
+                    song_id     INTEGER PRIMARY KEY AUTOINCREMENT,
+                    title       TEXT NOT NULL,
+                    genre       TEXT,
+                    file_path   TEXT UNIQUE NOT NULL,
+                    duration    REAL,
+                    uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS playlists (
+                    playlist_id   INTEGER PRIMARY KEY AUTOINCREMENT,
+                    user_id       INTEGER NOT NULL,
+                    playlist_name TEXT NOT NULL,
+                    is_system     INTEGER DEFAULT 0,
+                    created_at    TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS playlist_songs (
+                    playlist_id INTEGER NOT NULL,
+                    song_id     INTEGER NOT NULL,
+                    added_at    TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    PRIMARY KEY (playlist_id, song_id),
+                    FOREIGN KEY (playlist_id) REFERENCES playlists(playlist_id) ON DELETE CASCADE,
+                    FOREIGN KEY (song_id)     REFERENCES songs(song_id)         ON DELETE CASCADE
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS liked_songs (
+                    user_id  INTEGER NOT NULL,
+                    song_id  INTEGER NOT NULL,
+                    liked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    PRIMARY KEY (user_id, song_id),
+                    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+                    FOREIGN KEY (song_id) REFERENCES songs(song_id) ON DELETE CASCADE
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS recently_played (
+                    user_id   INTEGER NOT NULL,
+                    song_id   INTEGER NOT NULL,
+                    played_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    PRIMARY KEY (user_id, song_id, played_at),
+                    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+                    FOREIGN KEY (song_id) REFERENCES songs(song_id) ON DELETE CASCADE
+                )
+            """);
+
+            // Lifetime plays per user/song (recently_played only keeps the last 100)
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS play_counts (
+                    user_id    INTEGER NOT NULL,
+                    song_id    INTEGER NOT NULL,
+                    play_count INTEGER NOT NULL DEFAULT 0,
+                    PRIMARY KEY (user_id, song_id),
+                    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+                    FOREIGN KEY (song_id) REFERENCES songs(song_id) ON DELETE CASCADE
+                )
+            """);
+
+            // Normalized genre dimension: one row per folder under the songs directory
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS genres (
+                    genre_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    folder   TEXT UNIQUE NOT NULL,
+                    name     TEXT NOT NULL
+                )
+            """);
+            try (PreparedStatement seed = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO genres (folder, name) VALUES (?, ?)")) {
+                for (String folder : GenreRegistry.DEFAULT_FOLDERS) {
+                    seed.setString(1, folder);
+                    seed.setString(2, GenreRegistry.displayName(folder));
+                    seed.executeUpdate();
+                }
+            }
+
+            // Columns added after the first release, migrated in place for existing DBs.
+            addColumnIfMissing(stmt, "songs",     "genre_id", "INTEGER REFERENCES genres(genre_id)");
+            addColumnIfMissing(stmt, "playlists", "genre_id", "INTEGER REFERENCES genres(genre_id)");
+            // Backfill from the legacy free-text genre / system playlist names
+            stmt.execute("INSERT OR IGNORE INTO genres (folder, name) " +
+                    "SELECT DISTINCT lower(genre), genre FROM songs WHERE genre IS NOT NULL AND genre <> ''");
+            stmt.execute("UPDATE songs SET genre_id = " +
+                    "(SELECT g.genre_id FROM genres g WHERE g.folder = lower(songs.genre)) WHERE genre_id IS NULL");
+            stmt.execute("UPDATE playlists SET genre_id = " +
+                    "(SELECT g.genre_id FROM genres g WHERE g.folder = lower(playlists.playlist_name)) " +
+                    "WHERE is_system = 1 AND genre_id IS NULL");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_songs_genre_id ON songs(genre_id)");
+
+            // Content hashes (see ContentIndexer):
+            addColumnIfMissing(stmt, "songs", "file_size",    "INTEGER");
+            addColumnIfMissing(stmt, "songs", "sample_hash",  "INTEGER");
+            addColumnIfMissing(stmt, "songs", "content_hash", "TEXT");
+            // 0 = file missing on disk; kept for likes/playlists, hidden from views
+            addColumnIfMissing(stmt, "songs", "available",    "INTEGER NOT NULL DEFAULT 1");
+            // Per-track loudness correction (see LoudnessAnalyzer). gain_source NULL =
+            // not looked at yet; 'replaygain' / 'itunnorm' / 'analysis' / 'none'.
+            addColumnIfMissing(stmt, "songs", "gain_db",      "REAL");
+            addColumnIfMissing(stmt, "songs", "gain_source",  "TEXT");
+            // Container/codec pre-flight (see MediaValidator). playable NULL = not
+            // checked yet; 0 = skipped by the player, playable_reason says why.
+            addColumnIfMissing(stmt, "songs", "playable",        "INTEGER");
+            addColumnIfMissing(stmt, "songs", "playable_reason", "TEXT");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_songs_sample_hash ON songs(file_size, sample_hash)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_songs_content_hash ON songs(content_hash)");
+
+            // Normalized title (see SearchKeys) for accent/case-insensitive LIKE;
+            // written on insert, backfilled here for rows from older versions.
+            addColumnIfMissing(stmt, "songs", "search_key", "TEXT");
+            backfillSearchKeys(conn);
+
+            // Bumped by triggers on every songs change; CatalogSnapshot compares it
+            // against the version stamped into the on-disk snapshot.
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS catalog_version (
+                    id      INTEGER PRIMARY KEY CHECK (id = 1),
+                    version INTEGER NOT NULL
+                )
+            """);
+            stmt.execute("INSERT OR IGNORE INTO catalog_version (id, version) VALUES (1, 1)");
+            // UPDATE only fires for columns the catalog snapshot actually stores,
+            // so background hashing doesn't invalidate it.
+            String[][] catalogTriggers = {
+                    {"insert", "INSERT"},
+                    {"update", "UPDATE OF title, genre, genre_id, file_path, duration, uploaded_at, available"},
+                    {"delete", "DELETE"}
+            };
+            for (String[] trigger : catalogTriggers) {
+                stmt.execute("DROP TRIGGER IF EXISTS songs_catalog_" + trigger[0]);
+                stmt.execute("CREATE TRIGGER songs_catalog_" + trigger[0]
+                        + " AFTER " + trigger[1] + " ON songs"
+                        + " BEGIN UPDATE catalog_version SET version = version + 1 WHERE id = 1; END");
+            }
+
+            // Files merged into another song as byte-identical copies. Import and
+            // the folder watcher treat these paths as already known.
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS song_aliases (
+                    file_path TEXT PRIMARY KEY,
+                    song_id   INTEGER NOT NULL,
+                    FOREIGN KEY (song_id) REFERENCES songs(song_id) ON DELETE CASCADE
+                )
+            """);
+
+            // Last run of each idle-time maintenance task (see DatabaseMaintenance)
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS db_maintenance (
+                    task        TEXT PRIMARY KEY,
+                    last_run_at INTEGER NOT NULL,
+                    duration_ms INTEGER,
+                    outcome     TEXT,
+                    detail      TEXT
+                )
+            """);
+
+            // ✅ FIX 5: Removed broken user_id=1 seed block.
+            // System playlists are now created in SignupController with the real user ID.
+
+            System.out.println("✅ Database initialized successfully.");
+
+        } catch (Exception e) {
+            System.err.println("❌ Database initialization failed: " + e.getMessage());
+            e.printStackTrace();
+            // ✅ FIX 1: RETHROW so MainApp's Task.setOnFailed() triggers the Alert dialog.
+            // Without this the app silently continues with no DB and crashes later.
+            throw new RuntimeException("Database initialization failed", e);
+        }
+    }
+
+    private static void backfillSearchKeys(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        int count = 0;
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT song_id, title FROM songs WHERE search_key IS NULL");
+             PreparedStatement update = conn.prepareStatement("UPDATE songs SET search_key = ? WHERE song_id = ?")) {
+            while (rs.next()) {
+                update.setString(1, SearchKeys.normalize(rs.getString("title")));
+                update.setInt(2, rs.getInt("song_id"));
+                update.addBatch();
+                count++;
+            }
+            update.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        if (count > 0) System.out.println("🔤 Search keys backfilled for " + count + " songs");
+    }
+
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String type)
+            throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return;
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+    }
+
+    public static String getDbUrl()  { return DB_URL;  }
+    public static String getDbPath() { return DB_PATH; }
+}
\ No newline at end of file
@@ -0,0 +1,351 @@
+package com.example.new_better.utils;
+
+import org.sqlite.ProgressHandler;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Idle-time housekeeping for neonpulse.db.
+ *
+ * WAL mode is enabled in DatabaseInitializer, but SQLite only auto-checkpoints
+ * opportunistically, never re-analyzes, and never gives back free pages. After
+ * big imports and the constant churn in recently_played the WAL file and the
+ * freelist just keep growing. This scheduler fixes that without ever getting in
+ * the way of the user:
+ *
+ *   - It only runs when NOTHING is happening: no user input for IDLE_AFTER_MS,
+ *     no import running, and (for everything except the cheap checkpoint)
+ *     nothing playing.
+ *   - Every step has a hard time budget enforced through SQLite's progress
+ *     handler. The handler also aborts the step the moment the user comes back,
+ *     so a click never waits behind a VACUUM.
+ *   - It runs on the DbExecutor writer lane, so it never races our own writes.
+ *   - Last-run times are stored in db_maintenance, so cadences survive restarts,
+ *     and every run prints a per-step report with timings.
+ */
+public final class DatabaseMaintenance {
+
+    private static final long CHECK_INTERVAL_SEC = 60;
+    private static final long IDLE_AFTER_MS      = TimeUnit.MINUTES.toMillis(2);
+    private static final int  VM_OPS_PER_CHECK   = 1_000;   // progress-handler granularity
+    private static final int  VACUUM_CHUNK_PAGES = 256;
+    private static final long MAX_CONVERT_BYTES  = 64L * 1024 * 1024; // one-off full VACUUM ceiling
+    private static final long CONVERT_BUDGET_MS  = 10_000;            // ...and its own time budget
+    private static final int  SQLITE_INTERRUPT   = 9;
+
+    /** What we do, how often, how long it may take, and whether playback may continue meanwhile. */
+    public enum Task {
+        CHECKPOINT        (TimeUnit.MINUTES.toMillis(30), 500,   true),
+        OPTIMIZE          (TimeUnit.HOURS.toMillis(6),    2_000, false),
+        INCREMENTAL_VACUUM(TimeUnit.HOURS.toMillis(6),    1_500, false),
+        INTEGRITY_CHECK   (TimeUnit.HOURS.toMillis(24),   5_000, false);
+
+        final long intervalMs;
+        final long budgetMs;
+        final boolean allowedDuringPlayback;
+
+        Task(long intervalMs, long budgetMs, boolean allowedDuringPlayback) {
+            this.intervalMs = intervalMs;
+            this.budgetMs = budgetMs;
+            this.allowedDuringPlayback = allowedDuringPlayback;
+        }
+    }
+
+    public enum Outcome { OK, PARTIAL, FAILED }
+
+    private record Done(Outcome outcome, String detail) {
+        static Done ok(String detail) { return new Done(Outcome.OK, detail); }
+    }
+
+    public record StepResult(Task task, Outcome outcome, long durationMs, String detail) {
+        @Override
+        public String toString() {
+            return String.format("%-18s %-7s %5d ms  %s", task, outcome, durationMs, detail);
+        }
+    }
+
+    private static volatile long lastUserActivity = System.currentTimeMillis();
+    private static volatile BooleanSupplier playbackActive = () -> false;
+    private static volatile List<StepResult> lastReport = List.of();
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static ScheduledExecutorService scheduler;
+    private static ScheduledFuture<?> tick;
+
+    private DatabaseMaintenance() {}
+
+    // ─── Lifecycle ───────────────────────────────────────────────────────────
+
+    public static synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-maintenance");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        tick = scheduler.scheduleWithFixedDelay(DatabaseMaintenance::onTick,
+                CHECK_INTERVAL_SEC, CHECK_INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler == null) return;
+        tick.cancel(false);
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    /** Lets the UI report playback, so heavy tasks wait for a pause. Nothing is playing headless. */
+    public static void setPlaybackActive(BooleanSupplier isPlaying) {
+        playbackActive = isPlaying;
+    }
+
+    /** Called from a window-level event filter on every mouse/key event. Must stay trivially cheap. */
+    public static void noteUserActivity() {
+        lastUserActivity = System.currentTimeMillis();
+    }
+
+    /** Steps performed by the most recent maintenance run (empty if none yet). */
+    public static List<StepResult> getLastReport() {
+        return lastReport;
+    }
+
+    // ─── Scheduling ──────────────────────────────────────────────────────────
+
+    private static boolean userIdle() {
+        return System.currentTimeMillis() - lastUserActivity >= IDLE_AFTER_MS
+                && !SongFolderImporter.isImportRunning();
+    }
+
+    private static boolean idleFor(Task task) {
+        return userIdle() && (task.allowedDuringPlayback || !playbackActive.getAsBoolean());
+    }
+
+    private static void onTick() {
+        if (!userIdle() || !running.compareAndSet(false, true)) return;
+        try {
+            DbExecutor.writer().execute(() -> {
+                try {
+                    runDueTasks();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (Exception e) {
+            running.set(false); // writer already shut down
+        }
+    }
+
+    private static void runDueTasks() {
+        List<StepResult> report = new ArrayList<>();
+
+        try (Connection conn = DriverManager.getConnection(DatabaseInitializer.getDbUrl());
+             Statement stmt = conn.createStatement()) {
+
+            // Never block on someone else's lock for long — we can always try again next tick
+            stmt.execute("PRAGMA busy_timeout = 100");
+
+            Map<Task, Long> lastRuns = loadLastRuns(conn);
+            long now = System.currentTimeMillis();
+
+            for (Task task : Task.values()) {
+                if (now - lastRuns.getOrDefault(task, 0L) < task.intervalMs) continue;
+                if (!idleFor(task)) continue;
+
+                StepResult result = runStep(conn, task);
+                report.add(result);
+                recordRun(conn, result);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ DB maintenance could not start: " + e.getMessage());
+            return;
+        }
+
+        if (!report.isEmpty()) {
+            lastReport = List.copyOf(report);
+            System.out.println("🧹 DB maintenance report:");
+            for (StepResult r : report) System.out.println("   " + r);
+        }
+    }
+
+    private static StepResult runStep(Connection conn, Task task) {
+        long start = System.nanoTime();
+        // One slot so a step can widen its own budget (the one-off auto_vacuum conversion)
+        long[] deadline = {start + TimeUnit.MILLISECONDS.toNanos(task.budgetMs)};
+        Outcome outcome;
+        String detail;
+
+        try {
+            // Abort the running statement once over budget or as soon as the user is back
+            ProgressHandler.setHandler(conn, VM_OPS_PER_CHECK, new ProgressHandler() {
+                @Override
+                protected int progress() {
+                    return (System.nanoTime() > deadline[0] || !idleFor(task)) ? 1 : 0;
+                }
+            });
+
+            Done done = switch (task) {
+                case CHECKPOINT         -> checkpoint(conn);
+                case OPTIMIZE           -> optimize(conn);
+                case INCREMENTAL_VACUUM -> incrementalVacuum(conn, deadline);
+                case INTEGRITY_CHECK    -> integrityCheck(conn);
+            };
+            outcome = done.outcome();
+            detail = done.detail();
+
+        } catch (SQLException e) {
+            boolean interrupted = e.getErrorCode() == SQLITE_INTERRUPT
+                    || (e.getMessage() != null && e.getMessage().contains("interrupt"));
+            outcome = interrupted ? Outcome.PARTIAL : Outcome.FAILED;
+            detail = interrupted ? "stopped (budget exhausted or user active)" : e.getMessage();
+        } finally {
+            try { ProgressHandler.clearHandler(conn); } catch (SQLException ignored) {}
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new StepResult(task, outcome, elapsedMs, detail);
+    }
+
+    // ─── Steps ───────────────────────────────────────────────────────────────
+
+    private static Done checkpoint(Connection conn) throws SQLException {
+        int[] passive = walCheckpoint(conn, "PASSIVE");
+        String detail = "passive: " + passive[2] + "/" + passive[1] + " frames";
+
+        // Everything copied back and nobody in the way → shrink the -wal file to zero
+        if (passive[0] == 0 && passive[1] == passive[2]) {
+            int[] truncate = walCheckpoint(conn, "TRUNCATE");
+            detail += truncate[0] == 0 ? ", wal truncated" : ", truncate skipped (busy)";
+        }
+        return Done.ok(detail);
+    }
+
+    private static int[] walCheckpoint(Connection conn, String mode) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            return rs.next() ? new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3)} : new int[]{1, 0, 0};
+        }
+    }
+
+    private static Done optimize(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            boolean hasStats;
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'")) {
+                hasStats = rs.next();
+            }
+            // analysis_limit keeps ANALYZE to a sample of each index instead of a full scan
+            stmt.execute("PRAGMA analysis_limit = 400");
+            if (!hasStats) {
+                stmt.execute("ANALYZE");
+                return Done.ok("initial ANALYZE");
+            }
+            stmt.execute("PRAGMA optimize");
+            return Done.ok("PRAGMA optimize");
+        }
+    }
+
+    private static Done incrementalVacuum(Connection conn, long[] deadline) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            int mode = queryInt(stmt, "PRAGMA auto_vacuum");
+            int freeBefore = queryInt(stmt, "PRAGMA freelist_count");
+            if (freeBefore == 0) return Done.ok("no free pages");
+
+            if (mode != 2) {
+                // Pre-existing DB created with auto_vacuum=NONE: converting needs one full VACUUM.
+                long bytes = (long) queryInt(stmt, "PRAGMA page_count") * queryInt(stmt, "PRAGMA page_size");
+                if (bytes > MAX_CONVERT_BYTES) return Done.ok("auto_vacuum off, db too large to convert while idle");
+                // ✅ FIX: the full VACUUM gets its own budget, and an interrupted one is
+                // recorded as FAILED (not PARTIAL) so it waits a full interval instead of
+                // being retried — and interrupted again — on every idle tick.
+                deadline[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONVERT_BUDGET_MS);
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                try {
+                    stmt.execute("VACUUM");
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != SQLITE_INTERRUPT
+                            && (e.getMessage() == null || !e.getMessage().contains("interrupt"))) throw e;
+                    return new Done(Outcome.FAILED, "auto_vacuum conversion interrupted, retrying next interval");
+                }
+                return Done.ok("converted to incremental auto_vacuum, reclaimed " + freeBefore + " pages");
+            }
+
+            // Each chunk is its own small transaction, so stopping midway loses nothing
+            while (System.nanoTime() < deadline[0] && queryInt(stmt, "PRAGMA freelist_count") > 0) {
+                stmt.execute("PRAGMA incremental_vacuum(" + VACUUM_CHUNK_PAGES + ")");
+            }
+            int freeAfter = queryInt(stmt, "PRAGMA freelist_count");
+            String detail = "reclaimed " + (freeBefore - freeAfter) + " pages, " + freeAfter + " left";
+            return new Done(freeAfter > 0 ? Outcome.PARTIAL : Outcome.OK, detail);
+        }
+    }
+
+    private static Done integrityCheck(Connection conn) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA quick_check(5)")) {
+            while (rs.next()) problems.add(rs.getString(1));
+        }
+        if (problems.size() == 1 && "ok".equalsIgnoreCase(problems.get(0))) return Done.ok("ok");
+
+        System.err.println("❌ Database integrity problems found: " + problems);
+        throw new SQLException("integrity check failed: " + String.join("; ", problems));
+    }
+
+    // ─── Bookkeeping ─────────────────────────────────────────────────────────
+
+    private static Map<Task, Long> loadLastRuns(Connection conn) throws SQLException {
+        Map<Task, Long> lastRuns = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT task, last_run_at FROM db_maintenance")) {
+            while (rs.next()) {
+                try {
+                    lastRuns.put(Task.valueOf(rs.getString("task")), rs.getLong("last_run_at"));
+                } catch (IllegalArgumentException ignored) {
+                    // Task from an older version — ignore
+                }
+            }
+        }
+        return lastRuns;
+    }
+
+    private static void recordRun(Connection conn, StepResult result) {
+        // An interrupted step is retried on the next idle tick rather than waiting a full interval
+        if (result.outcome() == Outcome.PARTIAL) return;
+
+        String sql = "INSERT OR REPLACE INTO db_maintenance (task, last_run_at, duration_ms, outcome, detail) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, result.task().name());
+            pstmt.setLong(2, System.currentTimeMillis());
+            pstmt.setLong(3, result.durationMs());
+            pstmt.setString(4, result.outcome().name());
+            pstmt.setString(5, result.detail());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("⚠️ Could not record maintenance run: " + e.getMessage());
+        }
+    }
+
+    private static int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.new_better.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated thread lanes for ALL JDBC work, so nothing touches SQLite on the
+ * JavaFX Application Thread.
+ *
+ *   - WRITER lane: a single thread. SQLite only ever allows one writer, so
+ *     funnelling every INSERT/UPDATE/DELETE through one FIFO thread means our
+ *     own threads never fight each other for the write lock (no SQLITE_BUSY)
+ *     and writes are applied in exactly the order the user performed them.
+ *   - READER lane: a small fixed pool. WAL mode lets readers run in parallel
+ *     with each other and with the writer.
+ *   - FX: delivers results back onto the UI thread. The UI module installs
+ *     Platform::runLater at startup (setUiThread); headless (imports,
+ *     benchmarks) callbacks simply run on the thread that completed the work.
+ *
+ * Thread counts are bounded; excess work queues up instead of spawning threads.
+ */
+public final class DbExecutor {
+
+    private static final int READER_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final ExecutorService READERS =
+            Executors.newFixedThreadPool(READER_THREADS, daemonFactory("db-reader"));
+
+    private static final ExecutorService WRITER =
+            Executors.newSingleThreadExecutor(daemonFactory("db-writer"));
+
+    private static volatile Executor uiThread = Runnable::run;
+    private static final Executor FX = task -> uiThread.execute(task);
+
+    private DbExecutor() {}
+
+    public static Executor readers() { return READERS; }
+    public static Executor writer()  { return WRITER;  }
+    public static Executor fx()      { return FX;      }
+
+    /** Where fx() callbacks run; set once by the UI before anything is loaded. */
+    public static void setUiThread(Executor executor) {
+        uiThread = executor;
+    }
+
+    /**
+     * Stops accepting new work and gives queued writes a short window to land
+     * on disk. Called from MainApp.stop() so a like/unlike clicked right before
+     * closing the window is not lost.
+     */
+    public static void shutdown() {
+        READERS.shutdownNow();
+        WRITER.shutdown();
+        try {
+            if (!WRITER.awaitTermination(3, TimeUnit.SECONDS)) {
+                System.err.println("⚠️ DB writer did not drain in time, dropping pending writes.");
+                WRITER.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            WRITER.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread t = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
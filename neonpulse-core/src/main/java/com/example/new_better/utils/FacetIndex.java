@@ -0,0 +1,265 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory facet engine over the catalog. Every song gets an ordinal (its
+ * position in the catalog list) and every facet is a bitmap over those
+ * ordinals, so "liked AND pop AND NOT in playlist X" is a couple of word-wise
+ * AND/ANDNOTs instead of a SQL LIKE or a stream per keystroke.
+ *
+ *   - Catalog facets (genre, duration bucket) are built once per catalog.
+ *   - User facets (liked, recently played, in-playlist) are built by the view
+ *     from id sets via bitmapOf() — cheap, they are small.
+ *   - Text matching runs over search keys normalized once at build time
+ *     (SearchKeys: accents, case, punctuation), and is incremental: typing one more character only re-checks songs that
+ *     matched the previous query.
+ *
+ * Bitmaps are java.util.BitSet over dense ordinals: 100k songs cost 12.5 KB per
+ * facet, so run-length containers wouldn't pay for their complexity here.
+ *
+ * Instances are immutable apart from the text cache; rebuild() swaps in a new
+ * one whenever the catalog view reloads.
+ */
+public final class FacetIndex {
+
+    public enum Mode { OFF, INCLUDE, EXCLUDE }
+
+    public enum DurationBucket {
+        SHORT("< 2 min", 120),
+        MEDIUM("2–4 min", 240),
+        LONG("4–6 min", 360),
+        EPIC("6+ min", Double.MAX_VALUE);
+
+        public final String label;
+        final double to; // exclusive upper bound, seconds
+
+        DurationBucket(String label, double to) {
+            this.label = label;
+            this.to = to;
+        }
+
+        static DurationBucket of(double seconds) {
+            for (DurationBucket bucket : values()) {
+                if (seconds < bucket.to) return bucket;
+            }
+            return EPIC;
+        }
+    }
+
+    /**
+     * One filter chip. Facets in the same group are OR'd when included
+     * (Pop or Sad), groups are AND'd, and an excluded facet is always ANDNOT'd.
+     */
+    public record Facet(String group, String key, String label, BitSet bits) {}
+
+    /** Matching songs plus, for every facet, how many songs it would match if toggled on now. */
+    public record Result(BitSet matches, Map<Facet, Integer> counts) {}
+
+    private static volatile FacetIndex current = new FacetIndex(List.of());
+
+    private final List<Song> songs;
+    private final int[] ordinalById;
+    private final String[] searchKeys;
+    private final BitSet all;
+    private final Map<Integer, BitSet> byGenre = new LinkedHashMap<>();
+    private final Map<Integer, String> genreNames = new HashMap<>();
+    private final BitSet[] byDuration = new BitSet[DurationBucket.values().length];
+
+    private String lastQuery = "";
+    private BitSet lastMatches;
+
+    private FacetIndex(List<Song> catalog) {
+        songs = List.copyOf(catalog);
+        int n = songs.size();
+
+        int maxId = 0;
+        for (Song song : songs) maxId = Math.max(maxId, song.getSongId());
+        ordinalById = new int[maxId + 1];
+        Arrays.fill(ordinalById, -1);
+
+        searchKeys = new String[n];
+        all = new BitSet(n);
+        all.set(0, n);
+        for (int i = 0; i < byDuration.length; i++) byDuration[i] = new BitSet(n);
+
+        Map<String, String> genreKeys = new HashMap<>(); // genres repeat a lot
+        for (int i = 0; i < n; i++) {
+            Song song = songs.get(i);
+            ordinalById[song.getSongId()] = i;
+            String genre = song.getGenre() == null ? "" : song.getGenre();
+            searchKeys[i] = SearchKeys.normalize(song.getTitle()) + '\u0000'
+                    + genreKeys.computeIfAbsent(genre, SearchKeys::normalize);
+            byGenre.computeIfAbsent(song.getGenreId(), id -> new BitSet(n)).set(i);
+            genreNames.putIfAbsent(song.getGenreId(), song.getGenre());
+            byDuration[DurationBucket.of(song.getDuration()).ordinal()].set(i);
+        }
+        lastMatches = all;
+    }
+
+    /** The index for the catalog currently on screen (empty until the library loads). */
+    public static FacetIndex current() {
+        return current;
+    }
+
+    /** Builds and publishes an index for this catalog. Call off the FX thread for big libraries. */
+    public static FacetIndex rebuild(List<Song> catalog) {
+        long start = System.nanoTime();
+        FacetIndex index = new FacetIndex(catalog);
+        current = index;
+        PerfStats.log("🔎 Facet index: %d songs, %d genres in %.1f ms%n",
+                index.size(), index.byGenre.size(), PerfStats.record("facet index", start));
+        return index;
+    }
+
+    private static String searchKey(Song song) {
+        return SearchKeys.normalize(song.getTitle()) + '\u0000' + SearchKeys.normalize(song.getGenre());
+    }
+
+    public int size() {
+        return songs.size();
+    }
+
+    /** Ordinal of a song in this index, or -1 if it isn't part of the catalog. */
+    public int ordinalOf(Song song) {
+        int id = song.getSongId();
+        return id > 0 && id < ordinalById.length ? ordinalById[id] : -1;
+    }
+
+    // ─── Facets ──────────────────────────────────────────────────────────────
+
+    public List<Facet> genreFacets() {
+        List<Facet> facets = new ArrayList<>();
+        for (Map.Entry<Integer, BitSet> entry : byGenre.entrySet()) {
+            String name = genreNames.get(entry.getKey());
+            facets.add(new Facet("genre", "genre:" + entry.getKey(),
+                    name == null ? "Unknown" : name, entry.getValue()));
+        }
+        facets.sort((a, b) -> a.label().compareToIgnoreCase(b.label()));
+        return facets;
+    }
+
+    public List<Facet> durationFacets() {
+        List<Facet> facets = new ArrayList<>();
+        for (DurationBucket bucket : DurationBucket.values()) {
+            facets.add(new Facet("duration", "duration:" + bucket.name(), bucket.label,
+                    byDuration[bucket.ordinal()]));
+        }
+        return facets;
+    }
+
+    /** Bitmap of the given song ids (ids outside the catalog are ignored). */
+    public BitSet bitmapOf(Collection<Integer> songIds) {
+        BitSet bits = new BitSet(size());
+        for (int id : songIds) {
+            if (id > 0 && id < ordinalById.length && ordinalById[id] >= 0) bits.set(ordinalById[id]);
+        }
+        return bits;
+    }
+
+    public BitSet bitmapOfSongs(Collection<Song> songList) {
+        BitSet bits = new BitSet(size());
+        for (Song song : songList) {
+            int ordinal = ordinalOf(song);
+            if (ordinal >= 0) bits.set(ordinal);
+        }
+        return bits;
+    }
+
+    // ─── Text ────────────────────────────────────────────────────────────────
+
+    /** Songs whose title or genre contains the query (accent/case-insensitive). Do not modify the result. */
+    public synchronized BitSet matchText(String query) {
+        String q = SearchKeys.normalize(query);
+        if (q.isEmpty()) return all;
+
+        // Narrowing the previous query: only its matches can still match
+        BitSet candidates = !lastQuery.isEmpty() && q.contains(lastQuery) ? lastMatches : all;
+        BitSet matches = new BitSet(size());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (searchKeys[i].contains(q)) matches.set(i);
+        }
+        lastQuery = q;
+        lastMatches = matches;
+        return matches;
+    }
+
+    /** The subset of the given list (any view's songs) matching the query, in list order. */
+    public List<Song> filterText(List<Song> list, String query) {
+        if (query == null || query.isBlank()) return new ArrayList<>(list);
+        BitSet matches = matchText(query);
+        String q = SearchKeys.normalize(query);
+
+        List<Song> result = new ArrayList<>();
+        for (Song song : list) {
+            int ordinal = ordinalOf(song);
+            // Songs outside the catalog (index not built yet) fall back to a direct check
+            if (ordinal >= 0 ? matches.get(ordinal) : searchKey(song).contains(q)) result.add(song);
+        }
+        return result;
+    }
+
+    // ─── Evaluation ──────────────────────────────────────────────────────────
+
+    /**
+     * Applies the text query and every facet's mode. Counts are the usual facet
+     * counts: for each facet, the matches of everything else selected (text,
+     * excludes, other groups) AND that facet — so they move as the user types.
+     */
+    public Result evaluate(String query, List<Facet> facets, Map<String, Mode> modes) {
+        return evaluate(matchText(query), facets, modes);
+    }
+
+    /** Same, with the text matches already computed (e.g. widened by FuzzySearchIndex hits). */
+    public Result evaluate(BitSet textMatches, List<Facet> facets, Map<String, Mode> modes) {
+        BitSet base = (BitSet) textMatches.clone();
+
+        Map<String, BitSet> groupMasks = new LinkedHashMap<>();
+        for (Facet facet : facets) {
+            Mode mode = modes.getOrDefault(facet.key(), Mode.OFF);
+            if (mode == Mode.EXCLUDE) {
+                base.andNot(facet.bits());
+            } else if (mode == Mode.INCLUDE) {
+                groupMasks.computeIfAbsent(facet.group(), g -> new BitSet(size())).or(facet.bits());
+            }
+        }
+
+        BitSet matches = (BitSet) base.clone();
+        for (BitSet mask : groupMasks.values()) matches.and(mask);
+
+        // Per group: everything selected except that group's own includes
+        Map<String, BitSet> othersByGroup = new HashMap<>();
+        Map<Facet, Integer> counts = new LinkedHashMap<>();
+        for (Facet facet : facets) {
+            BitSet others = othersByGroup.computeIfAbsent(facet.group(), group -> {
+                BitSet bits = (BitSet) base.clone();
+                for (Map.Entry<String, BitSet> entry : groupMasks.entrySet()) {
+                    if (!entry.getKey().equals(group)) bits.and(entry.getValue());
+                }
+                return bits;
+            });
+            BitSet hit = (BitSet) others.clone();
+            hit.and(facet.bits());
+            counts.put(facet, hit.cardinality());
+        }
+        return new Result(matches, counts);
+    }
+
+    /** Songs for a result bitmap, in catalog order. */
+    public List<Song> songsOf(BitSet bits) {
+        List<Song> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(songs.get(i));
+        }
+        return result;
+    }
+}
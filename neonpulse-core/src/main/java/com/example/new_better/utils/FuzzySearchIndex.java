@@ -0,0 +1,295 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Typo-tolerant search over titles and genres: "beetoven" finds "Beethoven".
+ *
+ *   1. CANDIDATES — every word is split into padded trigrams ("  b", " be",
+ *      "bee", …) kept in posting lists. A query counts shared trigrams per
+ *      song; one typo breaks at most three, so songs within the allowed edit
+ *      budget always pass the threshold. The padding lets one- and two-letter
+ *      queries match word starts.
+ *   2. VERIFY — each candidate is scored by the edit distance of the query to
+ *      the closest substring of its text (Sellers' algorithm), so long titles
+ *      aren't penalised.
+ *   3. RANK — distance first, then word-prefix and title-prefix boosts, then
+ *      trigram overlap, then shorter titles.
+ *
+ * Memory is bounded: trigrams are hashed into a fixed 64k-bucket table of int
+ * posting arrays (collisions only add candidates, verification removes them),
+ * and at most MAX_KEY_CHARS of each song's text are indexed — roughly 4 bytes ×
+ * 20 trigrams per song.
+ *
+ * Kept up to date incrementally: the importer/watcher add and remove single
+ * songs, and sync() re-indexes only songs whose pooled instance changed.
+ */
+public final class FuzzySearchIndex {
+
+    private static final int BUCKETS        = 1 << 16;
+    private static final int MAX_KEY_CHARS  = 96;
+    private static final int MAX_CANDIDATES = 2_000;
+
+    private static FuzzySearchIndex instance;
+
+    private final int[][] postings = new int[BUCKETS][];
+    private final int[] postingSizes = new int[BUCKETS];
+    private Song[] songsById = new Song[1024];
+    private String[] keysById = new String[1024];
+    private int[] counts = new int[1024];   // scratch: shared trigrams per song during a query
+    private int size;
+
+    private FuzzySearchIndex() {}
+
+    public static synchronized FuzzySearchIndex getInstance() {
+        if (instance == null) instance = new FuzzySearchIndex();
+        return instance;
+    }
+
+    private static String keyOf(Song song) {
+        String key = SearchKeys.normalize(song.getTitle() + " " + (song.getGenre() == null ? "" : song.getGenre()));
+        return key.length() > MAX_KEY_CHARS ? key.substring(0, MAX_KEY_CHARS) : key;
+    }
+
+    /** Distinct hashed trigrams of every word, padded "  w" so prefixes match. */
+    private static int[] trigrams(String text) {
+        int[] out = new int[text.length() * 2 + 4];
+        int n = 0;
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) end = text.length();
+            char a = ' ', b = ' ';
+            for (int i = start; i <= end; i++) {
+                char c = i < end ? text.charAt(i) : ' ';
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = hash(a, b, c);
+                a = b;
+                b = c;
+            }
+            start = end + 1;
+        }
+        Arrays.sort(out, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || out[i] != out[unique - 1]) out[unique++] = out[i];
+        }
+        return Arrays.copyOf(out, unique);
+    }
+
+    /**
+     * Query trigrams: only those every text containing the query must also
+     * contain — interior trigrams of each word, or the word-start trigrams of
+     * words shorter than three characters.
+     */
+    private static int[] queryTrigrams(String q) {
+        int[] out = new int[q.length() * 2 + 4];
+        int n = 0;
+        for (String word : q.split(" ")) {
+            if (word.length() < 3) {
+                out[n++] = hash(' ', ' ', word.charAt(0));
+                if (word.length() == 2) out[n++] = hash(' ', word.charAt(0), word.charAt(1));
+                continue;
+            }
+            for (int i = 2; i < word.length(); i++) {
+                out[n++] = hash(word.charAt(i - 2), word.charAt(i - 1), word.charAt(i));
+            }
+        }
+        Arrays.sort(out, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || out[i] != out[unique - 1]) out[unique++] = out[i];
+        }
+        return Arrays.copyOf(out, unique);
+    }
+
+    private static int hash(char a, char b, char c) {
+        int h = (a * 0x9E3779B1) ^ (b * 0x85EBCA6B) ^ (c * 0xC2B2AE35);
+        h ^= h >>> 16;
+        return h & (BUCKETS - 1);
+    }
+
+    // ─── Updates ─────────────────────────────────────────────────────────────
+
+    /**
+     * Brings the index in line with a full catalog. Unchanged songs are the
+     * same pooled instance (SongPool), so only added/edited/removed ones are
+     * re-indexed; the first call builds everything.
+     */
+    public synchronized void sync(List<Song> catalog) {
+        long start = System.nanoTime();
+        int changed = 0;
+        int maxId = songsById.length - 1;
+        for (Song song : catalog) maxId = Math.max(maxId, song.getSongId());
+        boolean[] present = new boolean[maxId + 1];
+        for (Song song : catalog) {
+            int id = song.getSongId();
+            if (id <= 0) continue;
+            if (id >= songsById.length || songsById[id] != song) {
+                add(song);
+                changed++;
+            }
+            present[id] = true;
+        }
+        for (int id = 1; id < songsById.length; id++) {
+            if (songsById[id] != null && !present[id]) {
+                remove(id);
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            PerfStats.log("🔤 Fuzzy index: %d songs, %d (re)indexed in %.1f ms%n",
+                    size, changed, PerfStats.record("fuzzy index", start));
+        }
+    }
+
+    /** Indexes (or re-indexes) one song. */
+    public synchronized void add(Song song) {
+        int id = song.getSongId();
+        if (id <= 0) return;
+        if (id >= songsById.length) {
+            int capacity = Math.max(songsById.length * 2, id + 1);
+            songsById = Arrays.copyOf(songsById, capacity);
+            keysById = Arrays.copyOf(keysById, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        if (songsById[id] != null) remove(id);
+
+        String key = keyOf(song);
+        for (int t : trigrams(key)) insertPosting(t, id);
+        songsById[id] = song;
+        keysById[id] = key;
+        size++;
+    }
+
+    public synchronized void remove(int songId) {
+        if (songId <= 0 || songId >= songsById.length || songsById[songId] == null) return;
+        for (int t : trigrams(keysById[songId])) removePosting(t, songId);
+        songsById[songId] = null;
+        keysById[songId] = null;
+        size--;
+    }
+
+    // Posting lists are kept sorted by song id (new songs almost always append)
+    private void insertPosting(int bucket, int id) {
+        int[] list = postings[bucket];
+        int n = postingSizes[bucket];
+        if (list == null) {
+            list = postings[bucket] = new int[4];
+        } else if (n == list.length) {
+            list = postings[bucket] = Arrays.copyOf(list, n + (n >> 1) + 1);
+        }
+        int at = n > 0 && list[n - 1] < id ? n : Arrays.binarySearch(list, 0, n, id);
+        if (at >= 0 && at < n && list[at] == id) return;
+        if (at < 0) at = -at - 1;
+        System.arraycopy(list, at, list, at + 1, n - at);
+        list[at] = id;
+        postingSizes[bucket] = n + 1;
+    }
+
+    private void removePosting(int bucket, int id) {
+        int[] list = postings[bucket];
+        int n = postingSizes[bucket];
+        if (list == null) return;
+        int at = Arrays.binarySearch(list, 0, n, id);
+        if (at < 0) return;
+        System.arraycopy(list, at + 1, list, at, n - at - 1);
+        postingSizes[bucket] = n - 1;
+    }
+
+    // ─── Query ───────────────────────────────────────────────────────────────
+
+    private record Hit(Song song, int distance, int boost, int shared) {}
+
+    /** Best matches for the query, most relevant first (at most {@code limit}). */
+    public synchronized List<Song> search(String query, int limit) {
+        String q = SearchKeys.normalize(query);
+        if (q.isEmpty() || size == 0) return List.of();
+        if (q.length() > MAX_KEY_CHARS) q = q.substring(0, MAX_KEY_CHARS);
+
+        // Short queries must match (as a prefix); longer ones allow 1–2 typos
+        int maxEdits = q.length() <= 3 ? 0 : q.length() <= 6 ? 1 : 2;
+        int[] grams = queryTrigrams(q);
+        int threshold = Math.max(1, grams.length - 3 * maxEdits);
+
+        // 1. Count shared trigrams per song
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (int t : grams) {
+            int[] list = postings[t];
+            int n = postingSizes[t];
+            for (int i = 0; i < n; i++) {
+                int id = list[i];
+                if (counts[id]++ == 0) {
+                    if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+
+        // 2. Keep the best-overlapping candidates, bounded so huge lists can't blow the budget
+        int[] candidates = new int[Math.min(touchedCount, MAX_CANDIDATES)];
+        int candidateCount = 0;
+        for (int need = grams.length; need >= threshold && candidateCount < candidates.length; need--) {
+            for (int i = 0; i < touchedCount && candidateCount < candidates.length; i++) {
+                if (counts[touched[i]] == need) candidates[candidateCount++] = touched[i];
+            }
+        }
+
+        // 3. Verify by edit distance
+        List<Hit> hits = new ArrayList<>();
+        int[] prev = new int[q.length() + 1];
+        int[] cur = new int[q.length() + 1];
+        for (int c = 0; c < candidateCount; c++) {
+            int id = candidates[c];
+            String key = keysById[id];
+            int distance = substringDistance(q, key, maxEdits, prev, cur);
+            if (distance > maxEdits) continue;
+            int boost = key.startsWith(q) ? 2 : (key.contains(" " + q) ? 1 : 0);
+            hits.add(new Hit(songsById[id], distance, boost, counts[id]));
+        }
+        for (int i = 0; i < touchedCount; i++) counts[touched[i]] = 0;
+
+        hits.sort((a, b) -> {
+            if (a.distance != b.distance) return Integer.compare(a.distance, b.distance);
+            if (a.boost != b.boost) return Integer.compare(b.boost, a.boost);
+            if (a.shared != b.shared) return Integer.compare(b.shared, a.shared);
+            return Integer.compare(a.song.getTitle().length(), b.song.getTitle().length());
+        });
+
+        List<Song> result = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) result.add(hits.get(i).song);
+        return result;
+    }
+
+    /**
+     * Edit distance from the query to its best-matching substring of text
+     * (free start/end in text), capped at maxEdits + 1. Stops at the first exact hit.
+     */
+    private static int substringDistance(String q, String text, int maxEdits, int[] prev, int[] cur) {
+        int m = q.length();
+        for (int i = 0; i <= m; i++) prev[i] = i;
+        int best = prev[m];
+
+        for (int j = 1; j <= text.length(); j++) {
+            char tc = text.charAt(j - 1);
+            cur[0] = 0;
+            for (int i = 1; i <= m; i++) {
+                int cost = q.charAt(i - 1) == tc ? 0 : 1;
+                cur[i] = Math.min(prev[i - 1] + cost, Math.min(prev[i] + 1, cur[i - 1] + 1));
+            }
+            best = Math.min(best, cur[m]);
+            if (best == 0) return 0;
+            int[] swap = prev; prev = cur; cur = swap;
+        }
+        return best <= maxEdits ? best : maxEdits + 1;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
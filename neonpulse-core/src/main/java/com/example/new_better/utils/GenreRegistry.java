@@ -0,0 +1,77 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.GenreDAO;
+import com.example.new_better.models.Genre;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory view of the genres table: id → Genre and folder → Genre.
+ *
+ * Every Song carries a genre id; its display name is resolved here, so all
+ * songs of a genre share one String and in-memory filtering/grouping compares
+ * ints instead of case-folding strings. Genres are never deleted, so entries
+ * only ever get added (when a new folder appears under the songs directory).
+ */
+public final class GenreRegistry {
+
+    /** Folders created on first run so a fresh install has somewhere to drop songs. */
+    public static final String[] DEFAULT_FOLDERS = {"party", "pop", "classical", "romantic", "sad"};
+
+    private static final Map<Integer, Genre> byId = new HashMap<>();
+    private static final Map<String, Genre> byFolder = new HashMap<>();
+    private static boolean loaded;
+
+    private GenreRegistry() {}
+
+    private static void ensureLoaded() {
+        if (loaded) return;
+        for (Genre genre : new GenreDAO().getAllGenres()) {
+            put(genre);
+        }
+        loaded = true;
+    }
+
+    private static void put(Genre genre) {
+        genre.setName(genre.getName().intern());
+        byId.put(genre.getGenreId(), genre);
+        byFolder.put(genre.getFolder().toLowerCase(), genre);
+    }
+
+    /** Genre for a folder under the songs directory, created on first sight. */
+    public static synchronized Genre forFolder(String folder) {
+        ensureLoaded();
+        String key = folder.toLowerCase();
+        Genre genre = byFolder.get(key);
+        if (genre == null) {
+            genre = new GenreDAO().ensureGenre(key, displayName(folder));
+            if (genre != null) put(genre);
+        }
+        return genre;
+    }
+
+    public static synchronized Genre byId(int genreId) {
+        ensureLoaded();
+        return byId.get(genreId);
+    }
+
+    /** Display name for an id, or the fallback (e.g. the legacy genre text) if unknown. */
+    public static synchronized String nameOf(int genreId, String fallback) {
+        Genre genre = genreId > 0 ? byId(genreId) : null;
+        return genre != null ? genre.getName() : fallback;
+    }
+
+    public static synchronized List<Genre> all() {
+        ensureLoaded();
+        return new ArrayList<>(byId.values());
+    }
+
+    /** "romantic" → "Romantic" (same rule the importer always used). */
+    public static String displayName(String folder) {
+        if (folder == null || folder.isEmpty()) return folder;
+        return folder.substring(0, 1).toUpperCase() + folder.substring(1);
+    }
+}
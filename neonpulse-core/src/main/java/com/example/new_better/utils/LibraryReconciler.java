@@ -0,0 +1,194 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Genre;
+import com.example.new_better.models.Song;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps songs rows in step with files that were renamed, moved or deleted
+ * while we weren't looking (app closed, OS dropped watch events, a USB drive
+ * was unplugged…). Previously a stale row lived forever and was only noticed
+ * at play time with a "Song file not found" alert.
+ *
+ *   1. EXISTENCE — keyset pages through songs, stat()s each file, and flips
+ *      songs.available in one batched write per page. Missing songs keep their
+ *      song_id, likes, playlist entries and history; views just hide them.
+ *   2. RELINK — files on disk that no row knows about are matched to missing
+ *      songs by exact size + sampled hash (recorded by ContentIndexer while the
+ *      file still existed), confirmed by the full hash when one is stored. A
+ *      match re-points the existing song at the new path, so nothing is lost.
+ *
+ * The importer (relinkOrNull) and LibraryWatcher (findMovedSong + relink) do the
+ * same before they insert a "new" file, so a move seen live keeps its song_id too.
+ *
+ * Everything runs off the FX thread; writes go through the DB writer lane.
+ * Matching a file (findMovedSong) may hash all of it, so that half always
+ * runs on the caller's thread and only relink()'s UPDATE goes to the lane.
+ */
+public final class LibraryReconciler {
+
+    private static final int PAGE_SIZE = 512;
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static final AtomicBoolean rerunRequested = new AtomicBoolean(false);
+
+    private LibraryReconciler() {}
+
+    /** Starts a background reconcile, or queues one more if one is in progress. */
+    public static void requestRun() {
+        rerunRequested.set(true);
+        if (!running.compareAndSet(false, true)) return;
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (rerunRequested.getAndSet(false)) {
+                    runOnce();
+                }
+            } finally {
+                running.set(false);
+            }
+        }, "library-reconciler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void runOnce() {
+        long start = System.nanoTime();
+        SongDAO songDAO = new SongDAO();
+
+        int[] flipped = checkExisting(songDAO);
+        int relinked = songDAO.countUnavailable() > 0 ? relinkUnknownFiles(songDAO) : 0;
+
+        System.out.printf("🔗 Reconcile: %d missing, %d back, %d relinked in %.1f ms%n",
+                flipped[0], flipped[1], relinked, (System.nanoTime() - start) / 1_000_000.0);
+        if (flipped[0] + flipped[1] + relinked > 0) {
+            SongFolderImporter.notifyLibraryChanged();
+        }
+    }
+
+    /**
+     * Bulk existence check. Returns {nowMissing, nowBack}. Safe to call from any
+     * background thread; each page is written on the DB writer lane.
+     */
+    static int[] checkExisting(SongDAO songDAO) {
+        int afterId = 0, missing = 0, back = 0;
+
+        while (true) {
+            List<SongDAO.FileState> page = songDAO.getFileStates(afterId, PAGE_SIZE);
+            if (page.isEmpty()) break;
+            afterId = page.get(page.size() - 1).songId();
+
+            Map<Integer, Boolean> changes = new HashMap<>();
+            for (SongDAO.FileState state : page) {
+                boolean exists = SongFolderImporter.resolveFile(state.filePath()).isFile();
+                if (exists != state.available()) {
+                    changes.put(state.songId(), exists);
+                    if (exists) back++; else missing++;
+                }
+            }
+            if (!changes.isEmpty()) {
+                List<Integer> cameBack = new ArrayList<>();
+                changes.forEach((songId, available) -> {
+                    if (available) cameBack.add(songId);
+                });
+                CompletableFuture.runAsync(() -> {
+                    songDAO.setAvailability(changes);
+                    MediaValidator.revalidate(cameBack); // may not be the file that left
+                }, DbExecutor.writer()).join();
+                changes.forEach((songId, available) -> {
+                    if (!available) FuzzySearchIndex.getInstance().remove(songId);
+                });
+            }
+        }
+        return new int[]{missing, back};
+    }
+
+    /** Walks the genre folders for files no row knows about and tries to relink each. */
+    private static int relinkUnknownFiles(SongDAO songDAO) {
+        Set<String> known = songDAO.getAllFilePaths();
+        int relinked = 0;
+
+        for (String genre : SongFolderImporter.genreFolders()) {
+            File[] files = new File(SongFolderImporter.getSavedSongsDir(), genre)
+                    .listFiles((dir, name) -> SongFolderImporter.isAudioFile(name));
+            if (files == null) continue;
+
+            for (File file : files) {
+                if (known.contains(SongFolderImporter.relativePath(genre, file))) continue;
+                // Hash here; the single writer thread only gets the UPDATE
+                int songId = findMovedSong(songDAO, file);
+                if (songId < 0) continue;
+                Song song = CompletableFuture.supplyAsync(
+                        () -> relink(songDAO, songId, file, genre), DbExecutor.writer()).join();
+                if (song != null) relinked++;
+            }
+        }
+        return relinked;
+    }
+
+    /**
+     * If this (new to us) file is a missing song that moved, re-points that song
+     * at it and returns it; otherwise returns null and the caller inserts it as
+     * a new song. Runs both halves on the calling thread, for callers that
+     * write directly (the importer).
+     */
+    static Song relinkOrNull(SongDAO songDAO, File file, String genre) {
+        int songId = findMovedSong(songDAO, file);
+        return songId < 0 ? null : relink(songDAO, songId, file, genre);
+    }
+
+    /**
+     * The missing song this file is a moved copy of, or -1. Read-only, but may
+     * hash the whole file, so call it off the writer lane. Cheap when nothing is
+     * missing: one indexed size lookup, and the file is only hashed if a missing
+     * song has exactly the same size.
+     */
+    static int findMovedSong(SongDAO songDAO, File file) {
+        List<SongDAO.HashRow> candidates = songDAO.findMissingCandidates(file.length());
+        if (candidates.isEmpty()) return -1;
+
+        SongDAO.HashRow sample = ContentIndexer.sampleHash(0, file);
+        if (sample == null) return -1;
+
+        String fullHash = null;
+        for (SongDAO.HashRow candidate : candidates) {
+            if (candidate.sampleHash() != sample.sampleHash()) continue;
+
+            if (candidate.contentHash() != null) {
+                if (fullHash == null) {
+                    SongDAO.HashRow full = ContentIndexer.contentHash(0, file);
+                    if (full == null) return -1;
+                    fullHash = full.contentHash();
+                }
+                if (!candidate.contentHash().equals(fullHash)) continue;
+            }
+            return candidate.songId();
+        }
+        return -1;
+    }
+
+    /**
+     * Re-points song {@code songId} at {@code file} and returns it, or null if
+     * that failed. The write half of a relink: run it on the DB writer lane.
+     */
+    static Song relink(SongDAO songDAO, int songId, File file, String genre) {
+        String relativePath = SongFolderImporter.relativePath(genre, file);
+        Genre target = GenreRegistry.forFolder(genre);
+        if (target == null || !songDAO.relinkSong(songId, relativePath, target)) return null;
+        MediaValidator.revalidate(List.of(songId));
+
+        System.out.println("🔗 Relinked song " + songId + " → " + relativePath);
+        Song relinked = songDAO.getSongById(songId);
+        if (relinked != null) FuzzySearchIndex.getInstance().add(relinked); // genre may have changed
+        return relinked;
+    }
+}
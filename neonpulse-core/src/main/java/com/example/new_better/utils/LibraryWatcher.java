@@ -0,0 +1,299 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the songs folder (root + genre subfolders) and applies changes to the
+ * catalog incrementally, instead of rescanning everything on every login.
+ *
+ *   - Events are debounced: a batch is applied DEBOUNCE_MS after the last event,
+ *     but never later than MAX_DELAY_MS after the first, so a file dropped into
+ *     a genre folder shows up within a second even while a big copy is still
+ *     producing MODIFY events.
+ *   - Only the affected files are touched: create → relink or insert, delete →
+ *     mark unavailable, modify → refresh the duration estimate. A rename arrives
+ *     as delete + create and keeps its song_id (see LibraryReconciler).
+ *   - On OVERFLOW (the OS dropped events) we fall back to a cheap reconcile scan:
+ *     one directory listing per genre diffed against one SELECT of file paths.
+ *
+ * All DB writes go through the single DB writer lane; reads and hashing stay
+ * on the watcher thread.
+ */
+public final class LibraryWatcher {
+
+    private static final long DEBOUNCE_MS  = 300;
+    private static final long MAX_DELAY_MS = 1_000;
+
+    private static WatchService watchService;
+    private static Thread thread;
+    private static Path root;
+    private static final Map<WatchKey, Path> keys = new HashMap<>();
+
+    private LibraryWatcher() {}
+
+    public static synchronized void start(String songsDir) {
+        if (thread != null) return;
+        try {
+            root = Path.of(songsDir).toAbsolutePath();
+            watchService = FileSystems.getDefault().newWatchService();
+            register(root);
+            for (String genre : SongFolderImporter.genreFolders()) {
+                Path dir = root.resolve(genre);
+                if (Files.isDirectory(dir)) register(dir);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Could not watch songs folder: " + e.getMessage());
+            return;
+        }
+
+        thread = new Thread(LibraryWatcher::watchLoop, "library-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("👀 Watching songs folder: " + root);
+    }
+
+    public static synchronized void stop() {
+        if (thread == null) return;
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException ignored) {}
+        thread = null;
+    }
+
+    private static void register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        keys.put(key, dir);
+    }
+
+    // ─── Event loop ──────────────────────────────────────────────────────────
+
+    private static void watchLoop() {
+        Map<Path, WatchEvent.Kind<?>> pending = new LinkedHashMap<>();
+        boolean overflow = false;
+        long firstEventAt = 0;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key;
+                if (pending.isEmpty() && !overflow) {
+                    key = watchService.take();
+                    firstEventAt = System.currentTimeMillis();
+                } else {
+                    long waited = System.currentTimeMillis() - firstEventAt;
+                    long timeout = Math.min(DEBOUNCE_MS, MAX_DELAY_MS - waited);
+                    key = timeout > 0 ? watchService.poll(timeout, TimeUnit.MILLISECONDS) : null;
+                }
+
+                if (key == null) {
+                    applyBatch(pending, overflow);
+                    pending = new LinkedHashMap<>();
+                    overflow = false;
+                    continue;
+                }
+
+                Path dir = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || dir == null) {
+                        overflow = true;
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+
+                    if (dir.equals(root)) {
+                        // Any new subfolder is a new genre: watch it and pick up what's already in it
+                        if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                            try {
+                                register(child);
+                            } catch (IOException e) {
+                                System.err.println("⚠️ Could not watch " + child + ": " + e.getMessage());
+                            }
+                        }
+                        // Files at the root aren't imported; anything else is a folder added/removed/renamed
+                        overflow |= !SongFolderImporter.isAudioFile(child.getFileName().toString());
+                        continue;
+                    }
+
+                    if (!SongFolderImporter.isAudioFile(child.getFileName().toString())) continue;
+                    // The latest event wins; CREATE followed by MODIFY is still a new file
+                    WatchEvent.Kind<?> previous = pending.get(child);
+                    pending.put(child, previous == ENTRY_CREATE && event.kind() == ENTRY_MODIFY
+                            ? ENTRY_CREATE : event.kind());
+                }
+
+                if (!key.reset()) keys.remove(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stop() was called
+        }
+    }
+
+    // ─── Applying changes ────────────────────────────────────────────────────
+
+    /**
+     * Runs on the watcher thread. Lookups and hashing (a moved file is hashed to
+     * find its missing song) happen here; only the writes are submitted to the
+     * DB writer lane, so a big move doesn't stall every other write behind it.
+     */
+    private static void applyBatch(Map<Path, WatchEvent.Kind<?>> batch, boolean overflow) {
+        if (batch.isEmpty() && !overflow) return;
+
+        SongDAO songDAO = new SongDAO();
+        int added = 0, removed = 0, updated = 0;
+
+        if (overflow) {
+            int[] counts = reconcile(songDAO);
+            added += counts[0];
+            removed += counts[1];
+            // Songs whose file came back at the same path are flipped by the
+            // reconciler's existence check.
+            LibraryReconciler.requestRun();
+        } else {
+            // Deletions first, so a move (delete + create) can relink the
+            // now-missing song instead of inserting a second copy.
+            List<String> gone = new ArrayList<>();
+            for (Path path : batch.keySet()) {
+                File file = path.toFile();
+                if (!file.exists()) gone.add(SongFolderImporter.relativePath(file.getParentFile().getName(), file));
+            }
+            if (!gone.isEmpty()) removed = onWriter(() -> markAllMissing(songDAO, gone));
+
+            // New files: find the missing song each one is a moved copy of (may hash it)
+            Map<File, Integer> movedFrom = new HashMap<>();
+            for (Path path : batch.keySet()) {
+                File file = path.toFile();
+                if (file.isFile() && songDAO.getSongByFilePath(
+                        SongFolderImporter.relativePath(file.getParentFile().getName(), file)) == null) {
+                    movedFrom.put(file, LibraryReconciler.findMovedSong(songDAO, file));
+                }
+            }
+
+            int[] counts = onWriter(() -> {
+                int newFiles = 0, changed = 0;
+                for (Map.Entry<Path, WatchEvent.Kind<?>> entry : batch.entrySet()) {
+                    File file = entry.getKey().toFile();
+                    if (!file.isFile()) continue;
+                    String genre = file.getParentFile().getName();
+                    String relativePath = SongFolderImporter.relativePath(genre, file);
+
+                    Song existing = songDAO.getSongByFilePath(relativePath);
+                    if (existing == null) {
+                        addFile(songDAO, file, genre, movedFrom.getOrDefault(file, -1));
+                        newFiles++;
+                    } else if (songDAO.markAvailableByFilePath(relativePath)) {
+                        MediaValidator.revalidate(List.of(existing.getSongId())); // may not be the same file
+                        changed++; // came back at its old path
+                    } else if (entry.getValue() == ENTRY_MODIFY) {
+                        // Still being copied, or replaced in place: refresh the estimate
+                        songDAO.updateSongDuration(existing.getSongId(), SongFolderImporter.estimateDuration(file));
+                        songDAO.clearHashes(existing.getSongId());
+                        MediaValidator.revalidate(List.of(existing.getSongId()));
+                        changed++;
+                    }
+                }
+                return new int[]{newFiles, changed};
+            });
+            added += counts[0];
+            updated += counts[1];
+        }
+
+        if (added + removed + updated > 0) {
+            System.out.println("🔄 Library updated: +" + added + " / -" + removed + " / ~" + updated
+                    + (overflow ? " (reconcile scan)" : ""));
+            SongFolderImporter.notifyLibraryChanged();
+        }
+    }
+
+    /**
+     * Full but cheap diff after the OS dropped events: list each genre folder
+     * and compare against the stored paths. Returns {added, missing}.
+     */
+    private static int[] reconcile(SongDAO songDAO) {
+        Set<String> stored = songDAO.getAllFilePaths();
+        Map<File, String> unknown = new LinkedHashMap<>();
+
+        for (String genre : SongFolderImporter.genreFolders()) {
+            File genreDir = root.resolve(genre).toFile();
+            File[] files = genreDir.listFiles((dir, name) -> SongFolderImporter.isAudioFile(name));
+            if (files != null) {
+                for (File file : files) {
+                    if (!stored.remove(SongFolderImporter.relativePath(genre, file))) {
+                        unknown.put(file, genre);
+                    }
+                }
+            }
+        }
+
+        // Whatever relative path is left no longer exists on disk (its genre folder
+        // may be gone entirely). Legacy absolute paths are left alone.
+        List<String> gone = new ArrayList<>();
+        for (String path : stored) {
+            if (path.indexOf(File.separatorChar) > 0 && !Path.of(path).isAbsolute()
+                    && !root.resolve(path).toFile().exists()) {
+                gone.add(path);
+            }
+        }
+        int missing = gone.isEmpty() ? 0 : onWriter(() -> markAllMissing(songDAO, gone));
+
+        // Then the new files: moved songs are relinked, the rest inserted. Hashing
+        // stays on this thread; each file's write is one task on the lane.
+        for (Map.Entry<File, String> entry : unknown.entrySet()) {
+            int movedFrom = LibraryReconciler.findMovedSong(songDAO, entry.getKey());
+            CompletableFuture.runAsync(() -> addFile(songDAO, entry.getKey(), entry.getValue(), movedFrom),
+                    DbExecutor.writer()).join();
+        }
+        return new int[]{unknown.size(), missing};
+    }
+
+    /** Writer lane: relinks the moved song if there is one (songId ≥ 0), otherwise inserts the file. */
+    private static void addFile(SongDAO songDAO, File file, String genre, int movedFrom) {
+        if (movedFrom >= 0 && LibraryReconciler.relink(songDAO, movedFrom, file, genre) != null) return;
+        SongFolderImporter.insertAndIndex(songDAO, SongFolderImporter.buildSong(file, genre));
+    }
+
+    /** Runs {@code write} on the DB writer lane and waits for its result. */
+    private static <T> T onWriter(Supplier<T> write) {
+        return CompletableFuture.supplyAsync(write, DbExecutor.writer()).join();
+    }
+
+    private static int markAllMissing(SongDAO songDAO, List<String> paths) {
+        int count = 0;
+        for (String path : paths) {
+            if (markMissing(songDAO, path)) count++;
+        }
+        return count;
+    }
+
+    /** Marks the song at this path missing and drops it from the search index. */
+    private static boolean markMissing(SongDAO songDAO, String path) {
+        Song gone = songDAO.getSongByFilePath(path);
+        if (!songDAO.markMissingByFilePath(path)) return false;
+        if (gone != null) FuzzySearchIndex.getInstance().remove(gone.getSongId());
+        return true;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.AsyncDAO;
+import com.example.new_better.dao.LikedSongsDAO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory source of truth for the current user's liked songs.
+ *
+ * The original like buttons did isLiked() + likeSong()/unlikeSong() per click:
+ * three JDBC connections on the FX thread, and spam-clicking a heart hammered
+ * the DB with writes that cancelled each other out. Now:
+ *
+ *   - isLiked() / toggle() answer instantly from memory (optimistic UI).
+ *   - Each toggle only records the song's DESIRED state. Toggling back to what
+ *     the DB already has simply drops the pending entry — no write at all.
+ *   - Pending changes are flushed FLUSH_DELAY_MS after the last click (never
+ *     later than MAX_DELAY_MS after the first) as ONE transaction on the DB
+ *     writer lane. Spam-clicking a heart produces at most one write.
+ *   - If the batch fails it is rolled back in SQLite AND in memory, and
+ *     listeners are told so the hearts snap back.
+ *
+ * Listener callbacks are always delivered on the FX thread.
+ */
+public class LikedSongsStore {
+
+    private static final long FLUSH_DELAY_MS = 400;
+    private static final long MAX_DELAY_MS   = 2_000;
+
+    public interface LikeListener {
+        void onLikeChanged(int songId, boolean liked);
+        default void onLikeSyncFailed() {}
+    }
+
+    private static LikedSongsStore instance;
+
+    private final LikedSongsDAO likedSongsDAO = new LikedSongsDAO();
+    private final List<LikeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "like-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private int userId = -1;
+    private CompletableFuture<Void> loaded = CompletableFuture.completedFuture(null);
+    private final Set<Integer> liked = new HashSet<>();         // what the UI shows
+    private final Set<Integer> persisted = new HashSet<>();     // what the DB has (incl. in-flight batches)
+    private final Map<Integer, Boolean> pending = new HashMap<>(); // net changes not yet sent
+    private long firstPendingAt;
+    private ScheduledFuture<?> scheduledFlush;
+
+    private LikedSongsStore() {}
+
+    public static synchronized LikedSongsStore getInstance() {
+        if (instance == null) {
+            instance = new LikedSongsStore();
+        }
+        return instance;
+    }
+
+    // ─── Loading ─────────────────────────────────────────────────────────────
+
+    /**
+     * Loads the user's likes once per login. Completes on the FX thread; repeated
+     * calls for the same user return the same future.
+     */
+    public synchronized CompletableFuture<Void> ensureLoaded(int userId) {
+        if (this.userId == userId) return loaded;
+
+        flushNow();
+        this.userId = userId;
+        liked.clear();
+        persisted.clear();
+        pending.clear();
+
+        loaded = AsyncDAO.getInstance().getLikedSongIds(userId).thenAccept(ids -> {
+            synchronized (this) {
+                if (this.userId != userId) return;
+                persisted.addAll(ids);
+                liked.addAll(ids);
+                // Clicks made while loading win over what the DB said
+                pending.entrySet().removeIf(e -> persisted.contains(e.getKey()) == e.getValue());
+                pending.forEach((songId, wantLiked) -> {
+                    if (wantLiked) liked.add(songId); else liked.remove(songId);
+                });
+            }
+        });
+        return loaded;
+    }
+
+    // ─── Reads / toggles (FX thread) ─────────────────────────────────────────
+
+    public synchronized boolean isLiked(int songId) {
+        return liked.contains(songId);
+    }
+
+    /** Copy of the liked ids as the UI currently shows them (for facet bitmaps). */
+    public synchronized Set<Integer> likedIds() {
+        return new HashSet<>(liked);
+    }
+
+    /** Flips the song's state instantly and returns the new state. */
+    public boolean toggle(int songId) {
+        boolean nowLiked;
+        synchronized (this) {
+            nowLiked = !liked.contains(songId);
+        }
+        setLiked(songId, nowLiked);
+        return nowLiked;
+    }
+
+    public void setLiked(int songId, boolean wantLiked) {
+        synchronized (this) {
+            if (userId < 0 || liked.contains(songId) == wantLiked) return;
+
+            if (wantLiked) liked.add(songId); else liked.remove(songId);
+
+            if (persisted.contains(songId) == wantLiked) {
+                pending.remove(songId); // toggled back to the stored state — nothing to write
+            } else {
+                if (pending.isEmpty()) firstPendingAt = System.currentTimeMillis();
+                pending.put(songId, wantLiked);
+            }
+            scheduleFlush();
+        }
+        notifyChanged(songId, wantLiked);
+    }
+
+    // ─── Flushing ────────────────────────────────────────────────────────────
+
+    private void scheduleFlush() {
+        if (scheduledFlush != null) scheduledFlush.cancel(false);
+        if (pending.isEmpty()) return;
+
+        long sinceFirst = System.currentTimeMillis() - firstPendingAt;
+        long delay = Math.max(0, Math.min(FLUSH_DELAY_MS, MAX_DELAY_MS - sinceFirst));
+        scheduledFlush = flusher.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /** Sends whatever is pending right away (logout, shutdown, user switch). */
+    public synchronized void flushNow() {
+        if (scheduledFlush != null) scheduledFlush.cancel(false);
+        flush();
+    }
+
+    /**
+     * Flushes and completes once the batch has been applied. The writer lane is
+     * FIFO, so a no-op queued behind the batch is a cheap barrier. Views that
+     * query liked_songs directly (the Liked Songs page) chain their read off this.
+     */
+    public CompletableFuture<Void> flushed() {
+        flushNow();
+        return CompletableFuture.runAsync(() -> {}, DbExecutor.writer())
+                .exceptionally(e -> null);
+    }
+
+    private synchronized void flush() {
+        if (pending.isEmpty() || userId < 0) return;
+
+        int batchUser = userId;
+        Map<Integer, Boolean> batch = new HashMap<>(pending);
+        pending.clear();
+
+        // Count the batch as persisted now so toggles made while it's in flight
+        // are compared against the state the DB is about to have.
+        List<Integer> toLike = new ArrayList<>();
+        List<Integer> toUnlike = new ArrayList<>();
+        batch.forEach((songId, wantLiked) -> {
+            if (wantLiked) { toLike.add(songId); persisted.add(songId); }
+            else           { toUnlike.add(songId); persisted.remove(songId); }
+        });
+
+        try {
+            DbExecutor.writer().execute(() -> {
+                boolean ok = likedSongsDAO.applyLikeChanges(batchUser, toLike, toUnlike);
+                if (!ok) rollback(batchUser, batch);
+            });
+        } catch (Exception e) {
+            rollback(batchUser, batch); // writer already shut down
+        }
+    }
+
+    private void rollback(int batchUser, Map<Integer, Boolean> batch) {
+        List<Integer> reverted = new ArrayList<>();
+        synchronized (this) {
+            if (userId != batchUser) return;
+            batch.forEach((songId, wantLiked) -> {
+                if (wantLiked) persisted.remove(songId); else persisted.add(songId);
+
+                Boolean newer = pending.get(songId);
+                if (newer == null) {
+                    // No newer click — the UI goes back to what the DB really has
+                    if (persisted.contains(songId)) liked.add(songId); else liked.remove(songId);
+                    reverted.add(songId);
+                } else if (newer == persisted.contains(songId)) {
+                    pending.remove(songId); // newer click already matches the DB
+                }
+            });
+        }
+
+        System.err.println("❌ Like sync failed, reverted " + reverted.size() + " song(s).");
+        DbExecutor.fx().execute(() -> {
+            for (int songId : reverted) {
+                boolean state = isLiked(songId);
+                for (LikeListener l : listeners) l.onLikeChanged(songId, state);
+            }
+            for (LikeListener l : listeners) l.onLikeSyncFailed();
+        });
+    }
+
+    /** Flushes pending changes and forgets the user (logout). */
+    public synchronized void reset() {
+        flushNow();
+        userId = -1;
+        loaded = CompletableFuture.completedFuture(null);
+        liked.clear();
+        persisted.clear();
+    }
+
+    // ─── Listeners ───────────────────────────────────────────────────────────
+
+    public void addListener(LikeListener listener)    { listeners.add(listener); }
+    public void removeListener(LikeListener listener) { listeners.remove(listener); }
+
+    private void notifyChanged(int songId, boolean state) {
+        DbExecutor.fx().execute(() -> {
+            for (LikeListener l : listeners) l.onLikeChanged(songId, state);
+        });
+    }
+}
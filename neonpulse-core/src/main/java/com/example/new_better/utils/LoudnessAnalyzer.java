@@ -0,0 +1,387 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-track loudness correction, so a quiet acoustic track and a brick-walled
+ * club mix play at roughly the same level. Each song gets songs.gain_db from,
+ * in order of preference:
+ *
+ *   1. TAGS — REPLAYGAIN_TRACK_GAIN or iTunNORM, found in the ID3v2 tag (MP3/WAV)
+ *      or the head/tail of the file (MP4 freeform atoms, APE tags). Reads a few
+ *      hundred KB at most.
+ *   2. ANALYSIS — for PCM WAV: ITU-R BS.1770 integrated loudness (K-weighting,
+ *      400 ms blocks, absolute and relative gating), decoded in a streaming
+ *      pass by PcmWav; gain brings it to REFERENCE_LUFS.
+ *   3. Otherwise "none": MP3/M4A can't be decoded to PCM here, the track plays
+ *      unchanged.
+ *
+ * Runs like ContentIndexer: keyset-paged batches on a small MIN_PRIORITY pool,
+ * each page saved in one transaction on the writer lane before the next is
+ * read, so the songs table is the resume point. getProgress() reports the run.
+ *
+ * Playback reads gains from an in-memory float[] by song_id (gainFactor()),
+ * loaded once and updated as pages are saved — no DB query per track.
+ */
+public final class LoudnessAnalyzer {
+
+    /** ReplayGain 2.0 reference level. */
+    public static final double REFERENCE_LUFS = -18.0;
+    private static final double MIN_GAIN_DB = -24.0;
+    private static final double MAX_GAIN_DB = 12.0;
+
+    private static final int PAGE_SIZE   = 64;
+    private static final int TAG_WINDOW  = 256 * 1024;
+    private static final int MAX_ID3_TAG = 4 * 1024 * 1024;
+    private static final int THREADS =
+            Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    /** How far the current (or last) run got. */
+    public record Progress(int done, int total, boolean running) {}
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static final AtomicBoolean rerunRequested = new AtomicBoolean(false);
+    private static volatile int done;
+    private static volatile int total;
+
+    // song_id → gain in dB, NaN = unknown. Replaced wholesale when it grows.
+    private static volatile float[] gainsById = new float[0];
+    private static volatile boolean gainsLoaded;
+
+    private LoudnessAnalyzer() {}
+
+    /** Starts a background run, or queues one more if a run is already in progress. */
+    public static void requestRun() {
+        rerunRequested.set(true);
+        if (!running.compareAndSet(false, true)) return;
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (rerunRequested.getAndSet(false)) {
+                    runOnce();
+                }
+            } finally {
+                running.set(false);
+            }
+        }, "loudness-analyzer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public static Progress getProgress() {
+        return new Progress(done, total, running.get());
+    }
+
+    // ─── Playback side ───────────────────────────────────────────────────────
+
+    /** Linear volume factor for the song (1.0 when it has no gain yet). */
+    public static double gainFactor(int songId) {
+        float[] gains = gainsById;
+        if (songId <= 0 || songId >= gains.length || Float.isNaN(gains[songId])) return 1.0;
+        return Math.pow(10, gains[songId] / 20.0);
+    }
+
+    private static synchronized void putGain(int songId, double gainDb) {
+        float[] gains = gainsById;
+        if (songId >= gains.length) {
+            int old = gains.length;
+            gains = Arrays.copyOf(gains, Math.max(songId + 1, old * 2));
+            Arrays.fill(gains, old, gains.length, Float.NaN);
+        }
+        gains[songId] = (float) gainDb;
+        gainsById = gains;
+    }
+
+    private static void loadGains(SongDAO songDAO) {
+        if (gainsLoaded) return;
+        for (Map.Entry<Integer, Double> entry : songDAO.getTrackGains().entrySet()) {
+            putGain(entry.getKey(), entry.getValue());
+        }
+        gainsLoaded = true;
+    }
+
+    // ─── Background run ──────────────────────────────────────────────────────
+
+    private static void runOnce() {
+        long start = System.nanoTime();
+        SongDAO songDAO = new SongDAO();
+        loadGains(songDAO);
+
+        done = 0;
+        total = songDAO.countSongsMissingGain();
+        if (total == 0) return;
+
+        AtomicInteger threadCount = new AtomicInteger(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "loudness-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        int[] bySource = new int[3]; // tag, analysis, none
+        try {
+            int afterId = 0;
+            while (true) {
+                List<Song> page = songDAO.getSongsMissingGain(afterId, PAGE_SIZE);
+                if (page.isEmpty()) break;
+                afterId = page.get(page.size() - 1).getSongId();
+
+                List<Future<SongDAO.GainRow>> futures = new ArrayList<>(page.size());
+                for (Song song : page) futures.add(pool.submit(() -> measure(song)));
+
+                List<SongDAO.GainRow> rows = new ArrayList<>(page.size());
+                for (Future<SongDAO.GainRow> future : futures) {
+                    try {
+                        SongDAO.GainRow row = future.get();
+                        if (row != null) rows.add(row);
+                    } catch (ExecutionException e) {
+                        System.err.println("⚠️ Loudness analysis failed: " + e.getCause());
+                    }
+                }
+
+                // Persist this page before reading the next: that is our resume point.
+                if (!rows.isEmpty()) {
+                    CompletableFuture.runAsync(() -> songDAO.saveGains(rows), DbExecutor.writer()).join();
+                }
+                for (SongDAO.GainRow row : rows) {
+                    putGain(row.songId(), row.gainDb() == null ? Double.NaN : row.gainDb());
+                    bySource["analysis".equals(row.source()) ? 1 : "none".equals(row.source()) ? 2 : 0]++;
+                }
+                done += page.size();
+                System.out.printf("🔊 Loudness: %d / %d%n", done, total);
+            }
+            System.out.printf("🔊 Loudness: %d from tags, %d analysed, %d unmeasurable in %.1f s%n",
+                    bySource[0], bySource[1], bySource[2], (System.nanoTime() - start) / 1e9);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Returns null when the file is missing/unreadable; it is retried next run. */
+    static SongDAO.GainRow measure(Song song) throws InterruptedException {
+        File file = SongFolderImporter.resolveFile(song.getFilePath());
+        if (!file.isFile()) return null;
+        try {
+            SongDAO.GainRow tagged = readTagGain(song.getSongId(), file);
+            if (tagged != null) return tagged;
+
+            if (file.getName().toLowerCase().endsWith(".wav")) {
+                Double lufs = integratedLoudness(file);
+                if (lufs != null) {
+                    return new SongDAO.GainRow(song.getSongId(), clampGain(REFERENCE_LUFS - lufs), "analysis");
+                }
+            }
+            return new SongDAO.GainRow(song.getSongId(), null, "none");
+
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static double clampGain(double gainDb) {
+        return Math.max(MIN_GAIN_DB, Math.min(MAX_GAIN_DB, Math.round(gainDb * 100) / 100.0));
+    }
+
+    // ─── Tags ────────────────────────────────────────────────────────────────
+
+    // Matched against tag bytes with NULs removed, so Latin-1, UTF-8 and UTF-16
+    // ID3 frames, APE items and MP4 "----" atoms all read the same way; the lazy
+    // gap skips whatever framing (atom sizes, "data", language codes) sits between.
+    private static final Pattern REPLAYGAIN = Pattern.compile(
+            "(?is)replaygain_track_gain.{0,24}?([-+]?\\d{1,2}(?:[.,]\\d+)?)\\s*dB");
+    private static final Pattern ITUNNORM = Pattern.compile(
+            "(?is)itunnorm.{0,24}?((?:\\s+[0-9a-f]{8}){10})");
+
+    static SongDAO.GainRow readTagGain(int songId, File file) throws IOException {
+        String text = tagText(file);
+
+        Matcher rg = REPLAYGAIN.matcher(text);
+        if (rg.find()) {
+            double gain = Double.parseDouble(rg.group(1).replace(',', '.'));
+            return new SongDAO.GainRow(songId, clampGain(gain), "replaygain");
+        }
+
+        Matcher norm = ITUNNORM.matcher(text);
+        if (norm.find()) {
+            // First two values: per-channel Sound Check level, 1000 = reference
+            String[] values = norm.group(1).trim().split("\\s+");
+            long level = Math.max(Long.parseLong(values[0], 16), Long.parseLong(values[1], 16));
+            if (level > 0) {
+                return new SongDAO.GainRow(songId, clampGain(-10 * Math.log10(level / 1000.0)), "itunnorm");
+            }
+        }
+        return null;
+    }
+
+    /** The ID3v2 tag if there is one, else the first and last TAG_WINDOW bytes; NULs removed. */
+    private static String tagText(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long size = raf.length();
+            byte[] header = new byte[10];
+            int head = TAG_WINDOW;
+            if (size >= 10) {
+                raf.readFully(header);
+                if (header[0] == 'I' && header[1] == 'D' && header[2] == '3') {
+                    int tagSize = ((header[6] & 0x7F) << 21) | ((header[7] & 0x7F) << 14)
+                            | ((header[8] & 0x7F) << 7) | (header[9] & 0x7F);
+                    head = Math.min(tagSize + 10, MAX_ID3_TAG);
+                }
+            }
+            head = (int) Math.min(head, size);
+            int tail = (int) Math.min(TAG_WINDOW, size - head);
+
+            byte[] bytes = new byte[head + tail];
+            raf.seek(0);
+            raf.readFully(bytes, 0, head);
+            if (tail > 0) {
+                raf.seek(size - tail);
+                raf.readFully(bytes, head, tail);
+            }
+
+            int n = 0;
+            for (byte b : bytes) {
+                if (b != 0) bytes[n++] = b;
+            }
+            return new String(bytes, 0, n, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    // ─── BS.1770 analysis (PCM WAV) ──────────────────────────────────────────
+
+    /** Integrated loudness in LUFS, or null if the file isn't PCM WAV we can read / is silent. */
+    static Double integratedLoudness(File file) throws IOException, InterruptedException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            PcmWav wav = PcmWav.open(in);
+            return wav == null ? null : measurePcm(wav);
+        }
+    }
+
+    private static Double measurePcm(PcmWav wav) throws IOException, InterruptedException {
+        int channels = wav.channels;
+        int subBlockFrames = wav.sampleRate / 10; // 100 ms: blocks are 4 of these, 75% overlap
+
+        Biquad[] shelf = new Biquad[channels];
+        Biquad[] highPass = new Biquad[channels];
+        for (int c = 0; c < channels; c++) {
+            shelf[c] = Biquad.highShelf(wav.sampleRate);
+            highPass[c] = Biquad.highPass(wav.sampleRate);
+        }
+
+        double[] subBlocks = new double[1024]; // mean square (summed over channels) per 100 ms
+        int subCount = 0;
+        double energy = 0;
+        int framesInSub = 0;
+
+        double[] samples = new double[4096 * channels];
+        int frames;
+        while ((frames = wav.readFrames(samples)) > 0) {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+            for (int f = 0; f < frames; f++) {
+                int base = f * channels;
+                for (int c = 0; c < channels; c++) {
+                    double y = highPass[c].process(shelf[c].process(samples[base + c]));
+                    energy += y * y;
+                }
+                if (++framesInSub == subBlockFrames) {
+                    if (subCount == subBlocks.length) subBlocks = Arrays.copyOf(subBlocks, subCount * 2);
+                    subBlocks[subCount++] = energy / subBlockFrames;
+                    energy = 0;
+                    framesInSub = 0;
+                }
+            }
+        }
+        return gatedLoudness(subBlocks, subCount);
+    }
+
+    /** BS.1770-4 gating over 400 ms blocks built from 100 ms sub-blocks. */
+    static Double gatedLoudness(double[] subBlocks, int subCount) {
+        int blockCount = subCount - 3;
+        if (blockCount < 1) return null;
+
+        double[] blocks = new double[blockCount];
+        for (int j = 0; j < blockCount; j++) {
+            blocks[j] = (subBlocks[j] + subBlocks[j + 1] + subBlocks[j + 2] + subBlocks[j + 3]) / 4;
+        }
+
+        // Absolute gate at -70 LUFS, then relative gate 10 LU below the ungated-so-far mean
+        double absoluteGate = Math.pow(10, (-70 + 0.691) / 10);
+        double sum = 0;
+        int count = 0;
+        for (double z : blocks) {
+            if (z > absoluteGate) { sum += z; count++; }
+        }
+        if (count == 0) return null; // silence
+        double relativeGate = (sum / count) * Math.pow(10, -10 / 10.0);
+
+        sum = 0;
+        count = 0;
+        for (double z : blocks) {
+            if (z > absoluteGate && z > relativeGate) { sum += z; count++; }
+        }
+        return -0.691 + 10 * Math.log10(sum / count);
+    }
+
+    /** Direct-form I biquad; the two K-weighting stages, designed for any sample rate. */
+    private static final class Biquad {
+        private final double b0, b1, b2, a1, a2;
+        private double x1, x2, y1, y2;
+
+        private Biquad(double b0, double b1, double b2, double a0, double a1, double a2) {
+            this.b0 = b0 / a0; this.b1 = b1 / a0; this.b2 = b2 / a0;
+            this.a1 = a1 / a0; this.a2 = a2 / a0;
+        }
+
+        // Bilinear-transform designs that reproduce the BS.1770 48 kHz coefficients
+        // exactly and stay correct at 44.1 kHz and other rates.
+
+        /** Stage 1: +4 dB shelf above ~1.7 kHz (head response). */
+        static Biquad highShelf(double rate) {
+            double q = 0.7071752369554193, fc = 1681.9744509555319;
+            double k = Math.tan(Math.PI * fc / rate);
+            double vh = Math.pow(10, 3.99984385397 / 20);
+            double vb = Math.pow(vh, 0.4996667741545416);
+            return new Biquad(vh + vb * k / q + k * k, 2 * (k * k - vh), vh - vb * k / q + k * k,
+                    1 + k / q + k * k, 2 * (k * k - 1), 1 - k / q + k * k);
+        }
+
+        /** Stage 2: RLB high-pass at ~38 Hz. */
+        static Biquad highPass(double rate) {
+            double q = 0.5003270373253953, fc = 38.13547087613982;
+            double k = Math.tan(Math.PI * fc / rate);
+            double a0 = 1 + k / q + k * k;
+            return new Biquad(a0, -2 * a0, a0, a0, 2 * (k * k - 1), 1 - k / q + k * k);
+        }
+
+        double process(double x) {
+            double y = b0 * x + b1 * x1 + b2 * x2 - a1 * y1 - a2 * y2;
+            x2 = x1; x1 = x;
+            y2 = y1; y1 = y;
+            return y;
+        }
+    }
+}
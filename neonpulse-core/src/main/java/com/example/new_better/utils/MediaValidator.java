@@ -0,0 +1,257 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-flight check of every imported file's container and codec headers, so
+ * the player knows a file won't play before it builds a MediaPlayer for it.
+ *
+ *   - MP3: two consecutive MPEG audio frame headers after the ID3 tag
+ *   - WAV: a RIFF/WAVE "fmt " chunk with integer PCM (via PcmWav)
+ *   - M4A: an "ftyp" box, a "moov" box, and an AAC ("mp4a") sample entry —
+ *     ALAC, AC-3, Opus, FLAC and DRM-protected tracks are rejected
+ *
+ * The verdict lands in songs.playable / playable_reason. Runs like
+ * LoudnessAnalyzer: keyset-paged batches on a MIN_PRIORITY thread, each page
+ * saved on the writer lane, so the table is the resume point. Only headers are
+ * read (a few KB, or the moov box for M4A).
+ *
+ * Known-bad song ids are also kept in memory: isKnownBad() is what
+ * MusicPlayerManager checks before starting a song or picking the next one.
+ * A file that slips past the headers and fails to decode in MediaPlayer is
+ * recorded through markUnplayable() and skipped from then on — until its file
+ * changes: LibraryWatcher and LibraryReconciler call revalidate() when a file
+ * is replaced, relinked or comes back, which drops the verdict in memory and
+ * in the table so the next run checks it again.
+ */
+public final class MediaValidator {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int MP3_SCAN = 64 * 1024;
+    private static final long MAX_MOOV = 16L << 20;
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+    private static final AtomicBoolean rerunRequested = new AtomicBoolean(false);
+
+    private static final Set<Integer> unplayable = ConcurrentHashMap.newKeySet();
+    private static volatile boolean verdictsLoaded;
+
+    private MediaValidator() {}
+
+    /** Starts a background run, or queues one more if a run is already in progress. */
+    public static void requestRun() {
+        rerunRequested.set(true);
+        if (!running.compareAndSet(false, true)) return;
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (rerunRequested.getAndSet(false)) {
+                    runOnce();
+                }
+            } finally {
+                running.set(false);
+            }
+        }, "media-validator");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    // ─── Playback side ───────────────────────────────────────────────────────
+
+    public static boolean isKnownBad(int songId) {
+        return unplayable.contains(songId);
+    }
+
+    /**
+     * The files behind these songs changed: forget their verdicts so they play
+     * (and get checked) again. Runs the clear directly — call it on the DB writer
+     * lane. The library change that follows requests the validator run.
+     */
+    public static void revalidate(List<Integer> songIds) {
+        if (songIds.isEmpty()) return;
+        unplayable.removeAll(songIds);
+        new SongDAO().clearVerdicts(songIds);
+    }
+
+    /**
+     * Records a file MediaPlayer couldn't decode (header check passed, decoding
+     * didn't). Only for permanent failures: a locked or briefly unavailable
+     * file must not be skipped forever. False if it was already known bad.
+     */
+    public static boolean markUnplayable(Song song, String reason) {
+        if (!unplayable.add(song.getSongId())) return false;
+        SongDAO.VerdictRow row = new SongDAO.VerdictRow(song.getSongId(), false, reason);
+        DbExecutor.writer().execute(() -> new SongDAO().saveVerdicts(List.of(row)));
+        return true;
+    }
+
+    /** Forgets the in-memory verdicts (the table keeps them), so every test starts clean. */
+    static void reset() {
+        unplayable.clear();
+        verdictsLoaded = false;
+    }
+
+    // ─── Background run ──────────────────────────────────────────────────────
+
+    private static void runOnce() {
+        long start = System.nanoTime();
+        SongDAO songDAO = new SongDAO();
+        if (!verdictsLoaded) {
+            unplayable.addAll(songDAO.getUnplayableSongIds());
+            verdictsLoaded = true;
+        }
+
+        int total = songDAO.countSongsUnvalidated();
+        if (total == 0) return;
+
+        int checked = 0, bad = 0;
+        int afterId = 0;
+        while (true) {
+            List<Song> page = songDAO.getSongsUnvalidated(afterId, PAGE_SIZE);
+            if (page.isEmpty()) break;
+            afterId = page.get(page.size() - 1).getSongId();
+
+            List<SongDAO.VerdictRow> rows = new ArrayList<>(page.size());
+            for (Song song : page) {
+                SongDAO.VerdictRow row = validate(song);
+                if (row == null) continue;
+                rows.add(row);
+                if (!row.playable()) {
+                    unplayable.add(song.getSongId());
+                    System.err.println("⚠️ Unplayable: " + song.getFilePath() + " — " + row.reason());
+                    bad++;
+                }
+            }
+            // Persist this page before reading the next: that is our resume point.
+            if (!rows.isEmpty()) {
+                CompletableFuture.runAsync(() -> songDAO.saveVerdicts(rows), DbExecutor.writer()).join();
+            }
+            checked += page.size();
+        }
+        System.out.printf("🩺 Validated %d songs (%d unplayable) in %.1f s%n",
+                checked, bad, (System.nanoTime() - start) / 1e9);
+    }
+
+    /** Returns null when the file is missing; LibraryReconciler deals with those. */
+    static SongDAO.VerdictRow validate(Song song) {
+        File file = SongFolderImporter.resolveFile(song.getFilePath());
+        if (!file.isFile()) return null;
+        String problem;
+        try {
+            problem = problem(file);
+        } catch (IOException e) {
+            problem = "unreadable: " + e.getMessage();
+        }
+        return new SongDAO.VerdictRow(song.getSongId(), problem == null, problem);
+    }
+
+    /** Why the file won't play, or null if its headers look playable. */
+    static String problem(File file) throws IOException {
+        if (file.length() == 0) return "empty file";
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".mp3")) return mp3Problem(file);
+        if (name.endsWith(".wav")) return wavProblem(file);
+        if (name.endsWith(".m4a")) return mp4Problem(file);
+        return "unsupported file type";
+    }
+
+    private static String mp3Problem(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long audioStart = WaveformCache.id3Size(raf);
+            if (audioStart >= raf.length()) return "ID3 tag but no audio";
+            byte[] buf = new byte[(int) Math.min(MP3_SCAN, raf.length() - audioStart)];
+            raf.seek(audioStart);
+            raf.readFully(buf);
+
+            for (int pos = 0; pos + 4 <= buf.length; pos++) {
+                int length = WaveformCache.frameLength(be32(buf, pos));
+                if (length <= 0) continue;
+                int next = pos + length;
+                if (next + 4 > buf.length) return null; // one frame, file ends: fine
+                if (WaveformCache.frameLength(be32(buf, next)) > 0) return null;
+            }
+            return "no MPEG layer III audio frames";
+        }
+    }
+
+    private static String wavProblem(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            PcmWav wav = PcmWav.open(in);
+            if (wav == null) return "not a PCM WAV (compressed or damaged)";
+            if (wav.floats) return "32-bit float WAV is not supported";
+            if (wav.dataSize == 0) return "WAV has no audio data";
+            return null;
+        }
+    }
+
+    private static String mp4Problem(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            long pos = 0;
+            boolean sawFtyp = false;
+            byte[] header = new byte[16];
+
+            // Walk the top-level boxes to find moov (often at the end of the file)
+            while (pos + 8 <= length) {
+                raf.seek(pos);
+                raf.readFully(header, 0, 8);
+                long size = be32(header, 0) & 0xFFFFFFFFL;
+                String type = new String(header, 4, 4, StandardCharsets.ISO_8859_1);
+                int headerSize = 8;
+                if (size == 1) {
+                    raf.readFully(header, 8, 8);
+                    size = be64(header, 8);
+                    headerSize = 16;
+                } else if (size == 0) {
+                    size = length - pos;
+                }
+                if (size < headerSize) return "damaged MP4 box structure";
+
+                if (pos == 0 && !"ftyp".equals(type)) return "not an MP4 container";
+                if ("ftyp".equals(type)) sawFtyp = true;
+                if ("moov".equals(type)) {
+                    if (size > MAX_MOOV || pos + size > length) return "damaged or truncated moov box";
+                    byte[] moov = new byte[(int) size - headerSize];
+                    raf.readFully(moov);
+                    return codecProblem(new String(moov, StandardCharsets.ISO_8859_1));
+                }
+                pos += size;
+            }
+            return sawFtyp ? "no moov box (incomplete download?)" : "not an MP4 container";
+        }
+    }
+
+    /** Looks at the sample entries inside moov; the first recognised codec decides. */
+    private static String codecProblem(String moov) {
+        if (moov.contains("drms")) return "DRM-protected";
+        if (moov.contains("mp4a")) return null;
+        if (moov.contains("alac")) return "Apple Lossless is not supported";
+        if (moov.contains("ac-3") || moov.contains("ec-3")) return "Dolby Digital is not supported";
+        if (moov.contains("Opus")) return "Opus is not supported";
+        if (moov.contains("fLaC")) return "FLAC is not supported";
+        return "no AAC audio track";
+    }
+
+    private static int be32(byte[] b, int i) {
+        return ((b[i] & 0xFF) << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF);
+    }
+
+    private static long be64(byte[] b, int i) {
+        return ((long) be32(b, i) << 32) | (be32(b, i + 4) & 0xFFFFFFFFL);
+    }
+}
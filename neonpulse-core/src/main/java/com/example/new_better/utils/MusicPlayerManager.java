@@ -0,0 +1,610 @@
+
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.AsyncDAO;
+import com.example.new_better.models.Song;
+import com.example.new_better.models.User;
+import com.example.new_better.utils.PlaybackBackend.Track;
+
+import java.util.ArrayList;
+import java.util.Collections; // Import needed for shuffle
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Queue, shuffle/repeat, crossfade and error handling on top of a
+ * PlaybackBackend. The app runs it on JavaFxBackend (installed by MainApp);
+ * tests and benchmarks construct their own on a SimulatedBackend and a seeded
+ * Random, and drive whole listening sessions on its virtual clock.
+ */
+public class MusicPlayerManager {
+
+    private static MusicPlayerManager instance;
+    private static PlaybackBackend defaultBackend;
+
+    private final PlaybackBackend backend;
+    private final Random random;
+    private Track track;
+
+    // 🔥 Added originalQueue to remember order when Shuffle is OFF.
+    // Only kept while shuffle is on (null otherwise) — no second copy of every queue.
+    private List<Song> queue;
+    private List<Song> originalQueue;
+
+    private int currentIndex;
+    private boolean shuffle;
+    private int shuffleNext = -1; // next shuffled index, picked once and reused until played
+    private boolean repeat;
+    private boolean repeatOne;
+    private List<SongChangeListener> listeners;
+
+    /*
+     * ✅ Crossfade (Session.getCrossfadeSeconds() > 0): a cue at "end − N s"
+     * starts the next track at volume 0, and a short-lived backend ticker
+     * ramps both with an equal-power curve. The ramp is clocked by the
+     * incoming track's own position, so it follows pauses and seeks exactly,
+     * and ticks only while a fade is running (25 volume updates/s, nothing else).
+     * Exactly two tracks exist at most; the outgoing one is disposed when the
+     * ramp completes, on its own end of media, or on any manual skip/stop.
+     */
+    private static final double FADE_TICK = 0.04;
+    private Track fadingOut;
+    private PlaybackBackend.Ticker fadeTicker;
+    private double volume = Session.getInstance().getUserVolume();
+
+    // ✅ Loudness normalization: per-track gain factors (LoudnessAnalyzer) for the
+    // current player and, mid-fade, the outgoing one. Applied under the user volume.
+    private double currentGain = 1.0;
+    private double fadingOutGain = 1.0;
+
+    // Playback errors for the user; the UI installs a dialog (see setErrorHandler)
+    private BiConsumer<String, String> errorHandler = (title, message) -> {};
+    // Warnings for the console; tests collect them instead (see setLog)
+    private Consumer<String> log = System.err::println;
+
+    public MusicPlayerManager(PlaybackBackend backend, Random random) {
+        this.backend = backend;
+        this.random = random;
+        queue = new ArrayList<>();
+        originalQueue = null; // Backup list exists only while shuffled
+        currentIndex = -1;
+        shuffle = false;
+        repeat = false;
+        repeatOne = false;
+        listeners = new ArrayList<>();
+    }
+
+    public static MusicPlayerManager getInstance() {
+        if (instance == null) {
+            // A silent fallback would "play" nothing; fail loudly instead
+            if (defaultBackend == null) {
+                throw new IllegalStateException("No playback backend installed (call JavaFxBackend.install() first)");
+            }
+            MusicPlayerManager created = new MusicPlayerManager(defaultBackend, new Random());
+            instance = created;
+            Session.getInstance().addLogoutListener(() -> {
+                created.stop();
+                created.clearQueue();
+            });
+        }
+        return instance;
+    }
+
+    /**
+     * The backend getInstance() builds on; MainApp installs JavaFxBackend before
+     * anything plays. Tests construct their own manager instead.
+     */
+    public static void setDefaultBackend(PlaybackBackend backend) {
+        defaultBackend = backend;
+    }
+
+    /** Drops the shared instance and the default backend, so every test starts from none. */
+    static void reset() {
+        if (instance != null) instance.shutdown();
+        instance = null;
+        defaultBackend = null;
+    }
+
+    // ==========================================================
+    // 🔥 FIXED SHUFFLE LOGIC
+    // ==========================================================
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+
+        Song currentSong = getCurrentSong(); // Remember what is playing right now
+
+        if (shuffle) {
+            // 1. Save the current order so we can restore it later
+            originalQueue = new ArrayList<>(queue);
+
+            // 2. Shuffle the actual playing queue
+            Collections.shuffle(queue, random);
+
+            // 3. Move the currently playing song to the top (or find its new spot)
+            // so playback doesn't skip abruptly.
+            if (currentSong != null) {
+                // Option A: Just find where it went
+                currentIndex = queue.indexOf(currentSong);
+            }
+        } else {
+            // Restore the original order
+            if (originalQueue != null && !originalQueue.isEmpty()) {
+                queue = originalQueue;
+
+                // Find where our current song is in the original list
+                if (currentSong != null) {
+                    currentIndex = queue.indexOf(currentSong);
+                }
+            }
+            originalQueue = null;
+        }
+    }
+
+    // ==========================================================
+    // UPDATED PLAYBACK LOGIC (Simplifies Next/Prev)
+    // ==========================================================
+
+    public void playNext() {
+
+        if (queue.isEmpty()) return;
+
+        // A file that's gone is reported and stepped over, so auto-advance doesn't stall on it
+        for (int attempts = 0; attempts < queue.size(); attempts++) {
+            int next = nextIndex();
+            if (next < 0) {
+                // Handle end of playlist
+                stop();
+                currentIndex = queue.size() - 1;
+                notifyListeners();
+                return;
+            }
+            currentIndex = next;
+            if (startSong(queue.get(currentIndex))) return;
+        }
+    }
+
+    /** Index that follows the current song (shuffle/repeat aware), or -1 at the end of the queue. */
+    private int nextIndex() {
+        // 🔥 FORCE RANDOM LOGIC if shuffle is true
+        if (shuffle) {
+            // ✅ The pick is kept until it plays, so it can be prefetched ahead of time
+            boolean stale = shuffleNext < 0 || shuffleNext >= queue.size()
+                    || (shuffleNext == currentIndex && queue.size() > 1)
+                    || isKnownBad(shuffleNext);
+            if (!stale) return shuffleNext;
+
+            int newIndex = currentIndex;
+
+            // Keep picking a random number until it's different from the current song
+            // (unless there is only 1 song in the list) and not known to be unplayable
+            if (queue.size() > 1) {
+                int attempts = 0;
+                while (newIndex == currentIndex || isKnownBad(newIndex)) {
+                    if (++attempts > queue.size() * 4) return -1; // nothing left that plays
+                    newIndex = random.nextInt(queue.size());
+                }
+            } else {
+                newIndex = 0;
+                if (isKnownBad(0)) return -1;
+            }
+            shuffleNext = newIndex;
+            return newIndex;
+        }
+
+        // Normal sequential logic, stepping over known-bad files (MediaValidator)
+        int next = currentIndex < 0 ? 0 : currentIndex + 1;
+        for (int step = 0; step < queue.size(); step++, next++) {
+            if (next >= queue.size()) {
+                if (!repeat) return -1;
+                next = 0;
+            }
+            if (!isKnownBad(next)) return next;
+        }
+        return -1;
+    }
+
+    private boolean isKnownBad(int index) {
+        return MediaValidator.isKnownBad(queue.get(index).getSongId());
+    }
+
+    public void playPrevious() {
+
+        if (queue.isEmpty()) return;
+
+        int previous = previousIndex();
+        if (previous < 0) return; // nothing before this that plays
+        currentIndex = previous;
+        playSong(queue.get(currentIndex));
+    }
+
+    /**
+     * Index a previous press plays, stepping over known-bad files like nextIndex()
+     * does, or -1 if there is none. At the start of the queue it's the current song.
+     */
+    private int previousIndex() {
+        if (shuffle) {
+            // 🔥 Randomize previous too
+            for (int attempts = 0; attempts < queue.size() * 4; attempts++) {
+                int pick = random.nextInt(queue.size());
+                if (!isKnownBad(pick)) return pick;
+            }
+            return -1;
+        }
+        for (int i = Math.min(currentIndex, queue.size()) - 1; i >= 0; i--) {
+            if (!isKnownBad(i)) return i;
+        }
+        int current = Math.max(currentIndex, 0);
+        return current < queue.size() && !isKnownBad(current) ? current : -1;
+    }
+
+    // ==========================================================
+    // EXISTING FUNCTIONS (Untouched Logic)
+    // ==========================================================
+
+    public void playSong(Song song) {
+        startSong(song);
+    }
+
+    /** Starts loading the song; false if it can't play (known bad, file missing, won't open). */
+    private boolean startSong(Song song) {
+        // ✅ Known-bad files (MediaValidator) fail here instantly, not after a player was built
+        if (MediaValidator.isKnownBad(song.getSongId())) {
+            showError("Can't play this song",
+                    "'" + song.getTitle() + "' is damaged or in a format that can't be played.");
+            return false;
+        }
+        endCrossfade();
+        disposeCurrentTrack();
+        PlaybackTrace.start(song);
+        Track loaded = load(song);
+        if (loaded == null) return false;
+        track = loaded;
+        currentGain = LoudnessAnalyzer.gainFactor(song.getSongId());
+
+        loaded.setOnReady(() -> {
+            loaded.setVolume(playerVolume());
+            loaded.play();
+            PlaybackTrace.mark(PlaybackTrace.Phase.READY);
+            PlaybackTrace.awaitAudible(loaded);
+            currentIndex = queue.indexOf(song);
+            countPlay(song);
+            notifyListeners();
+            armCrossfade(loaded);
+            prepareUpcoming();
+        });
+        return true;
+    }
+
+    /**
+     * A track really started playing: one more play for the logged-in user.
+     * Only here — listeners also hear about queue edits, which aren't plays.
+     */
+    private void countPlay(Song song) {
+        User user = Session.getInstance().getCurrentUser();
+        if (user != null) AsyncDAO.getInstance().incrementPlayCount(user.getUserId(), song.getSongId());
+    }
+
+    /**
+     * Tells the backend which songs a next/previous press would play, so it can
+     * get them ready (JavaFxBackend: prepared Media and files read ahead).
+     * Shuffled "previous" is random, so only next is known.
+     */
+    private void prepareUpcoming() {
+        if (currentIndex < 0 || queue.isEmpty()) return;
+        int previousIndex = shuffle ? -1 : previousIndex();
+        Song previous = previousIndex >= 0 && previousIndex != currentIndex ? queue.get(previousIndex) : null;
+        int next = nextIndex();
+
+        List<Song> upcoming = new ArrayList<>();
+        for (int i = next, n = 0; i >= 0 && n < 3; n++) {
+            upcoming.add(queue.get(i));
+            if (shuffle) break;
+            i = i + 1 < queue.size() ? i + 1 : repeat ? 0 : -1;
+            if (i == currentIndex) break;
+        }
+        backend.prepare(upcoming, previous);
+    }
+
+    /** Loads the song into a track (not started), or shows an error and returns null. */
+    private Track load(Song song) {
+        try {
+            Track loaded = backend.load(song);
+
+            if (loaded == null) {
+                // Bulk-check the library: moved files get relinked, gone ones hidden
+                LibraryReconciler.requestRun();
+                showError("Song file not found",
+                        "'" + song.getTitle() + "' could not be found.\n" +
+                                "Expected at: " + SongFolderImporter.resolveFile(song.getFilePath()).getAbsolutePath());
+                return null;
+            }
+
+            loaded.setOnEndOfMedia(() -> {
+                if (loaded == fadingOut) {
+                    endCrossfade(); // faded out before the ramp finished
+                } else if (loaded != track) {
+                    return;
+                } else if (repeatOne) {
+                    loaded.seek(0);
+                    loaded.play();
+                    countPlay(song);
+                } else {
+                    playNext();
+                }
+            });
+
+            loaded.setOnError(failure -> {
+                // A file that won't decode is remembered so shuffle/auto-advance never
+                // lands here again; a locked or unavailable one may play next time.
+                // Either way the music keeps going instead of stalling on this track.
+                if (failure.permanent()) markUnplayable(song, failure.message());
+                else log.accept("⚠️ Could not play " + song.getTitle() + " right now: " + failure.message());
+                if (loaded == fadingOut) {
+                    endCrossfade();
+                } else if (loaded == track) {
+                    showError("Playback Error", "Could not play: " + song.getTitle());
+                    playNext();
+                }
+            });
+            return loaded;
+
+        } catch (PlaybackBackend.UnplayableException e) {
+            // e.g. an unsupported container: this file will never play
+            markUnplayable(song, e.getMessage());
+            showError("Playback Error", "'" + song.getTitle() + "' is damaged or in a format that can't be played.");
+            return null;
+        } catch (Exception e) {
+            // Locked, busy or briefly unavailable: not remembered, the next attempt may work
+            e.printStackTrace();
+            showError("Playback Error", "Unexpected error playing: " + song.getTitle());
+            return null;
+        }
+    }
+
+    // ==========================================================
+    // CROSSFADE
+    // ==========================================================
+
+    /** Places the fade-start cue once the track knows its duration. */
+    private void armCrossfade(Track armed) {
+        double seconds = Session.getInstance().getCrossfadeSeconds();
+        double total = armed.duration();
+        // Tracks shorter than two fades just cut, as before
+        if (seconds <= 0 || Double.isNaN(total) || total < seconds * 2) return;
+
+        armed.cueAt(total - seconds, () -> {
+            if (armed == track && fadingOut == null) startCrossfade(seconds);
+        });
+    }
+
+    private void startCrossfade(double seconds) {
+        // Repeat-one loops the same track seamlessly; the end of the queue just ends
+        if (repeatOne) return;
+        int next = nextIndex();
+        if (next < 0) return;
+
+        Song nextSong = queue.get(next);
+        Track incoming = load(nextSong);
+        if (incoming == null) return; // outgoing plays out and playNext() handles it
+
+        fadingOut = track;
+        fadingOutGain = currentGain;
+        track = incoming;
+        currentGain = LoudnessAnalyzer.gainFactor(nextSong.getSongId());
+        currentIndex = next;
+
+        incoming.setOnReady(() -> {
+            if (incoming != track) return; // skipped while loading
+            incoming.setVolume(0);
+            incoming.play();
+            countPlay(nextSong);
+            notifyListeners();
+            armCrossfade(incoming);
+            prepareUpcoming();
+
+            fadeTicker = backend.every(FADE_TICK, () -> {
+                double t = Math.min(1, incoming.position() / seconds);
+                incoming.setVolume(playerVolume() * Math.sin(t * Math.PI / 2));
+                if (fadingOut != null) {
+                    fadingOut.setVolume(Math.min(1.0, volume * fadingOutGain) * Math.cos(t * Math.PI / 2));
+                }
+                if (t >= 1) endCrossfade();
+            });
+        });
+    }
+
+    /** Finishes or cancels a running fade: the outgoing track is released, the current one restored to full volume. */
+    private void endCrossfade() {
+        if (fadeTicker != null) {
+            fadeTicker.cancel();
+            fadeTicker = null;
+        }
+        if (fadingOut != null) {
+            try {
+                fadingOut.stop();
+                fadingOut.dispose();
+            } catch (Exception ignored) {}
+            fadingOut = null;
+            if (track != null) track.setVolume(playerVolume());
+        }
+    }
+
+    public boolean isCrossfading() {
+        return fadingOut != null;
+    }
+
+    private void disposeCurrentTrack() {
+        if (track != null) {
+            try {
+                track.stop();
+                track.dispose();
+            } catch (Exception ignored) {}
+            track = null;
+        }
+    }
+
+    public void playFromQueue(int index) {
+        if (index >= 0 && index < queue.size()) {
+            currentIndex = index;
+            playSong(queue.get(currentIndex));
+        }
+    }
+
+    public void playPause() {
+        if (track == null) return;
+        boolean pause = track.isPlaying();
+        if (pause) track.pause();
+        else track.play();
+        // Mid-fade both tracks pause together (the ramp is clocked by the incoming one)
+        if (fadingOut != null) {
+            if (pause) fadingOut.pause();
+            else fadingOut.play();
+        }
+    }
+
+    public void stop() {
+        endCrossfade();
+        if (track != null) track.stop();
+    }
+
+    public void seek(double seconds) {
+        if (track != null) track.seek(seconds);
+    }
+
+    /** Current track's position in seconds, or 0 with nothing loaded. */
+    public double getPosition() {
+        return track != null ? track.position() : 0;
+    }
+
+    /** Current track's length in seconds; NaN until it's ready or with nothing loaded. */
+    public double getDuration() {
+        return track != null ? track.duration() : Double.NaN;
+    }
+
+    /** User volume; kept across tracks (new players start at it) and applied under any running fade. */
+    public void setVolume(double volume) {
+        this.volume = volume;
+        Session.getInstance().setUserVolume(volume);
+        if (track != null && fadingOut == null) track.setVolume(playerVolume());
+    }
+
+    /**
+     * User volume × the current track's gain. Backends cap volume at 1.0, so
+     * quiet tracks are lifted only as far as the user's volume leaves headroom.
+     */
+    private double playerVolume() {
+        return Math.min(1.0, volume * currentGain);
+    }
+
+
+    public void setQueue(List<Song> songs) {
+        queue.clear();
+        queue.addAll(songs);
+        // If setting new queue, assume it is the "original" order initially
+        originalQueue = shuffle ? new ArrayList<>(songs) : null;
+
+        currentIndex = -1;
+        notifyListeners();
+    }
+
+    public void removeFromQueue(Song song) {
+        int index = queue.indexOf(song);
+        if (index != -1) {
+            queue.remove(index);
+            if (originalQueue != null) originalQueue.remove(song);
+
+            if (index < currentIndex) {
+                currentIndex--;
+            } else if (index == currentIndex) {
+                if (!queue.isEmpty()) {
+                    currentIndex = Math.min(currentIndex, queue.size() - 1);
+                    playSong(queue.get(currentIndex));
+                } else {
+                    currentIndex = -1;
+                    stop();
+                }
+            }
+        }
+    }
+
+    public void clearQueue() {
+        queue.clear();
+        if (originalQueue != null) originalQueue.clear();
+        currentIndex = -1;
+        stop();
+        notifyListeners();
+    }
+
+    /** Read-only view of the live queue (callers used to get a full copy each time). */
+    public List<Song> getQueue() {
+        return Collections.unmodifiableList(queue);
+    }
+
+    public Song getCurrentSong() {
+        if (currentIndex >= 0 && currentIndex < queue.size()) {
+            return queue.get(currentIndex);
+        }
+        return null;
+    }
+
+    /** The playing (or loading) track; the UI unwraps JavaFxBackend tracks to their MediaPlayer. */
+    public Track getCurrentTrack() { return track; }
+
+    public boolean isPlaying() {
+        Track current = track;
+        return current != null && current.isPlaying();
+    }
+    public boolean isShuffle() { return shuffle; }
+    public boolean isRepeat() { return repeat; }
+    public void setRepeat(boolean repeat) { this.repeat = repeat; }
+    public boolean isRepeatOne() { return repeatOne; }
+    public void setRepeatOne(boolean repeatOne) { this.repeatOne = repeatOne; }
+
+    public void addListener(SongChangeListener listener) { listeners.add(listener); }
+    public void removeListener(SongChangeListener listener) { listeners.remove(listener); }
+
+    private void notifyListeners() {
+        for (SongChangeListener listener : listeners) {
+            listener.onSongChanged(getCurrentSong());
+        }
+    }
+
+    public void shutdown() {
+        endCrossfade();
+        disposeCurrentTrack();
+        queue.clear();
+        listeners.clear();
+    }
+
+    private void showError(String title, String message) {
+        log.accept("⚠️ " + title + ": " + message.replace('\n', ' '));
+        errorHandler.accept(title, message);
+    }
+
+    private void markUnplayable(Song song, String reason) {
+        if (MediaValidator.markUnplayable(song, reason)) {
+            log.accept("⚠️ Marking unplayable: " + song.getTitle() + " (" + reason + ")");
+        }
+    }
+
+    /** Receives the player's console warnings (default: stderr). */
+    public void setLog(Consumer<String> log) {
+        this.log = log;
+    }
+
+    /** Receives (title, message) for errors the user should see; called on the backend's event thread. */
+    public void setErrorHandler(BiConsumer<String, String> handler) {
+        errorHandler = handler;
+    }
+
+    public interface SongChangeListener {
+        void onSongChanged(Song song);
+    }
+    public void addToQueue(Song song) {
+        queue.add(song);
+        if (originalQueue != null) originalQueue.add(song); // Keep backup synced
+        notifyListeners(); // 🔥 ADDED: refreshes queue panel automatically
+    }
+}
\ No newline at end of file
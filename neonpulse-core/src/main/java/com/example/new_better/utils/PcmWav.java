@@ -0,0 +1,128 @@
+package com.example.new_better.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for uncompressed WAV (PCM 8/16/24/32-bit, 32-bit float,
+ * WAVE_FORMAT_EXTENSIBLE). Walks the RIFF chunks up to "data" and then hands
+ * out interleaved samples in [-1, 1] through a fixed 64 KB buffer, so any file
+ * size costs the same memory. Used by LoudnessAnalyzer and WaveformCache.
+ */
+final class PcmWav {
+
+    final int channels;
+    final int sampleRate;
+    final int bits;
+    final boolean floats;
+    final long dataSize;   // bytes of sample data
+    final int frameSize;   // bytes per frame (all channels)
+
+    private final InputStream in;
+    private final byte[] buf;
+    private long remaining;
+    private int pos, limit; // unread bytes are buf[pos, limit)
+
+    private PcmWav(InputStream in, int channels, int sampleRate, int bits, boolean floats, long dataSize) {
+        this.in = in;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.bits = bits;
+        this.floats = floats;
+        this.dataSize = dataSize;
+        this.frameSize = (bits / 8) * channels;
+        this.buf = new byte[Math.max(1, 64 * 1024 / frameSize) * frameSize];
+        this.remaining = dataSize;
+    }
+
+    /** Positions the stream at the sample data, or returns null if this isn't a WAV we can decode. */
+    static PcmWav open(InputStream in) throws IOException {
+        byte[] riff = in.readNBytes(12);
+        if (riff.length < 12 || !"RIFF".equals(ascii(riff, 0)) || !"WAVE".equals(ascii(riff, 8))) return null;
+
+        int format = 0, channels = 0, sampleRate = 0, bits = 0;
+        byte[] chunkHeader = new byte[8];
+        while (in.readNBytes(chunkHeader, 0, 8) == 8) {
+            String id = ascii(chunkHeader, 0);
+            long chunkSize = le32(chunkHeader, 4) & 0xFFFFFFFFL;
+
+            if ("fmt ".equals(id)) {
+                byte[] fmt = in.readNBytes((int) chunkSize);
+                if (fmt.length < 16) return null;
+                format     = le16(fmt, 0);
+                channels   = le16(fmt, 2);
+                sampleRate = le32(fmt, 4);
+                bits       = le16(fmt, 14);
+                if (format == 0xFFFE && fmt.length >= 26) format = le16(fmt, 24); // WAVE_FORMAT_EXTENSIBLE
+                if ((chunkSize & 1) == 1) in.skipNBytes(1);
+            } else if ("data".equals(id)) {
+                boolean pcm = format == 1 && (bits == 8 || bits == 16 || bits == 24 || bits == 32);
+                boolean floats = format == 3 && bits == 32;
+                if ((!pcm && !floats) || channels < 1 || channels > 8 || sampleRate < 8000) return null;
+                return new PcmWav(in, channels, sampleRate, bits, floats, chunkSize);
+            } else {
+                in.skipNBytes(chunkSize + (chunkSize & 1));
+            }
+        }
+        return null;
+    }
+
+    long totalFrames() {
+        return dataSize / frameSize;
+    }
+
+    /**
+     * Fills {@code out} with interleaved samples of whole frames and returns the
+     * number of frames read, or 0 at the end of the data.
+     */
+    int readFrames(double[] out) throws IOException {
+        int maxFrames = Math.min(out.length / channels, buf.length / frameSize);
+        int bytesPerSample = bits / 8;
+
+        // Refill once less than a whole frame is left over from the last call
+        if (limit - pos < frameSize) {
+            int left = limit - pos;
+            System.arraycopy(buf, pos, buf, 0, left);
+            pos = 0;
+            limit = left;
+            while (limit < buf.length && remaining > 0) {
+                int n = in.read(buf, limit, (int) Math.min(buf.length - limit, remaining));
+                if (n <= 0) {
+                    remaining = 0;
+                    break;
+                }
+                remaining -= n;
+                limit += n;
+            }
+        }
+        int frames = Math.min((limit - pos) / frameSize, maxFrames);
+        int samples = frames * channels;
+        for (int i = 0; i < samples; i++) {
+            out[i] = sample(buf, pos + i * bytesPerSample);
+        }
+        pos += frames * frameSize;
+        return frames;
+    }
+
+    private double sample(byte[] b, int i) {
+        return switch (bits) {
+            case 8  -> ((b[i] & 0xFF) - 128) / 128.0;
+            case 16 -> (short) ((b[i] & 0xFF) | (b[i + 1] << 8)) / 32768.0;
+            case 24 -> ((b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | (b[i + 2] << 16)) / 8388608.0;
+            default -> floats ? Float.intBitsToFloat(le32(b, i)) : le32(b, i) / 2147483648.0;
+        };
+    }
+
+    private static String ascii(byte[] b, int offset) {
+        return new String(b, offset, 4, StandardCharsets.US_ASCII);
+    }
+
+    private static int le16(byte[] b, int i) {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8);
+    }
+
+    private static int le32(byte[] b, int i) {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | (b[i + 3] << 24);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.new_better.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timings of the work behind the library views: sort keys, facet and fuzzy
+ * indexes, Media loads, page builds and switches.
+ *
+ * Every operation's count, last and slowest time are kept for the diagnostics
+ * on the profile page (summary()). The per-operation console lines used to be
+ * printed on every keystroke, sort and click; they are now off unless the app
+ * is started with -Dneonpulse.perf=true.
+ */
+public final class PerfStats {
+
+    /** The one debug switch for per-operation timing lines (and PlaybackTrace's). */
+    public static final boolean LOG = Boolean.getBoolean("neonpulse.perf");
+
+    // Operation → {count, last ms, max ms}, in first-seen order
+    private static final Map<String, double[]> stats = new LinkedHashMap<>();
+
+    private PerfStats() {}
+
+    /** Records one run of {@code operation} that started at {@code startNanos}; returns its ms. */
+    public static double record(String operation, long startNanos) {
+        double millis = (System.nanoTime() - startNanos) / 1_000_000.0;
+        synchronized (PerfStats.class) {
+            double[] s = stats.computeIfAbsent(operation, k -> new double[3]);
+            s[0]++;
+            s[1] = millis;
+            s[2] = Math.max(s[2], millis);
+        }
+        return millis;
+    }
+
+    /** printf to stdout, only with -Dneonpulse.perf=true. */
+    public static void log(String format, Object... args) {
+        if (LOG) System.out.printf(format, args);
+    }
+
+    /** One line per operation: runs, last and slowest time. */
+    public static synchronized String summary() {
+        if (stats.isEmpty()) return "Nothing measured yet.";
+        StringBuilder out = new StringBuilder("Operation            n    last     max");
+        stats.forEach((operation, s) -> out.append(String.format("%n%-14s %7d %5.0f ms %5.0f ms",
+                operation, (long) s[0], s[1], s[2])));
+        return out.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The audio engine MusicPlayerManager drives, with no JavaFX in its API so
+ * the core module can name it and a headless build can supply its own.
+ *
+ * Implementations: JavaFxBackend (ui module, MediaPlayer) and
+ * SimulatedBackend (a virtual clock, for tests and benchmarks).
+ *
+ * ARCHITECTURAL NOTES:
+ *
+ * 1. [ONE TRACK PER SONG START] load() hands back a Track for one song; the
+ *    manager plays, seeks and finally disposes it. Two Tracks are alive at
+ *    once only during a crossfade.
+ *
+ * 2. [EVENT THREAD] Every callback (ready, end of media, error, cue, tick)
+ *    arrives on the backend's event thread — the FX thread for the JavaFX
+ *    backend — and all Track methods are called from that same thread.
+ *    Callbacks never fire from inside the call that registered them.
+ *
+ * 3. [TIME IN SECONDS] Positions and durations are plain seconds; duration()
+ *    is NaN until the track is ready.
+ *
+ * 4. [PERMANENT VS TRANSIENT] Errors say whether the file itself can't be
+ *    decoded (corrupt, unsupported format) or just couldn't be played right now
+ *    (locked, unavailable). Only permanent ones are remembered by MediaValidator.
+ */
+public interface PlaybackBackend {
+
+    /**
+     * Prepares the song for playback, or returns null if its file can't be
+     * found. Throws UnplayableException if the file can't be decoded; any other
+     * exception is taken as transient.
+     */
+    Track load(Song song);
+
+    /** Runs {@code tick} every {@code intervalSeconds} on the event thread until cancelled. */
+    Ticker every(double intervalSeconds, Runnable tick);
+
+    /**
+     * Hint: the songs next would play (nearest first) and the one previous
+     * would play (or null). Backends may get them ready ahead of time.
+     */
+    default void prepare(List<Song> upcoming, Song previous) {}
+
+    interface Track {
+        void play();
+        void pause();
+        void stop();
+        void dispose();
+        void seek(double seconds);
+
+        double position();
+        double duration();
+        boolean isPlaying();
+        void setVolume(double volume);
+
+        void setOnReady(Runnable action);
+        void setOnEndOfMedia(Runnable action);
+        void setOnError(Consumer<Failure> action);
+
+        /** Runs {@code action} once the position first moves after play(): sound is coming out. */
+        void setOnAudible(Runnable action);
+
+        /** Runs {@code action} whenever playback passes {@code seconds}; a new cue replaces the old one. */
+        void cueAt(double seconds, Runnable action);
+    }
+
+    interface Ticker {
+        void cancel();
+    }
+
+    /** Why a track failed; {@code permanent} when the file itself won't decode. */
+    record Failure(String message, boolean permanent) {}
+
+    /** Thrown by load() when the file is there but its format or contents can't be decoded. */
+    class UnplayableException extends RuntimeException {
+        public UnplayableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
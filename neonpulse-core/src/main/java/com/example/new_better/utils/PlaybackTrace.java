@@ -0,0 +1,137 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.util.Arrays;
+
+/**
+ * Click-to-sound latency for playback starts.
+ *
+ * A trace begins at the click (begin() in the controllers; starts nobody
+ * clicked for — auto-advance — are traced as "auto") and is stamped as the
+ * start moves through MusicPlayerManager:
+ *
+ *   RESOLVE  file path resolved and checked (the backend, e.g. MediaCache)
+ *   MEDIA    Media built or taken from the cache
+ *   READY    the track's onReady, play() issued
+ *   AUDIBLE  first advance of its position, i.e. audio is actually coming out
+ *
+ * Each phase's time since the click goes into a quarter-octave histogram
+ * (~19% resolution, 1 ms to ~55 s) and every completed start is logged with
+ * its per-phase breakdown (with -Dneonpulse.perf=true, see PerfStats). summary() feeds the diagnostics on the profile page.
+ * A newer click supersedes an unfinished trace; it is dropped, not recorded.
+ */
+public final class PlaybackTrace {
+
+    public enum Phase { RESOLVE, MEDIA, READY, AUDIBLE }
+
+    private static final int BUCKETS = 64;
+    private static final long CLICK_TIMEOUT_NANOS = 2_000_000_000L; // older clicks didn't start anything
+    private static final Phase[] PHASES = Phase.values();
+    private static final long[][] histogram = new long[PHASES.length][BUCKETS];
+    private static final long[] count = new long[PHASES.length];
+
+    // Current trace; all access synchronized on the class
+    private static int traceId;
+    private static String source;
+    private static String songTitle;
+    private static long clickNanos;
+    private static boolean started;
+    private static final long[] marks = new long[PHASES.length];
+
+    private PlaybackTrace() {}
+
+    /** A user action that will start playback; called before MusicPlayerManager is asked. */
+    public static synchronized void begin(String from) {
+        traceId++;
+        source = from;
+        songTitle = null;
+        clickNanos = System.nanoTime();
+        started = false;
+        Arrays.fill(marks, 0);
+    }
+
+    /** MusicPlayerManager is starting this song; picks up the pending click or traces it as auto. */
+    static synchronized void start(Song song) {
+        if (started || source == null || System.nanoTime() - clickNanos > CLICK_TIMEOUT_NANOS) begin("auto");
+        started = true;
+        songTitle = song.getTitle();
+    }
+
+    /** Stamps a phase of the current start; backends call this for RESOLVE and MEDIA. */
+    public static synchronized void mark(Phase phase) {
+        if (started && marks[phase.ordinal()] == 0) marks[phase.ordinal()] = System.nanoTime();
+    }
+
+    /** Marks AUDIBLE (and completes the trace) once this track's position first moves. */
+    static void awaitAudible(PlaybackBackend.Track track) {
+        int id;
+        synchronized (PlaybackTrace.class) {
+            if (!started) return;
+            id = traceId;
+        }
+        track.setOnAudible(() -> finish(id));
+    }
+
+    private static synchronized void finish(int id) {
+        if (id != traceId || !started) return; // superseded by a newer click
+        marks[Phase.AUDIBLE.ordinal()] = System.nanoTime();
+
+        StringBuilder line = new StringBuilder();
+        long previous = clickNanos;
+        for (Phase phase : PHASES) {
+            long at = marks[phase.ordinal()];
+            if (at == 0) continue;
+            record(phase, (at - clickNanos) / 1e6);
+            line.append(String.format(" %s +%.1f", phase.name().toLowerCase(), (at - previous) / 1e6));
+            previous = at;
+        }
+        PerfStats.log("⏱️ Play [%s] %s: %.1f ms to sound |%s ms%n", source, songTitle,
+                (marks[Phase.AUDIBLE.ordinal()] - clickNanos) / 1e6, line);
+        started = false;
+        source = null;
+    }
+
+    /** Drops the current trace and every recorded sample, so every test starts clean. */
+    static synchronized void reset() {
+        traceId++;
+        source = null;
+        songTitle = null;
+        started = false;
+        Arrays.fill(marks, 0);
+        for (long[] buckets : histogram) Arrays.fill(buckets, 0);
+        Arrays.fill(count, 0);
+    }
+
+    // ─── Histogram ───────────────────────────────────────────────────────────
+
+    private static void record(Phase phase, double millis) {
+        int bucket = millis <= 1 ? 0 : (int) Math.min(BUCKETS - 1, Math.ceil(4 * Math.log(millis) / Math.log(2)));
+        histogram[phase.ordinal()][bucket]++;
+        count[phase.ordinal()]++;
+    }
+
+    /** Upper bound (ms) of the bucket holding the given percentile, or -1 with no samples. */
+    static synchronized double percentile(Phase phase, double pct) {
+        long n = count[phase.ordinal()];
+        if (n == 0) return -1;
+        long rank = Math.max(1, (long) Math.ceil(n * pct / 100));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram[phase.ordinal()][b];
+            if (seen >= rank) return Math.pow(2, b / 4.0);
+        }
+        return Math.pow(2, (BUCKETS - 1) / 4.0);
+    }
+
+    /** One line per phase: samples, p50, p95 and p99 time since the click. */
+    public static synchronized String summary() {
+        if (count[Phase.AUDIBLE.ordinal()] == 0) return "No playback starts measured yet.";
+        StringBuilder out = new StringBuilder("Click to …       n     p50     p95     p99");
+        for (Phase phase : PHASES) {
+            out.append(String.format("%n%-10s %7d %5.0f ms %5.0f ms %5.0f ms", phase.name().toLowerCase(),
+                    count[phase.ordinal()], percentile(phase, 50), percentile(phase, 95), percentile(phase, 99)));
+        }
+        return out.toString();
+    }
+}
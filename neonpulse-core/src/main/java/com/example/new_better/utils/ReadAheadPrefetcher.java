@@ -0,0 +1,184 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads upcoming queue items ahead of playback so MediaPlayer finds them in
+ * the OS page cache instead of waiting on a cold spinning disk or network
+ * share for the first seconds of the track.
+ *
+ * ARCHITECTURAL NOTES:
+ *
+ * 1. [PAGE CACHE, NOT HEAP] Files are streamed through one reused 256 KB
+ *    direct buffer and the bytes are thrown away — the kernel keeps them. No
+ *    audio is held in the JVM, so a long queue costs nothing on the heap.
+ *
+ * 2. [ADAPTIVE] Read throughput is tracked as a moving average. On fast disks
+ *    only the next track's head is touched; the slower the storage, the more
+ *    tracks ahead are read (whole next track, heads of the ones after).
+ *    Only cold bytes are timed: files (and heads) already read ahead or
+ *    played are remembered, and reading resumes past what is already cached.
+ *    A re-read from the page cache would look like a very fast disk and
+ *    shrink the read-ahead depth to one track.
+ *
+ * 3. [CANCELLABLE] Each schedule() bumps a generation; the I/O thread checks it
+ *    between chunks, so skipping around never leaves it reading stale plans.
+ *    The thread is a MIN_PRIORITY daemon.
+ *
+ * 4. [STATS] onPlaybackStart() classifies each start of a song from the
+ *    latest plan as a hit (fully read ahead), partial, or miss, and logs the
+ *    running hit rate. A click on a song that was never queued up is none of
+ *    these: there was nothing to predict.
+ */
+public final class ReadAheadPrefetcher {
+
+    private static final int CHUNK = 256 * 1024;
+    private static final long HEAD_BYTES = 4L << 20;       // start of later tracks
+    private static final long MAX_WHOLE_FILE = 64L << 20;  // bigger next tracks: head only
+    private static final double FAST_BYTES_PER_SEC = 150e6;
+    private static final double SLOW_BYTES_PER_SEC = 30e6;
+    private static final int REMEMBERED = 32;
+    private static final int WARM_REMEMBERED = 256;
+
+    private static ReadAheadPrefetcher instance;
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "prefetch");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final AtomicInteger generation = new AtomicInteger();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK); // I/O thread only
+
+    // Path → bytes read ahead / whether that was everything we meant to read
+    private final Map<String, long[]> prefetched = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            return size() > REMEMBERED;
+        }
+    };
+    // Path → bytes from the start known to be in the page cache (read ahead or played)
+    private final Map<String, Long> warm = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > WARM_REMEMBERED;
+        }
+    };
+    private Set<Integer> planned = Set.of(); // song ids of the latest plan
+    private volatile double bytesPerSecond = SLOW_BYTES_PER_SEC; // until measured
+    private int hits, partials, misses;
+
+    private ReadAheadPrefetcher() {}
+
+    public static synchronized ReadAheadPrefetcher getInstance() {
+        if (instance == null) instance = new ReadAheadPrefetcher();
+        return instance;
+    }
+
+    /** Replaces the read-ahead plan with these upcoming songs, nearest first. */
+    public void schedule(List<Song> upcoming) {
+        int gen = generation.incrementAndGet();
+        List<Song> plan = new ArrayList<>(upcoming);
+        Set<Integer> ids = new HashSet<>();
+        for (Song song : plan) ids.add(song.getSongId());
+        synchronized (this) {
+            planned = ids;
+        }
+        io.execute(() -> run(gen, plan));
+    }
+
+    /** Records whether the song that's starting now was read ahead. */
+    public void onPlaybackStart(Song song) {
+        File file = SongFolderImporter.resolveFile(song.getFilePath());
+        String path = file.getAbsolutePath();
+        String outcome;
+        synchronized (this) {
+            long[] state = prefetched.remove(path);
+            warm.put(path, file.length()); // the player reads all of it
+            if (state == null && !planned.contains(song.getSongId())) outcome = "unplanned";
+            else if (state == null) { misses++; outcome = "miss"; }
+            else if (state[1] == 1) { hits++; outcome = "hit"; }
+            else { partials++; outcome = "partial"; }
+        }
+        PerfStats.log("📦 Prefetch %s for %s (%s)%n", outcome, song.getTitle(), stats());
+    }
+
+    public synchronized String stats() {
+        int starts = hits + partials + misses;
+        return String.format("%d%% hits, %d partial, %d misses, %.0f MB/s",
+                starts == 0 ? 0 : hits * 100 / starts, partials, misses, bytesPerSecond / 1e6);
+    }
+
+    // ─── I/O thread ──────────────────────────────────────────────────────────
+
+    private void run(int gen, List<Song> plan) {
+        double speed = bytesPerSecond;
+        int depth = speed >= FAST_BYTES_PER_SEC ? 1 : speed >= SLOW_BYTES_PER_SEC ? 2 : 3;
+
+        for (int i = 0; i < plan.size() && i < depth; i++) {
+            if (generation.get() != gen) return;
+            File file = SongFolderImporter.resolveFile(plan.get(i).getFilePath());
+            if (!file.isFile()) continue;
+
+            long size = file.length();
+            // Next track: all of it on slow storage; everything else: just the head
+            boolean whole = i == 0 && speed < FAST_BYTES_PER_SEC && size <= MAX_WHOLE_FILE;
+            long target = whole ? size : Math.min(size, HEAD_BYTES);
+
+            String path = file.getAbsolutePath();
+            long cached;
+            synchronized (this) {
+                cached = Math.min(warm.getOrDefault(path, 0L), target);
+            }
+            // Only the part that isn't cached yet is read (and timed)
+            long read = cached >= target ? cached : cached + readAhead(gen, file, cached, target);
+            synchronized (this) {
+                prefetched.put(path, new long[]{read, read >= target ? 1 : 0});
+                if (read > warm.getOrDefault(path, 0L)) warm.put(path, read);
+            }
+        }
+    }
+
+    /**
+     * Reads bytes {@code from}..{@code target} of the file; returns how many were
+     * read before cancel/error. The bytes before {@code from} are already cached.
+     */
+    private long readAhead(int gen, File file, long from, long target) {
+        long read = 0;
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (from + read < target && generation.get() == gen) {
+                buffer.clear();
+                if (target - from - read < CHUNK) buffer.limit((int) (target - from - read));
+                int n = channel.read(buffer, from + read);
+                if (n <= 0) break;
+                read += n;
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Prefetch failed for " + file.getName() + ": " + e.getMessage());
+        }
+
+        // Ignore tiny reads; they measure syscall overhead, not the disk
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (read >= CHUNK && seconds > 0) {
+            bytesPerSecond = 0.7 * bytesPerSecond + 0.3 * (read / seconds);
+        }
+        return read;
+    }
+}
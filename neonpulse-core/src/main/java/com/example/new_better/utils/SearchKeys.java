@@ -0,0 +1,68 @@
+package com.example.new_better.utils;
+
+import java.text.Normalizer;
+
+/**
+ * The one normalization every search path uses, so "cafe" finds "Café",
+ * "CAFÉ" and "café" alike — in SQL (songs.search_key) and in memory
+ * (FacetIndex, FuzzySearchIndex):
+ *
+ *   1. NFKD: "é" → "e" + combining accent, ligatures/fullwidth forms → plain letters
+ *   2. accents stripped (combining marks dropped)
+ *   3. case folded per character (Character.toLowerCase, which ignores the
+ *      default locale, so no Turkish dotless i), plus ß → ss
+ *   4. punctuation and whitespace collapsed to single spaces, trimmed
+ *
+ * Keys are computed once — at import for the stored column, at index build
+ * for the in-memory indexes — so a keystroke only normalizes the query.
+ */
+public final class SearchKeys {
+
+    private SearchKeys() {}
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+
+        // Plain ASCII (most titles) skips the Normalizer entirely
+        String decomposed = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+                break;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true; // drops leading separators
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                    || type == Character.ENCLOSING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (c == 'ß' || c == 'ẞ') {
+                    sb.append("ss");
+                } else {
+                    sb.append(Character.toLowerCase(c));
+                }
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    /**
+     * A "contains" LIKE pattern for search_key columns. Normalizing already
+     * turned '%', '_' and '\' into separators, so the query needs no escaping.
+     */
+    public static String likePattern(String query) {
+        return "%" + normalize(query) + "%";
+    }
+}
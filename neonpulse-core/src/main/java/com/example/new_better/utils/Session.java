@@ -2,12 +2,17 @@ package com.example.new_better.utils;
 
 import com.example.new_better.models.User;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class Session {
     private static Session instance;
     private User currentUser;
 
     // 🔥 New field for iOS-level state persistence
     private double userVolume = 0.5; // Default to 50% volume
+    private double crossfadeSeconds = 0; // Off by default: tracks cut as before
+    private final List<Runnable> logoutListeners = new ArrayList<>();
 
     private Session() {}
 
@@ -32,9 +37,15 @@ public class Session {
     }
 
     public void logout() {
+        // Push any coalesced like/unlike clicks before forgetting the user
+        LikedSongsStore.getInstance().reset();
         currentUser = null;
-        MusicPlayerManager.getInstance().stop();
-        MusicPlayerManager.getInstance().clearQueue();
+        for (Runnable listener : logoutListeners) listener.run();
+    }
+
+    /** Run after the user is cleared, e.g. MusicPlayerManager stopping playback. */
+    public void addLogoutListener(Runnable listener) {
+        logoutListeners.add(listener);
     }
 
     // --- 🔥 NEW: Volume Management Methods ---
@@ -52,4 +63,15 @@ public class Session {
     public void setUserVolume(double userVolume) {
         this.userVolume = userVolume;
     }
+
+    /**
+     * Seconds the next track fades in over the end of the current one (0 = off).
+     */
+    public double getCrossfadeSeconds() {
+        return crossfadeSeconds;
+    }
+
+    public void setCrossfadeSeconds(double crossfadeSeconds) {
+        this.crossfadeSeconds = Math.max(0, crossfadeSeconds);
+    }
 }
\ No newline at end of file
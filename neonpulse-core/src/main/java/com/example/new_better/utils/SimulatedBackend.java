@@ -0,0 +1,302 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A PlaybackBackend with no audio and no threads: tracks "play" against a
+ * virtual clock that only moves when advance() is called, so a whole
+ * listening session (queue, shuffle, repeat, crossfades, broken files)
+ * replays deterministically in milliseconds.
+ *
+ * ARCHITECTURAL NOTES:
+ *
+ * 1. [EVENT QUEUE] Ready, end of media, cues, audible and ticker callbacks
+ *    are timed events in one priority queue, ordered by virtual time and
+ *    then by scheduling order. advance() runs them on the caller's thread —
+ *    that thread is this backend's event thread.
+ *
+ * 2. [RESCHEDULE ON CHANGE] A track's pending events carry its epoch; play,
+ *    pause, seek and stop bump the epoch and schedule fresh ones, so stale
+ *    events are skipped instead of removed.
+ *
+ * 3. [FAULTS] setMissing() makes load() return null (file gone);
+ *    setBroken() makes the track report a permanent (decode) error instead of
+ *    becoming ready, setUnavailable() a transient one (file locked, busy).
+ *    setLoadDelay() models how long a track takes to get ready.
+ *
+ * 4. [DURATION] A track lasts its song's duration, or DEFAULT_DURATION when
+ *    the catalog doesn't know it.
+ */
+public final class SimulatedBackend implements PlaybackBackend {
+
+    public static final double DEFAULT_DURATION = 180;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final Set<Integer> missing = new HashSet<>();
+    private final Set<Integer> broken = new HashSet<>();
+    private final Set<Integer> unavailable = new HashSet<>();
+    private double now;
+    private long sequence;
+    private double loadDelay;
+    private long eventsRun;
+    private int loads;
+
+    private record Event(double at, long seq, SimTrack track, int epoch, Runnable action)
+            implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Double.compare(at, other.at);
+            return byTime != 0 ? byTime : Long.compare(seq, other.seq);
+        }
+    }
+
+    // ─── Clock ───────────────────────────────────────────────────────────────
+
+    /** Virtual seconds since this backend was created. */
+    public double now() {
+        return now;
+    }
+
+    /** Moves the clock forward by {@code seconds}, running every event due on the way. */
+    public void advance(double seconds) {
+        double until = now + seconds;
+        while (!events.isEmpty() && events.peek().at <= until) {
+            Event event = events.poll();
+            now = Math.max(now, event.at);
+            if (event.track != null && event.epoch != event.track.epoch) continue; // superseded
+            eventsRun++;
+            event.action.run();
+        }
+        now = until;
+    }
+
+    /** Runs every event due right now (e.g. ready callbacks with no load delay). */
+    public void settle() {
+        advance(0);
+    }
+
+    public long eventsRun() {
+        return eventsRun;
+    }
+
+    public int loads() {
+        return loads;
+    }
+
+    private void schedule(double delay, SimTrack track, Runnable action) {
+        events.add(new Event(now + Math.max(0, delay), sequence++, track, track != null ? track.epoch : 0, action));
+    }
+
+    // ─── Faults ──────────────────────────────────────────────────────────────
+
+    public void setLoadDelay(double seconds) {
+        loadDelay = seconds;
+    }
+
+    public void setMissing(Song song) {
+        missing.add(song.getSongId());
+    }
+
+    public void setBroken(Song song) {
+        broken.add(song.getSongId());
+    }
+
+    /** Until cleared, loading this song fails with a transient error. */
+    public void setUnavailable(Song song, boolean unavailable) {
+        if (unavailable) this.unavailable.add(song.getSongId());
+        else this.unavailable.remove(song.getSongId());
+    }
+
+    // ─── PlaybackBackend ─────────────────────────────────────────────────────
+
+    @Override
+    public Track load(Song song) {
+        if (missing.contains(song.getSongId())) return null;
+        loads++;
+        double duration = song.getDuration() > 0 ? song.getDuration() : DEFAULT_DURATION;
+        SimTrack track = new SimTrack(song, duration);
+        Failure failure = broken.contains(song.getSongId()) ? new Failure("simulated decode error", true)
+                : unavailable.contains(song.getSongId()) ? new Failure("simulated media unavailable", false)
+                : null;
+        schedule(loadDelay, null, () -> {
+            if (track.disposed) return;
+            if (failure != null) {
+                if (track.onError != null) track.onError.accept(failure);
+                return;
+            }
+            track.ready = true;
+            if (track.onReady != null) track.onReady.run();
+        });
+        return track;
+    }
+
+    @Override
+    public Ticker every(double intervalSeconds, Runnable tick) {
+        boolean[] cancelled = new boolean[1];
+        Runnable[] repeat = new Runnable[1];
+        repeat[0] = () -> {
+            if (cancelled[0]) return;
+            tick.run();
+            if (!cancelled[0]) schedule(intervalSeconds, null, repeat[0]);
+        };
+        schedule(intervalSeconds, null, repeat[0]);
+        return () -> cancelled[0] = true;
+    }
+
+    /** A simulated track; exposes its song and volume so tests can check what the manager did. */
+    public final class SimTrack implements Track {
+
+        private final Song song;
+        private final double duration;
+        private boolean ready;
+        private boolean playing;
+        private boolean disposed;
+        private double volume = 1.0;
+        private int epoch;
+
+        // Position is anchor + (now − anchorTime) while playing
+        private double anchor;
+        private double anchorTime;
+
+        private Runnable onReady;
+        private Runnable onEnd;
+        private Consumer<Failure> onError;
+        private Runnable onAudible;
+        private double cueAt = Double.NaN;
+        private Runnable cue;
+
+        private SimTrack(Song song, double duration) {
+            this.song = song;
+            this.duration = duration;
+        }
+
+        public Song song() {
+            return song;
+        }
+
+        public double volume() {
+            return volume;
+        }
+
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public void play() {
+            if (!ready || disposed || playing) return;
+            if (anchor >= duration) anchor = 0; // play after the end starts over, like MediaPlayer
+            anchorTime = now;
+            playing = true;
+            reschedule();
+        }
+
+        @Override
+        public void pause() {
+            if (!playing) return;
+            anchor = position();
+            playing = false;
+            reschedule();
+        }
+
+        @Override
+        public void stop() {
+            playing = false;
+            anchor = 0;
+            reschedule();
+        }
+
+        @Override
+        public void dispose() {
+            stop();
+            disposed = true;
+        }
+
+        @Override
+        public void seek(double seconds) {
+            if (!ready || disposed) return;
+            anchor = Math.max(0, Math.min(duration, seconds));
+            anchorTime = now;
+            reschedule();
+        }
+
+        @Override
+        public double position() {
+            double position = playing ? anchor + (now - anchorTime) : anchor;
+            return Math.min(duration, position);
+        }
+
+        @Override
+        public double duration() {
+            return ready ? duration : Double.NaN;
+        }
+
+        @Override
+        public boolean isPlaying() {
+            return playing;
+        }
+
+        @Override
+        public void setVolume(double volume) {
+            this.volume = Math.max(0, Math.min(1, volume));
+        }
+
+        @Override
+        public void setOnReady(Runnable action) {
+            onReady = action;
+        }
+
+        @Override
+        public void setOnEndOfMedia(Runnable action) {
+            onEnd = action;
+        }
+
+        @Override
+        public void setOnError(Consumer<Failure> action) {
+            onError = action;
+        }
+
+        @Override
+        public void setOnAudible(Runnable action) {
+            onAudible = action;
+            if (playing) reschedule();
+        }
+
+        @Override
+        public void cueAt(double seconds, Runnable action) {
+            cueAt = seconds;
+            cue = action;
+            if (playing) reschedule();
+        }
+
+        /** Drops this track's pending events and schedules the ones its new state implies. */
+        private void reschedule() {
+            epoch++;
+            if (!playing) return;
+            double position = position();
+            if (onAudible != null) {
+                schedule(0, this, () -> {
+                    Runnable action = onAudible;
+                    onAudible = null;
+                    if (action != null) action.run();
+                });
+            }
+            if (cue != null && cueAt >= position && cueAt < duration) {
+                schedule(cueAt - position, this, () -> {
+                    if (cue != null) cue.run();
+                });
+            }
+            schedule(duration - position, this, () -> {
+                anchor = duration;
+                playing = false;
+                epoch++;
+                if (onEnd != null) onEnd.run();
+            });
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Genre;
+import com.example.new_better.models.Song;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SongFolderImporter {
+
+    private static final String APP_DIR     = System.getProperty("user.dir");
+    private static final String CONFIG_FILE = APP_DIR + File.separator + "config.properties";
+    private static final String SONGS_DIR   = APP_DIR + File.separator + "songs";
+
+    private static final List<Runnable> importListeners = new ArrayList<>();
+
+    // ✅ FIX: Guard flag — prevents duplicate import tasks running simultaneously.
+    // AtomicBoolean is thread-safe without needing synchronized blocks.
+    // Without this, MainApp.start() AND LoginController.succeeded() both call
+    // importSongsInBackground(), spinning up two concurrent scanner threads
+    // on every login. compareAndSet(false, true) ensures only the first caller wins.
+    private static final AtomicBoolean importRunning = new AtomicBoolean(false);
+
+    public static void addImportListener(Runnable listener) {
+        if (listener != null) importListeners.add(listener);
+    }
+
+    public static void removeImportListener(Runnable listener) {
+        importListeners.remove(listener);
+    }
+
+    public static boolean isImportRunning() {
+        return importRunning.get();
+    }
+
+    public static String getSavedSongsDir() {
+        return SONGS_DIR;
+    }
+
+    private static void saveSongsDir(String path) {
+        Properties props = new Properties();
+        props.setProperty("songs_dir", path);
+        try (FileOutputStream fos = new FileOutputStream(CONFIG_FILE)) {
+            props.store(fos, "NeonPulse Config");
+            System.out.println("✅ Config saved at: " + CONFIG_FILE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void promptAndImport() {
+        System.out.println("📂 Scanning for songs in: " + SONGS_DIR);
+        File songsDirFile = new File(SONGS_DIR);
+
+        if (!songsDirFile.exists()) {
+            songsDirFile.mkdirs();
+            System.out.println("⚠️ Songs folder missing. Created at: " + SONGS_DIR);
+        }
+
+        for (String genre : GenreRegistry.DEFAULT_FOLDERS) {
+            new File(songsDirFile, genre).mkdirs();
+        }
+
+        saveSongsDir(SONGS_DIR);
+        // Once the scan is done, changes are picked up live instead of by rescanning.
+        // Not before: the watcher would race the scan to insert the same new files.
+        importSongsInBackground(SONGS_DIR, () -> LibraryWatcher.start(SONGS_DIR));
+    }
+
+    public static void importSongsInBackground(String songsDir) {
+        importSongsInBackground(songsDir, null);
+    }
+
+    /** Imports on a background thread; {@code onDone} runs on it afterwards, even if the import failed. */
+    public static void importSongsInBackground(String songsDir, Runnable onDone) {
+        // ✅ FIX: If an import is already running, skip silently.
+        // compareAndSet(false, true) is atomic — only one thread can flip it.
+        if (!importRunning.compareAndSet(false, true)) {
+            System.out.println("⏭️ Import already running, skipping duplicate call.");
+            return;
+        }
+
+        // Plain thread rather than a JavaFX Task: the importer runs headless too
+        Thread thread = new Thread(() -> {
+            try {
+                importSongs(songsDir);
+                importRunning.set(false); // ✅ Release the guard when done
+                System.out.println("✅ Songs import complete!");
+                notifyLibraryChanged();
+            } catch (RuntimeException e) {
+                importRunning.set(false); // ✅ Release even on failure so next login can retry
+                System.err.println("❌ Import failed: " + e.getMessage());
+            }
+            if (onDone != null) onDone.run();
+        }, "song-importer-thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void importSongs(String songsDir) {
+        SongDAO songDAO = new SongDAO();
+        // Flag songs whose file vanished while the app was closed, so files that
+        // were merely moved can be relinked below instead of imported twice.
+        LibraryReconciler.checkExisting(songDAO);
+
+        for (String genre : genreFolders()) {
+            File genreDir = new File(songsDir, genre);
+
+            File[] files = genreDir.listFiles((dir, name) -> isAudioFile(name));
+
+            if (files != null) {
+                for (File file : files) {
+                    try {
+                        if (songDAO.getSongByFilePath(relativePath(genre, file)) != null) continue;
+
+                        if (LibraryReconciler.relinkOrNull(songDAO, file, genre) != null) continue;
+
+                        Song song = buildSong(file, genre);
+                        insertAndIndex(songDAO, song);
+                        System.out.println("-> Imported: " + song.getTitle());
+
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /** Inserts a new song and makes it searchable right away (no full index rebuild). */
+    static void insertAndIndex(SongDAO songDAO, Song song) {
+        int songId = songDAO.insertSong(song);
+        if (songId > 0) FuzzySearchIndex.getInstance().add(song.withSongId(songId));
+    }
+
+    /**
+     * Rebuilds the catalog snapshot and tells every import listener (on the UI
+     * thread, see DbExecutor.fx()) that the library changed. Used after a full import and after each
+     * batch of LibraryWatcher updates.
+     */
+    static void notifyLibraryChanged() {
+        CatalogSnapshot.rebuildAsync();
+        ContentIndexer.requestRun();
+        LoudnessAnalyzer.requestRun();
+        MediaValidator.requestRun();
+        DbExecutor.fx().execute(() -> {
+            for (Runnable listener : importListeners) listener.run();
+        });
+    }
+
+    /** Resolves a stored file_path (portable "genre/file.mp3" or legacy absolute) to a File. */
+    public static File resolveFile(String filePath) {
+        if (filePath.contains(":\\") || filePath.startsWith("/")) {
+            File file = new File(filePath);
+            if (file.exists()) return file;
+        }
+        return new File(SONGS_DIR, filePath);
+    }
+
+    /**
+     * Every subfolder of the songs directory is a genre: the defaults plus any
+     * folder the user added. Each gets a genres row the first time it's seen.
+     */
+    static String[] genreFolders() {
+        File[] dirs = new File(SONGS_DIR).listFiles(File::isDirectory);
+        if (dirs == null) return new String[0];
+        String[] names = new String[dirs.length];
+        for (int i = 0; i < dirs.length; i++) names[i] = dirs[i].getName();
+        return names;
+    }
+
+    static boolean isAudioFile(String name) {
+        return name.toLowerCase().matches(".*\\.(mp3|wav|m4a)$");
+    }
+
+    /** Relative path as stored in songs.file_path: "genre/file.mp3". */
+    static String relativePath(String genre, File file) {
+        return genre + File.separator + file.getName();
+    }
+
+    static Song buildSong(File file, String genre) {
+        String rawName = file.getName().replaceFirst("[.][^.]+$", "");
+        String title   = rawName.replaceAll("\\s*\\[.*?\\]", "").trim();
+
+        Genre g = GenreRegistry.forFolder(genre);
+        return g != null
+                ? new Song(title, g.getGenreId(), g.getName(), relativePath(genre, file), estimateDuration(file))
+                : new Song(title, 0, capitalizeFirstLetter(genre), relativePath(genre, file), estimateDuration(file));
+    }
+
+    static double estimateDuration(File file) {
+        return (double) file.length() / 16000;
+    }
+
+    static String capitalizeFirstLetter(String str) {
+        if (str == null || str.isEmpty()) return str;
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.util.Arrays;
+
+/**
+ * One shared Song instance per song_id.
+ *
+ * Every DAO maps its rows through get(), so the library view, a playlist, the
+ * liked list, the play queue and the catalog snapshot all hold references to the
+ * same objects instead of one copy each. Songs are immutable: when a row comes
+ * back with different values (renamed, relinked, duration repaired) a new
+ * instance replaces the old one, and views pick it up on their next load.
+ *
+ * The pool lives as long as the process, logout included: songs aren't per
+ * user, and FuzzySearchIndex.sync() tells changed songs apart by identity, so
+ * dropping the pool would only force a full re-index on the next login.
+ *
+ * Indexed by song_id in a plain array — ids are dense AUTOINCREMENT values, so
+ * this costs 4 bytes per song versus ~80 for a HashMap entry + boxed key.
+ */
+public final class SongPool {
+
+    private static Song[] byId = new Song[1024];
+
+    private SongPool() {}
+
+    /** The shared instance for these column values, creating/replacing it if needed. */
+    public static synchronized Song get(int songId, String title, int genreId, String genre,
+                                        String filePath, double duration, long uploadedAt) {
+        if (songId <= 0) {
+            return new Song(songId, title, genreId, genre, filePath, duration, uploadedAt);
+        }
+        if (songId >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(byId.length * 2, songId + 1));
+        }
+        Song existing = byId[songId];
+        if (existing != null && existing.matches(title, genreId, genre, filePath, duration, uploadedAt)) {
+            return existing;
+        }
+        Song song = new Song(songId, title, genreId, genre, filePath, duration, uploadedAt);
+        byId[songId] = song;
+        return song;
+    }
+
+    /** Stores an instance built elsewhere (e.g. after withDuration) and returns the shared one. */
+    public static Song put(Song song) {
+        return get(song.getSongId(), song.getTitle(), song.getGenreId(), song.getGenre(),
+                song.getFilePath(), song.getDuration(), song.getUploadedAtEpoch());
+    }
+
+    /** Drops a song whose row was deleted (e.g. merged into a duplicate). */
+    public static synchronized void evict(int songId) {
+        if (songId > 0 && songId < byId.length) byId[songId] = null;
+    }
+}
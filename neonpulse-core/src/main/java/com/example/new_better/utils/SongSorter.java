@@ -0,0 +1,193 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Locale-aware, multi-key sorting over a catalog.
+ *
+ * SQLite's ORDER BY title is a binary sort ("Zebra" < "apple" < "Éclair"), and
+ * re-sorting with Collator.compare costs a full collation per comparison. Here
+ * every sort key is reduced ONCE per catalog to an int rank per song:
+ *
+ *   - title / genre: CollationKeys for the user's locale, sorted once, then
+ *     dense ranks (equal strings share a rank);
+ *   - duration / date added / play count: ranks from the raw numbers.
+ *
+ * A sort order is then folded key by key (least significant first) into one
+ * composite rank with primitive long[] sorts — no comparator, no boxing — and
+ * the resulting permutation is cached, so flipping back to an order already
+ * used is free.
+ * Ordinals are positions in the catalog list — the same ordinals FacetIndex
+ * uses — so a facet result can be emitted in any order without re-sorting.
+ */
+public final class SongSorter {
+
+    public enum SortKey { TITLE, GENRE, DURATION, DATE_ADDED, PLAY_COUNT }
+
+    /** One key of a (possibly multi-key) sort order. */
+    public record SortSpec(SortKey key, boolean descending) {
+        public static SortSpec asc(SortKey key)  { return new SortSpec(key, false); }
+        public static SortSpec desc(SortKey key) { return new SortSpec(key, true); }
+    }
+
+    private static final int MAX_CACHED_ORDERS = 8;
+
+    private final List<Song> songs;
+    private final int[][] ranks = new int[SortKey.values().length][];
+
+    // Recently used permutations, keyed by the full order
+    private final Map<List<SortSpec>, int[]> permutations =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<SortSpec>, int[]> eldest) {
+                    return size() > MAX_CACHED_ORDERS;
+                }
+            };
+
+    /** Precomputes the title and genre collation ranks. Call off the FX thread. */
+    public SongSorter(List<Song> catalog) {
+        long start = System.nanoTime();
+        songs = List.copyOf(catalog);
+
+        Collator collator = Collator.getInstance();
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION); // "é" == "é"
+        ranks[SortKey.TITLE.ordinal()] = collationRanks(collator, true);
+        ranks[SortKey.GENRE.ordinal()] = collationRanks(collator, false);
+
+        PerfStats.log("🔤 Sort keys: %d songs in %.1f ms%n",
+                songs.size(), PerfStats.record("sort keys", start));
+    }
+
+    private int[] collationRanks(Collator collator, boolean title) {
+        int n = songs.size();
+        CollationKey[] keys = new CollationKey[n];
+        Map<String, CollationKey> shared = new HashMap<>(); // genres repeat a lot
+        for (int i = 0; i < n; i++) {
+            Song song = songs.get(i);
+            String text = title ? song.getTitle() : song.getGenre();
+            if (text == null) text = "";
+            keys[i] = title ? collator.getCollationKey(text)
+                            : shared.computeIfAbsent(text, collator::getCollationKey);
+        }
+        // The only comparator sort: CollationKey comparisons are plain byte compares
+        Integer[] byOrder = new Integer[n];
+        for (int i = 0; i < n; i++) byOrder[i] = i;
+        Comparator<Integer> order = (a, b) -> keys[a].compareTo(keys[b]);
+        Arrays.sort(byOrder, order);
+
+        int[] rank = new int[n];
+        int current = 0;
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && order.compare(byOrder[i - 1], byOrder[i]) != 0) current++;
+            rank[byOrder[i]] = current;
+        }
+        return rank;
+    }
+
+    /** Dense ranks 0..k of arbitrary long values (equal values share a rank). */
+    private static int[] denseRanks(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[unique - 1]) sorted[unique++] = sorted[i];
+        }
+        int[] rank = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            rank[i] = Arrays.binarySearch(sorted, 0, unique, values[i]);
+        }
+        return rank;
+    }
+
+    private synchronized int[] ranksFor(SortKey key) {
+        int[] rank = ranks[key.ordinal()];
+        if (rank != null) return rank;
+
+        int n = songs.size();
+        long[] values = new long[n];
+        switch (key) {
+            // durations are ≥ 0, so their float bits order like the floats
+            case DURATION   -> { for (int i = 0; i < n; i++) values[i] = Float.floatToIntBits((float) songs.get(i).getDuration()); }
+            case DATE_ADDED -> { for (int i = 0; i < n; i++) values[i] = songs.get(i).getUploadedAtEpoch(); }
+            case PLAY_COUNT -> { } // all equal until setPlayCounts()
+            default -> throw new IllegalStateException("collation ranks are built eagerly");
+        }
+        rank = denseRanks(values);
+        ranks[key.ordinal()] = rank;
+        return rank;
+    }
+
+    /** Per-user play counts (song_id → plays). Drops any cached order that used them. */
+    public synchronized void setPlayCounts(Map<Integer, Integer> playCounts) {
+        int n = songs.size();
+        int[] plays = new int[n];
+        for (int i = 0; i < n; i++) {
+            plays[i] = playCounts.getOrDefault(songs.get(i).getSongId(), 0);
+        }
+        ranks[SortKey.PLAY_COUNT.ordinal()] = plays; // any non-negative ints work as ranks
+        permutations.keySet().removeIf(order ->
+                order.stream().anyMatch(spec -> spec.key() == SortKey.PLAY_COUNT));
+    }
+
+    /**
+     * Ordinals in the given order (cached). Ties fall back to title, then to
+     * catalog position, so every order is total and stable.
+     */
+    public synchronized int[] permutation(List<SortSpec> order) {
+        int[] cached = permutations.get(order);
+        if (cached != null) return cached;
+
+        long start = System.nanoTime();
+        int n = songs.size();
+
+        // Fold keys from least to most significant: (key rank, composite so far)
+        // packed into one long, sorted, and re-ranked. Title is the implicit last key.
+        int[] composite = ranks[SortKey.TITLE.ordinal()];
+        long[] packed = new long[n];
+        for (int k = order.size() - 1; k >= 0; k--) {
+            SortSpec spec = order.get(k);
+            if (k == order.size() - 1 && spec.key() == SortKey.TITLE && !spec.descending()) continue;
+            int[] keyRank = ranksFor(spec.key());
+            for (int i = 0; i < n; i++) {
+                long r = spec.descending() ? Integer.MAX_VALUE - keyRank[i] : keyRank[i];
+                packed[i] = (r << 32) | composite[i];
+            }
+            composite = denseRanks(packed);
+        }
+
+        // Catalog position breaks the remaining ties
+        for (int i = 0; i < n; i++) packed[i] = ((long) composite[i] << 32) | i;
+        Arrays.sort(packed);
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) perm[i] = (int) packed[i];
+        permutations.put(List.copyOf(order), perm);
+        PerfStats.log("🔤 Sorted %d songs by %s in %.1f ms%n",
+                n, order, PerfStats.record("sort", start));
+        return perm;
+    }
+
+    public List<Song> sorted(List<SortSpec> order) {
+        return sorted(order, null);
+    }
+
+    /** Songs in the given order, optionally only those whose ordinal is set in {@code filter}. */
+    public List<Song> sorted(List<SortSpec> order, BitSet filter) {
+        int[] perm = permutation(order);
+        List<Song> result = new ArrayList<>(filter == null ? perm.length : filter.cardinality());
+        for (int ordinal : perm) {
+            if (filter == null || filter.get(ordinal)) result.add(songs.get(ordinal));
+        }
+        return result;
+    }
+}
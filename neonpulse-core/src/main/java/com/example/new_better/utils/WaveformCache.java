@@ -0,0 +1,325 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.dao.SongDAO;
+import com.example.new_better.models.Song;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Min/max peak overview of a track for the seek bar: BUCKETS pairs of signed
+ * bytes (800 bytes per song).
+ *
+ *   - WAV: exact peaks, streamed through PcmWav.
+ *   - MP3: no decoder here, so each frame's side info is read instead: a
+ *     granule's global_gain is its quantizer step (1.5 dB per unit), which
+ *     tracks the frame's energy closely enough to show the song's shape.
+ *     Levels are mapped over a 60 dB window below the loudest frame.
+ *   - Other formats get no waveform (the plain slider shows).
+ *
+ * Finished overviews are cached in cache/waveforms next to the app, named by
+ * the file's content key (size + sampled hash, see ContentIndexer), so renames,
+ * moves and duplicate copies share one file and an edited file gets a new one.
+ *
+ * Generation runs on one MIN_PRIORITY thread, never the FX thread. It is
+ * incremental — partial overviews are published as the file is read, so the
+ * waveform draws in left to right — and cancellable through the returned
+ * Future; a cancelled run writes nothing.
+ */
+public final class WaveformCache {
+
+    public static final int BUCKETS = 400;
+
+    private static final int MAGIC = 0x4E505746; // "NPWF"
+    private static final int VERSION = 1;
+    private static final int PUBLISH_STEPS = 8;
+
+    private static final File CACHE_DIR = new File(System.getProperty("user.dir"),
+            "cache" + File.separator + "waveforms");
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "waveform");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    /** Peaks in [-127, 127] per bucket; {@code filled} buckets are valid (BUCKETS when complete). */
+    public record Waveform(byte[] min, byte[] max, int filled) {
+        public boolean complete() { return filled >= BUCKETS; }
+    }
+
+    private WaveformCache() {}
+
+    /**
+     * Loads or generates the song's overview in the background. {@code onUpdate}
+     * runs on the FX thread with each partial result and the final one. Cancel
+     * the Future when the song is no longer shown.
+     */
+    public static Future<?> request(Song song, Consumer<Waveform> onUpdate) {
+        return EXECUTOR.submit(() -> {
+            try {
+                Waveform waveform = loadOrGenerate(song, partial -> DbExecutor.fx().execute(() -> onUpdate.accept(partial)));
+                if (waveform != null) DbExecutor.fx().execute(() -> onUpdate.accept(waveform));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // cancelled: the song changed
+            } catch (IOException e) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    System.err.println("⚠️ Waveform failed for " + song.getTitle() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    static Waveform loadOrGenerate(Song song, Consumer<Waveform> onPartial) throws IOException, InterruptedException {
+        File file = SongFolderImporter.resolveFile(song.getFilePath());
+        if (!file.isFile()) return null;
+
+        SongDAO.HashRow key = ContentIndexer.sampleHash(0, file);
+        if (key == null) return null;
+        File cached = new File(CACHE_DIR, Long.toHexString(key.fileSize()) + "-"
+                + Long.toHexString(key.sampleHash()) + ".npwf");
+
+        if (cached.isFile()) {
+            Waveform waveform = read(cached);
+            if (waveform != null) return waveform;
+        }
+
+        long start = System.nanoTime();
+        String name = file.getName().toLowerCase();
+        Waveform waveform = name.endsWith(".wav") ? fromWav(file, onPartial)
+                : name.endsWith(".mp3") ? fromMp3(file, onPartial)
+                : null;
+        if (waveform == null) return null;
+
+        write(cached, waveform);
+        System.out.printf("〰️ Waveform for %s in %.1f ms%n", song.getTitle(), (System.nanoTime() - start) / 1e6);
+        return waveform;
+    }
+
+    // ─── WAV: exact peaks ────────────────────────────────────────────────────
+
+    private static Waveform fromWav(File file, Consumer<Waveform> onPartial) throws IOException, InterruptedException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            PcmWav wav = PcmWav.open(in);
+            if (wav == null || wav.totalFrames() == 0) return null;
+
+            long totalFrames = wav.totalFrames();
+            byte[] min = new byte[BUCKETS];
+            byte[] max = new byte[BUCKETS];
+            double lo = 0, hi = 0;
+            int bucket = 0;
+            long frame = 0;
+            int nextPublish = BUCKETS / PUBLISH_STEPS;
+
+            double[] samples = new double[4096 * wav.channels];
+            int frames;
+            while ((frames = wav.readFrames(samples)) > 0) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                for (int f = 0; f < frames; f++, frame++) {
+                    int b = (int) (frame * BUCKETS / totalFrames);
+                    if (b != bucket) {
+                        min[bucket] = toByte(lo);
+                        max[bucket] = toByte(hi);
+                        lo = hi = 0;
+                        bucket = b;
+                        if (bucket >= nextPublish) {
+                            onPartial.accept(new Waveform(min.clone(), max.clone(), bucket));
+                            nextPublish += BUCKETS / PUBLISH_STEPS;
+                        }
+                    }
+                    int base = f * wav.channels;
+                    for (int c = 0; c < wav.channels; c++) {
+                        double s = samples[base + c];
+                        if (s < lo) lo = s;
+                        if (s > hi) hi = s;
+                    }
+                }
+            }
+            min[bucket] = toByte(lo);
+            max[bucket] = toByte(hi);
+            return new Waveform(min, max, BUCKETS);
+        }
+    }
+
+    private static byte toByte(double sample) {
+        return (byte) Math.max(-127, Math.min(127, Math.round(sample * 127)));
+    }
+
+    // ─── MP3: frame-energy approximation ─────────────────────────────────────
+
+    private static final int[] BITRATES_V1 = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] BITRATES_V2 = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[][] SAMPLE_RATES = {{11025, 12000, 8000}, {}, {22050, 24000, 16000}, {44100, 48000, 32000}};
+    private static final int GAIN_WINDOW = 40; // global_gain steps shown (1.5 dB each → 60 dB)
+
+    private static Waveform fromMp3(File file, Consumer<Waveform> onPartial) throws IOException, InterruptedException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long size = raf.length();
+            long audioStart = id3Size(raf);
+            long audioBytes = size - audioStart;
+            if (audioBytes <= 0) return null;
+
+            int[] gain = new int[BUCKETS]; // loudest granule per bucket, 0 = silent
+            int loudest = 0;
+            int nextPublish = BUCKETS / PUBLISH_STEPS;
+            int frameCount = 0;
+
+            byte[] buf = new byte[64 * 1024];
+            long bufStart = audioStart;
+            int bufLen = 0, pos = 0;
+            raf.seek(audioStart);
+
+            while (true) {
+                if (bufLen - pos < 64) { // keep at least header + side info buffered
+                    if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                    int left = bufLen - pos;
+                    System.arraycopy(buf, pos, buf, 0, left);
+                    bufStart += pos;
+                    pos = 0;
+                    int n = raf.read(buf, left, buf.length - left);
+                    bufLen = left + Math.max(n, 0);
+                    if (bufLen - pos < 4) break;
+                }
+
+                int h = ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16)
+                        | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+                int frameLength = frameLength(h);
+                if (frameLength <= 0 || bufLen - pos < 40) {
+                    pos++; // not a frame header: resync byte by byte
+                    continue;
+                }
+
+                int level = frameGain(buf, pos, h);
+                int b = (int) ((bufStart + pos - audioStart) * BUCKETS / audioBytes);
+                if (b >= BUCKETS) break;
+                if (level > gain[b]) gain[b] = level;
+                if (level > loudest) loudest = level;
+                frameCount++;
+
+                if (b >= nextPublish) {
+                    onPartial.accept(mp3Waveform(gain, loudest, b));
+                    nextPublish += BUCKETS / PUBLISH_STEPS;
+                }
+                pos += frameLength;
+                if (pos > bufLen) { // frame ran past the buffer: skip its remainder on disk
+                    raf.seek(bufStart + pos);
+                    bufStart += pos;
+                    pos = bufLen = 0;
+                }
+            }
+            return frameCount == 0 ? null : mp3Waveform(gain, loudest, BUCKETS);
+        }
+    }
+
+    private static Waveform mp3Waveform(int[] gain, int loudest, int filled) {
+        byte[] min = new byte[BUCKETS];
+        byte[] max = new byte[BUCKETS];
+        for (int i = 0; i < filled && i < BUCKETS; i++) {
+            if (gain[i] == 0) continue;
+            double level = Math.max(0, 1 - (loudest - gain[i]) / (double) GAIN_WINDOW);
+            max[i] = toByte(level);
+            min[i] = (byte) -max[i];
+        }
+        return new Waveform(min, max, filled);
+    }
+
+    /** Bytes in the frame starting with this header, or -1 if it isn't a valid layer III header. */
+    static int frameLength(int h) {
+        if ((h >>> 21) != 0x7FF) return -1;
+        int version = (h >>> 19) & 3;     // 0 = 2.5, 2 = 2, 3 = 1
+        int layer = (h >>> 17) & 3;       // 1 = layer III
+        int bitrateIndex = (h >>> 12) & 15;
+        int rateIndex = (h >>> 10) & 3;
+        if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15 || rateIndex == 3) return -1;
+
+        int bitrate = (version == 3 ? BITRATES_V1 : BITRATES_V2)[bitrateIndex] * 1000;
+        int sampleRate = SAMPLE_RATES[version][rateIndex];
+        int padding = (h >>> 9) & 1;
+        return (version == 3 ? 144 : 72) * bitrate / sampleRate + padding;
+    }
+
+    /** Highest global_gain over the frame's granules/channels, 0 if every one is empty. */
+    private static int frameGain(byte[] buf, int pos, int h) {
+        boolean mpeg1 = ((h >>> 19) & 3) == 3;
+        boolean mono = ((h >>> 6) & 3) == 3;
+        boolean crc = ((h >>> 16) & 1) == 0;
+        int channels = mono ? 1 : 2;
+        int granules = mpeg1 ? 2 : 1;
+
+        long bit = (pos + 4 + (crc ? 2 : 0)) * 8L;
+        bit += mpeg1 ? (mono ? 18 : 20) : (mono ? 9 : 10); // main_data_begin, private bits, scfsi
+        int granuleBits = mpeg1 ? 59 : 63;
+
+        int best = 0;
+        for (int g = 0; g < granules * channels; g++) {
+            long at = bit + (long) g * granuleBits;
+            int part23 = bits(buf, at, 12);
+            int globalGain = bits(buf, at + 21, 8);
+            if (part23 > 0 && globalGain > best) best = globalGain;
+        }
+        return best;
+    }
+
+    private static int bits(byte[] buf, long bitOffset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            long b = bitOffset + i;
+            value = (value << 1) | ((buf[(int) (b >>> 3)] >>> (7 - (b & 7))) & 1);
+        }
+        return value;
+    }
+
+    static long id3Size(RandomAccessFile raf) throws IOException {
+        byte[] header = new byte[10];
+        raf.seek(0);
+        if (raf.read(header) < 10 || header[0] != 'I' || header[1] != 'D' || header[2] != '3') return 0;
+        int size = ((header[6] & 0x7F) << 21) | ((header[7] & 0x7F) << 14)
+                | ((header[8] & 0x7F) << 7) | (header[9] & 0x7F);
+        return 10L + size + ((header[5] & 0x10) != 0 ? 10 : 0); // + footer
+    }
+
+    // ─── Cache files ─────────────────────────────────────────────────────────
+
+    private static Waveform read(File file) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION || in.readUnsignedShort() != BUCKETS) {
+                return null;
+            }
+            byte[] min = new byte[BUCKETS];
+            byte[] max = new byte[BUCKETS];
+            in.readFully(min);
+            in.readFully(max);
+            return new Waveform(min, max, BUCKETS);
+        } catch (IOException e) {
+            return null; // corrupt: regenerate
+        }
+    }
+
+    private static void write(File file, Waveform waveform) {
+        try {
+            Files.createDirectories(CACHE_DIR.toPath());
+            File tmp = new File(CACHE_DIR, file.getName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp.toPath()))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeShort(BUCKETS);
+                out.write(waveform.min());
+                out.write(waveform.max());
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not cache waveform: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Whole listening sessions on SimulatedBackend's virtual clock, with a seeded
+ * Random: every run plays the same songs at the same virtual times. The shared
+ * state (MusicPlayerManager's instance, MediaValidator's verdicts, PlaybackTrace)
+ * is reset around each test, and the player's warnings are collected, not printed.
+ */
+class MusicPlayerManagerTest {
+
+    private static final double DURATION = 100;
+
+    private SimulatedBackend backend;
+    private MusicPlayerManager player;
+    private final List<String> warnings = new ArrayList<>();
+
+    @BeforeAll
+    static void createDatabase() {
+        // Verdicts and the missing-file reconcile write to it (target/neonpulse.db, see the pom)
+        DatabaseInitializer.initialize();
+    }
+
+    @BeforeEach
+    void setUp() {
+        resetShared();
+        backend = new SimulatedBackend();
+        player = newPlayer(backend, 42);
+    }
+
+    @AfterEach
+    void tearDown() {
+        player.shutdown();
+        resetShared();
+    }
+
+    private static void resetShared() {
+        MusicPlayerManager.reset();
+        MediaValidator.reset();
+        PlaybackTrace.reset();
+        Session.getInstance().setCrossfadeSeconds(0);
+    }
+
+    private MusicPlayerManager newPlayer(SimulatedBackend backend, long seed) {
+        MusicPlayerManager manager = new MusicPlayerManager(backend, new Random(seed));
+        manager.setLog(warnings::add);
+        return manager;
+    }
+
+    private static List<Song> songs(int count) {
+        List<Song> songs = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            songs.add(new Song(id, "Song " + id, 1, "Pop", "Pop/song" + id + ".mp3", DURATION, 0));
+        }
+        return songs;
+    }
+
+    /** The song the backend is actually playing (or loading). */
+    private Song playing() {
+        return ((SimulatedBackend.SimTrack) player.getCurrentTrack()).song();
+    }
+
+    private void start(List<Song> queue, int index) {
+        player.setQueue(queue);
+        player.playFromQueue(index);
+        backend.settle();
+    }
+
+    @Test
+    void playsTheQueueInOrderAndStopsAtTheEnd() {
+        List<Song> queue = songs(3);
+        start(queue, 0);
+        assertEquals(queue.get(0), playing());
+        assertTrue(player.isPlaying());
+
+        backend.advance(DURATION);
+        assertEquals(queue.get(1), playing());
+        backend.advance(DURATION);
+        assertEquals(queue.get(2), playing());
+
+        backend.advance(DURATION);
+        assertFalse(player.isPlaying());
+        assertEquals(3, backend.loads());
+    }
+
+    @Test
+    void repeatWrapsAroundToTheFirstSong() {
+        List<Song> queue = songs(3);
+        player.setRepeat(true);
+        start(queue, 1);
+
+        backend.advance(DURATION);
+        assertEquals(queue.get(2), playing());
+        backend.advance(DURATION);
+        assertEquals(queue.get(0), playing());
+        assertTrue(player.isPlaying());
+    }
+
+    @Test
+    void repeatOneReplaysTheSameTrack() {
+        List<Song> queue = songs(3);
+        player.setRepeatOne(true);
+        start(queue, 0);
+
+        backend.advance(DURATION * 2.5);
+        assertEquals(queue.get(0), playing());
+        assertEquals(1, backend.loads()); // looped in place, not reloaded
+        assertTrue(player.isPlaying());
+        assertEquals(DURATION / 2, player.getPosition(), 1e-6);
+    }
+
+    @Test
+    void shuffleNeverPicksTheCurrentSong() {
+        List<Song> queue = songs(5);
+        player.setShuffle(true);
+        start(queue, 0);
+
+        for (int i = 0; i < 500; i++) {
+            Song before = playing();
+            backend.advance(DURATION);
+            assertNotEquals(before, playing(), "transition " + i);
+        }
+    }
+
+    @Test
+    void sameSeedPlaysTheSameSession() {
+        List<Song> queue = songs(8);
+        assertEquals(shuffledSession(queue, 7), shuffledSession(queue, 7));
+    }
+
+    private List<Song> shuffledSession(List<Song> queue, long seed) {
+        SimulatedBackend backend = new SimulatedBackend();
+        MusicPlayerManager player = newPlayer(backend, seed);
+        List<Song> played = new ArrayList<>();
+        player.setShuffle(true);
+        player.setQueue(queue);
+        player.playFromQueue(0);
+        backend.settle();
+        for (int i = 0; i < 50; i++) {
+            played.add(((SimulatedBackend.SimTrack) player.getCurrentTrack()).song());
+            backend.advance(DURATION);
+        }
+        player.shutdown();
+        return played;
+    }
+
+    @Test
+    void autoAdvanceSkipsBrokenAndMissingFiles() {
+        List<Song> queue = songs(4);
+        backend.setBroken(queue.get(1));
+        backend.setMissing(queue.get(2));
+        start(queue, 0);
+
+        backend.advance(DURATION);
+        assertEquals(queue.get(3), playing());
+        assertTrue(player.isPlaying());
+        assertTrue(MediaValidator.isKnownBad(queue.get(1).getSongId()));
+        assertFalse(MediaValidator.isKnownBad(queue.get(2).getSongId())); // gone, not damaged
+        assertTrue(warnings.stream().anyMatch(w -> w.startsWith("⚠️ Marking unplayable: " + queue.get(1).getTitle())));
+    }
+
+    @Test
+    void previousSkipsKnownBadFiles() {
+        List<Song> queue = songs(3);
+        backend.setBroken(queue.get(1));
+        start(queue, 0);
+        backend.advance(DURATION);
+        assertEquals(queue.get(2), playing());
+
+        player.playPrevious();
+        backend.settle();
+        assertEquals(queue.get(0), playing());
+    }
+
+    @Test
+    void transientErrorsAreNotRemembered() {
+        List<Song> queue = songs(3);
+        backend.setUnavailable(queue.get(1), true);
+        start(queue, 0);
+
+        backend.advance(DURATION);
+        assertEquals(queue.get(2), playing());
+        assertFalse(MediaValidator.isKnownBad(queue.get(1).getSongId()));
+
+        backend.setUnavailable(queue.get(1), false);
+        player.playPrevious();
+        backend.settle();
+        assertEquals(queue.get(1), playing());
+        assertTrue(player.isPlaying());
+    }
+
+    @Test
+    void crossfadeStartsAtTheCueAndReleasesTheOutgoingTrack() {
+        double fade = 5;
+        Session.getInstance().setCrossfadeSeconds(fade);
+        List<Song> queue = songs(2);
+        start(queue, 0);
+        SimulatedBackend.SimTrack first = (SimulatedBackend.SimTrack) player.getCurrentTrack();
+
+        backend.advance(DURATION - fade - 0.1);
+        assertFalse(player.isCrossfading());
+        assertEquals(queue.get(0), playing());
+
+        backend.advance(0.2); // past the cue at end − fade
+        assertTrue(player.isCrossfading());
+        assertEquals(queue.get(1), playing());
+        assertTrue(first.volume() < Session.getInstance().getUserVolume());
+
+        backend.advance(fade);
+        assertFalse(player.isCrossfading());
+        assertTrue(first.isDisposed());
+        SimulatedBackend.SimTrack second = (SimulatedBackend.SimTrack) player.getCurrentTrack();
+        assertEquals(Session.getInstance().getUserVolume(), second.volume(), 1e-9);
+        assertEquals(fade + 0.1, player.getPosition(), 1e-6); // started at the cue, not at the end
+    }
+
+    @Test
+    void getInstanceNeedsAnInstalledBackend() {
+        assertThrows(IllegalStateException.class, MusicPlayerManager::getInstance);
+    }
+}
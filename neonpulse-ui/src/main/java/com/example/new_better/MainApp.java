@@ -1,6 +1,12 @@
 package com.example.new_better;
 
+import com.example.new_better.utils.CatalogSnapshot;
 import com.example.new_better.utils.DatabaseInitializer;
+import com.example.new_better.utils.DatabaseMaintenance;
+import com.example.new_better.utils.DbExecutor;
+import com.example.new_better.utils.JavaFxBackend;
+import com.example.new_better.utils.LibraryWatcher;
+import com.example.new_better.utils.LikedSongsStore;
 import com.example.new_better.utils.MusicPlayerManager;
 import com.example.new_better.utils.SongFolderImporter;
 import javafx.application.Application;
@@ -12,6 +18,7 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.input.InputEvent;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
@@ -47,6 +54,18 @@ public class MainApp extends Application {
         primaryStage = stage;
         primaryStage.initStyle(StageStyle.UNDECORATED);
 
+        // Hook the headless core up to the UI: callbacks on the FX thread,
+        // MediaPlayer playback, maintenance waits while music plays.
+        DbExecutor.setUiThread(Platform::runLater);
+        JavaFxBackend.install();
+        DatabaseMaintenance.setPlaybackActive(() -> MusicPlayerManager.getInstance().isPlaying());
+
+        // Any mouse/key input postpones idle-time DB maintenance
+        primaryStage.addEventFilter(InputEvent.ANY, e -> DatabaseMaintenance.noteUserActivity());
+
+        // Map the catalog snapshot while the user logs in; the library paints from it.
+        CatalogSnapshot.preload();
+
         // Show the login scene immediately — do NOT block here with DB work.
         showLoginScene();
 
@@ -65,7 +84,8 @@ public class MainApp extends Application {
         dbInitTask.setOnSucceeded(e -> {
             // DB is ready. Now it's safe to prompt for song import.
             // Platform.runLater ensures this runs after the current render pulse.
-            Platform.runLater(() -> SongFolderImporter.promptAndImport(primaryStage));
+            Platform.runLater(() -> SongFolderImporter.promptAndImport());
+            DatabaseMaintenance.start();
         });
 
         dbInitTask.setOnFailed(e -> {
@@ -218,6 +238,10 @@ public class MainApp extends Application {
     @Override
     public void stop() {
         MusicPlayerManager.getInstance().shutdown();
+        DatabaseMaintenance.stop();
+        LibraryWatcher.stop();
+        LikedSongsStore.getInstance().flushNow(); // don't wait out the like debounce
+        DbExecutor.shutdown(); // let queued writes (likes, history) land before exit
     }
 
     public static Stage getPrimaryStage() {
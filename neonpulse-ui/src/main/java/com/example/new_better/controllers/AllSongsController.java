@@ -1,13 +1,19 @@
 package com.example.new_better.controllers;
 
-import com.example.new_better.dao.LikedSongsDAO;
-import com.example.new_better.dao.PlaylistDAO;
-import com.example.new_better.dao.SongDAO;
+import com.example.new_better.dao.AsyncDAO;
 import com.example.new_better.models.Song;
 import com.example.new_better.models.User;
+import com.example.new_better.utils.CatalogSnapshot;
+import com.example.new_better.utils.DbExecutor;
+import com.example.new_better.utils.FacetIndex;
+import com.example.new_better.utils.FuzzySearchIndex;
+import com.example.new_better.utils.LikedSongsStore;
 import com.example.new_better.utils.MusicPlayerManager;
+import com.example.new_better.utils.PlaybackTrace;
 import com.example.new_better.utils.Session;
 import com.example.new_better.utils.SongFolderImporter; // ✅ IMPORTED THIS
+import com.example.new_better.utils.SongPool;
+import com.example.new_better.utils.SongSorter;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -21,46 +27,289 @@ import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 
-public class AllSongsController {
+public class AllSongsController implements ViewCache.Refreshable, ViewCache.Disposable {
+
+    @FXML private ListView<Song> songList;
+    @FXML private FlowPane facetBar;
+    @FXML private ComboBox<String> sortBox;
+
+    private List<Song> catalog = List.of();   // the whole library, title order
+    private List<Song> songs = List.of();     // what's on screen (catalog after filters)
+    private AsyncDAO asyncDAO;
+    private final LikedSongsStore likedStore = LikedSongsStore.getInstance();
+
+    // ✅ Facets: bitmaps over the catalog, combined per keystroke/click (see FacetIndex)
+    private FacetIndex index = FacetIndex.current();
+    private List<FacetIndex.Facet> catalogFacets = List.of();   // genre, duration, recent, playlists
+    private final Map<String, FacetIndex.Mode> facetModes = new HashMap<>();
+    private String query = "";
+    private static final int FUZZY_LIMIT = 200; // typo-tolerant hits ranked above plain matches
+
+    // ✅ Sorting: collation ranks precomputed per catalog, permutations cached (see SongSorter)
+    private static final Map<String, List<SongSorter.SortSpec>> SORT_ORDERS = new LinkedHashMap<>();
+    static {
+        SORT_ORDERS.put("Title (A–Z)",       List.of(SongSorter.SortSpec.asc(SongSorter.SortKey.TITLE)));
+        SORT_ORDERS.put("Title (Z–A)",       List.of(SongSorter.SortSpec.desc(SongSorter.SortKey.TITLE)));
+        SORT_ORDERS.put("Genre, then title", List.of(SongSorter.SortSpec.asc(SongSorter.SortKey.GENRE),
+                                                     SongSorter.SortSpec.asc(SongSorter.SortKey.TITLE)));
+        SORT_ORDERS.put("Longest first",     List.of(SongSorter.SortSpec.desc(SongSorter.SortKey.DURATION)));
+        SORT_ORDERS.put("Recently added",    List.of(SongSorter.SortSpec.desc(SongSorter.SortKey.DATE_ADDED)));
+        SORT_ORDERS.put("Most played",       List.of(SongSorter.SortSpec.desc(SongSorter.SortKey.PLAY_COUNT)));
+    }
+    private SongSorter sorter;
+    private List<SongSorter.SortSpec> sortOrder = SORT_ORDERS.get("Title (A–Z)");
 
-    @FXML private VBox songListContainer;
+    private boolean disposed; // evicted from the view cache: late loads are dropped
 
-    private List<Song> songs;
-    private LikedSongsDAO likedSongsDAO;
-    private PlaylistDAO playlistDAO;
-    private SongDAO songDAO;
+    /** Everything built off the FX thread for one catalog. */
+    private record Indexed(FacetIndex index, SongSorter sorter, List<FacetIndex.Facet> facets) {}
 
     @FXML
     private void initialize() {
-        likedSongsDAO = new LikedSongsDAO();
-        playlistDAO = new PlaylistDAO();
-        songDAO = new SongDAO();
+        asyncDAO = AsyncDAO.getInstance();
+        songList.setCellFactory(list -> new SongCell());
+        if (sortBox != null) {
+            sortBox.getItems().setAll(SORT_ORDERS.keySet());
+            sortBox.getSelectionModel().selectFirst();
+            sortBox.setOnAction(e -> {
+                sortOrder = SORT_ORDERS.getOrDefault(sortBox.getValue(), sortOrder);
+                applyFilters();
+            });
+        }
+        loadSongs();
+    }
+
+    /** Cached page shown again after an import or like elsewhere: re-check the catalog, keep facets and sort. */
+    @Override
+    public void refresh() {
         loadSongs();
-        repairZeroDurations();
     }
 
+    /** Evicted: let go of the catalog and its indexes; loads still in flight find nothing to update. */
+    @Override
+    public void dispose() {
+        disposed = true;
+        catalog = List.of();
+        songs = List.of();
+        sorter = null;
+        catalogFacets = List.of();
+        songList.getItems().clear();
+    }
+
+    /**
+     * ✅ First paint comes from the on-disk catalog snapshot, so it never
+     * waits on SQLite. The snapshot's version is then checked against the DB;
+     * only when it is stale (or missing) do we run the full SQL query, repaint,
+     * and rewrite the snapshot. Hearts repaint once the liked state lands.
+     */
     private void loadSongs() {
-        songs = songDAO.getAllSongs();
-        if (songs == null) songs = List.of();
-        displaySongs();
+        CatalogSnapshot.load().thenAcceptAsync(snapshot -> {
+            if (snapshot != null) {
+                setCatalog(snapshot.songs());
+            }
+            validateAgainstDb(snapshot);
+        }, DbExecutor.fx());
+
+        User user = Session.getInstance().getCurrentUser();
+        if (user != null) {
+            likedStore.ensureLoaded(user.getUserId()).thenRun(() -> {
+                if (!songs.isEmpty()) applyFilters();
+            });
+        }
+    }
+
+    private void validateAgainstDb(CatalogSnapshot.Snapshot snapshot) {
+        asyncDAO.getCatalogVersion().thenAccept(version -> {
+            if (snapshot != null && snapshot.version() == version) {
+                repairZeroDurations();
+                return;
+            }
+            asyncDAO.getAllSongs().thenAccept(loaded -> {
+                setCatalog(loaded);
+                if (version >= 0) CatalogSnapshot.writeAsync(catalog, version);
+                repairZeroDurations();
+            });
+        });
     }
 
     public void setSongs(List<Song> newSongs) {
-        this.songs = (newSongs == null) ? List.of() : newSongs;
+        setCatalog(newSongs);
+    }
+
+    /* =========================================================
+       FACETS & SEARCH
+       ========================================================= */
+
+    /**
+     * Paints the new catalog right away, then indexes and collates it on a
+     * reader thread and loads the per-user data (recently played, playlists,
+     * play counts). Filters and sort order apply once THIS catalog is ready.
+     */
+    private void setCatalog(List<Song> newCatalog) {
+        if (disposed) return;
+        catalog = (newCatalog == null) ? List.of() : newCatalog;
+        songs = catalog;
+        displaySongs();
+
+        List<Song> building = catalog;
+        User user = Session.getInstance().getCurrentUser();
+        CompletableFuture<Map<Integer, Integer>> playCounts = (user == null)
+                ? CompletableFuture.completedFuture(Map.of())
+                : asyncDAO.getPlayCounts(user.getUserId());
+
+        CompletableFuture.supplyAsync(() -> {
+                    FuzzySearchIndex.getInstance().sync(building); // only changed songs are re-indexed
+                    return FacetIndex.rebuild(building);
+                }, DbExecutor.readers())
+                .thenCompose(built -> loadUserFacets(built).thenApply(userFacets -> {
+                    List<FacetIndex.Facet> all = new ArrayList<>(built.genreFacets());
+                    all.addAll(built.durationFacets());
+                    all.addAll(userFacets);
+                    return all;
+                }).thenCombine(playCounts.thenApplyAsync(counts -> {
+                    SongSorter sorted = new SongSorter(building);
+                    sorted.setPlayCounts(counts);
+                    return sorted;
+                }, DbExecutor.readers()), (facets, builtSorter) -> new Indexed(built, builtSorter, facets)))
+                .thenAcceptAsync(ready -> {
+                    if (catalog != building) return; // a newer catalog arrived meanwhile
+                    index = ready.index();
+                    sorter = ready.sorter();
+                    catalogFacets = ready.facets();
+                    applyFilters();
+                }, DbExecutor.fx());
+    }
+
+    private CompletableFuture<List<FacetIndex.Facet>> loadUserFacets(FacetIndex built) {
+        User user = Session.getInstance().getCurrentUser();
+        if (user == null) return CompletableFuture.completedFuture(List.of());
+
+        CompletableFuture<FacetIndex.Facet> recent = asyncDAO.getRecentlyPlayed(user.getUserId())
+                .thenApply(played -> new FacetIndex.Facet("recent", "recent", "Recently played",
+                        built.bitmapOfSongs(played)));
+
+        CompletableFuture<List<FacetIndex.Facet>> playlists = asyncDAO.getUserPlaylists(user.getUserId())
+                .thenCompose(rows -> {
+                    List<CompletableFuture<FacetIndex.Facet>> parts = new ArrayList<>();
+                    for (Map<String, Object> row : rows) {
+                        if ((int) row.get("is_system") == 1) continue; // genre playlists = genre facets
+                        int playlistId = (int) row.get("playlist_id");
+                        String name = (String) row.get("playlist_name");
+                        parts.add(asyncDAO.getPlaylistSongs(playlistId).thenApply(list ->
+                                new FacetIndex.Facet("playlist", "playlist:" + playlistId, "♫ " + name,
+                                        built.bitmapOfSongs(list))));
+                    }
+                    return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(v -> parts.stream().map(CompletableFuture::join).toList());
+                });
+
+        return recent.thenCombine(playlists, (recentFacet, playlistFacets) -> {
+            List<FacetIndex.Facet> facets = new ArrayList<>();
+            facets.add(recentFacet);
+            facets.addAll(playlistFacets);
+            return facets;
+        });
+    }
+
+    /** Live search from the top bar: filters in memory, facet counts follow. */
+    public void filterSongs(String newQuery) {
+        query = (newQuery == null) ? "" : newQuery;
+        applyFilters();
+    }
+
+    private void applyFilters() {
+        if (index.size() == 0 && !catalog.isEmpty()) {
+            displaySongs(); // still indexing; filters apply when it lands
+            return;
+        }
+        // Liked changes with every heart click, so its bitmap is rebuilt each time (cheap)
+        List<FacetIndex.Facet> facets = new ArrayList<>(catalogFacets);
+        facets.add(0, new FacetIndex.Facet("liked", "liked", "♥ Liked",
+                index.bitmapOf(likedStore.likedIds())));
+
+        // ✅ Text = exact substring matches OR typo-tolerant hits ("beetoven" → Beethoven)
+        List<Song> fuzzy = query.isBlank() ? List.of() : FuzzySearchIndex.getInstance().search(query, FUZZY_LIMIT);
+        BitSet text = index.matchText(query);
+        if (!fuzzy.isEmpty()) {
+            text = (BitSet) text.clone();
+            text.or(index.bitmapOfSongs(fuzzy));
+        }
+
+        FacetIndex.Result result = index.evaluate(text, facets, facetModes);
+        boolean unfiltered = query.isBlank() && facetModes.values().stream().allMatch(m -> m == FacetIndex.Mode.OFF);
+        List<Song> ordered = sorter != null
+                ? sorter.sorted(sortOrder, unfiltered ? null : result.matches())
+                : (unfiltered ? catalog : index.songsOf(result.matches()));
+
+        if (fuzzy.isEmpty()) {
+            songs = ordered;
+        } else {
+            // Best fuzzy hits first (by relevance), then the remaining matches in sort order
+            BitSet shown = new BitSet(index.size());
+            List<Song> ranked = new ArrayList<>(ordered.size());
+            for (Song song : fuzzy) {
+                int ordinal = index.ordinalOf(song);
+                if (ordinal >= 0 && result.matches().get(ordinal) && !shown.get(ordinal)) {
+                    shown.set(ordinal);
+                    ranked.add(song);
+                }
+            }
+            for (Song song : ordered) {
+                if (!shown.get(index.ordinalOf(song))) ranked.add(song);
+            }
+            songs = ranked;
+        }
         displaySongs();
+        showFacets(facets, result.counts());
+    }
+
+    private void showFacets(List<FacetIndex.Facet> facets, Map<FacetIndex.Facet, Integer> counts) {
+        if (facetBar == null) return;
+        facetBar.getChildren().clear();
+        for (FacetIndex.Facet facet : facets) {
+            FacetIndex.Mode mode = facetModes.getOrDefault(facet.key(), FacetIndex.Mode.OFF);
+            int count = counts.getOrDefault(facet, 0);
+            if (count == 0 && mode == FacetIndex.Mode.OFF) continue; // nothing to narrow to
+
+            String prefix = mode == FacetIndex.Mode.EXCLUDE ? "− " : "";
+            Button chip = new Button(prefix + facet.label() + "  " + count);
+            chip.getStyleClass().add("facet-chip");
+            if (mode == FacetIndex.Mode.INCLUDE) chip.getStyleClass().add("facet-include");
+            if (mode == FacetIndex.Mode.EXCLUDE) chip.getStyleClass().add("facet-exclude");
+            // Click cycles: off → only these → everything but these → off
+            chip.setOnAction(e -> {
+                FacetIndex.Mode next = switch (mode) {
+                    case OFF     -> FacetIndex.Mode.INCLUDE;
+                    case INCLUDE -> FacetIndex.Mode.EXCLUDE;
+                    case EXCLUDE -> FacetIndex.Mode.OFF;
+                };
+                facetModes.put(facet.key(), next);
+                applyFilters();
+            });
+            facetBar.getChildren().add(chip);
+        }
     }
 
     // ✅ FIXED: Now uses the dynamic 'songs' folder path to find files
     private void repairZeroDurations() {
+        List<Song> snapshot = catalog;
         new Thread(() -> {
             boolean updated = false;
             String baseDir = SongFolderImporter.getSavedSongsDir(); // Get the portable path
+            // Songs are immutable and shared: repaired ones are swapped into a copy
+            List<Song> repaired = new ArrayList<>(snapshot);
 
-            for (Song song : songs) {
+            for (int i = 0; i < repaired.size(); i++) {
+                Song song = repaired.get(i);
                 if (song.getDuration() <= 0) {
                     File file;
                     // Check if path is legacy (Absolute) or Portable (Relative)
@@ -75,32 +324,38 @@ public class AllSongsController {
 
                     if (file.exists()) {
                         double estimatedTime = file.length() / 16000.0;
-                        song.setDuration(estimatedTime);
-                        songDAO.updateSongDuration(song.getSongId(), estimatedTime);
+                        repaired.set(i, SongPool.put(song.withDuration(estimatedTime)));
+                        asyncDAO.updateSongDuration(song.getSongId(), estimatedTime);
                         updated = true;
                     }
                 }
             }
             if (updated) {
-                Platform.runLater(this::displaySongs);
+                Platform.runLater(() -> {
+                    if (catalog == snapshot) setCatalog(repaired);
+                });
             }
-        }).start();
+        }, "duration-repair").start();
     }
 
+    /**
+     * ✅ Hands the list its new items and nothing else: the ListView only keeps
+     * cells for the rows on screen and re-binds them, so a keystroke, chip or
+     * sort change no longer rebuilds a row of nodes for every song.
+     */
     private void displaySongs() {
-        songListContainer.getChildren().clear();
-
-        if (songs == null || songs.isEmpty()) {
-            Label emptyLabel = new Label("No songs available");
-            emptyLabel.getStyleClass().add("empty-label");
-            songListContainer.getChildren().add(emptyLabel);
-            return;
-        }
+        songList.getItems().setAll(songs);
+    }
 
-        User user = Session.getInstance().getCurrentUser();
+    /** One reusable row: built once per visible cell, re-bound to whichever song scrolls into it. */
+    private final class SongCell extends ListCell<Song> {
+        private final HBox songRow = new HBox(15);
+        private final Label titleLabel = new Label();
+        private final Label genreLabel = new Label();
+        private final Label durationLabel = new Label();
+        private final Button likeBtn = new Button();
 
-        for (Song song : songs) {
-            HBox songRow = new HBox(15);
+        SongCell() {
             songRow.setAlignment(Pos.CENTER_LEFT);
             songRow.getStyleClass().add("song-row");
             songRow.setPadding(new Insets(10, 20, 10, 15));
@@ -114,22 +369,17 @@ public class AllSongsController {
             playBtn.setGraphic(playIcon);
             playBtn.setOnAction(e -> {
                 e.consume(); // ✅ prevent row click from also firing
-                playSong(song);
+                playSong(getItem());
             });
 
-            Label titleLabel = new Label(song.getTitle());
             titleLabel.getStyleClass().add("song-title");
             titleLabel.setMaxWidth(Double.MAX_VALUE);
             HBox.setHgrow(titleLabel, Priority.ALWAYS);
 
-            Label genreLabel = new Label(song.getGenre());
             genreLabel.getStyleClass().add("song-genre");
             genreLabel.setPrefWidth(100);
             genreLabel.setMinWidth(100);
 
-            String durationText = song.getFormattedDuration();
-            if (song.getDuration() == 0) durationText = "--:--";
-            Label durationLabel = new Label(durationText);
             durationLabel.getStyleClass().add("song-duration");
             durationLabel.setPrefWidth(60);
             durationLabel.setMinWidth(60);
@@ -142,48 +392,59 @@ public class AllSongsController {
             addBtn.setGraphic(addIcon);
             addBtn.setOnAction(e -> {
                 e.consume(); // ✅ prevent row click from also firing
-                showPlaylistDialog(song);
+                showPlaylistDialog(getItem());
             });
 
-            Button likeBtn = new Button();
             likeBtn.getStyleClass().add("ios-btn");
             likeBtn.setMinWidth(40);
             Region likeIcon = new Region();
             likeIcon.getStyleClass().addAll("icon-region", "icon-heart");
             likeBtn.setGraphic(likeIcon);
-
-            boolean isLiked = false;
-            if (user != null) {
-                isLiked = likedSongsDAO.isLiked(user.getUserId(), song.getSongId());
-            }
-            if (isLiked) likeBtn.getStyleClass().add("liked");
             likeBtn.setOnAction(e -> {
                 e.consume(); // ✅ prevent row click from also firing
-                toggleLike(song, likeBtn);
+                toggleLike(getItem(), likeBtn);
             });
 
             // ✅ Row click plays the song
-            songRow.setOnMouseClicked(e -> playSong(song));
+            songRow.setOnMouseClicked(e -> {
+                if (getItem() != null) playSong(getItem());
+            });
 
             songRow.getChildren().addAll(playBtn, titleLabel, genreLabel, durationLabel, addBtn, likeBtn);
-            songListContainer.getChildren().add(songRow);
+        }
+
+        @Override
+        protected void updateItem(Song song, boolean empty) {
+            super.updateItem(song, empty);
+            if (empty || song == null) {
+                setGraphic(null);
+                return;
+            }
+            titleLabel.setText(song.getTitle());
+            genreLabel.setText(song.getGenre());
+            durationLabel.setText(song.getDuration() == 0 ? "--:--" : song.getFormattedDuration());
+
+            boolean isLiked = Session.getInstance().getCurrentUser() != null
+                    && likedStore.isLiked(song.getSongId());
+            likeBtn.getStyleClass().remove("liked");
+            if (isLiked) likeBtn.getStyleClass().add("liked");
+            setGraphic(songRow);
         }
     }
+
     private void playSong(Song song) {
         MusicPlayerManager.getInstance().setQueue(songs);
+        PlaybackTrace.begin("all songs");
         MusicPlayerManager.getInstance().playFromQueue(songs.indexOf(song));
     }
 
     private void toggleLike(Song song, Button likeBtn) {
-        User user = Session.getInstance().getCurrentUser();
-        if (user == null) return;
-        boolean isLiked = likedSongsDAO.isLiked(user.getUserId(), song.getSongId());
-        if (isLiked) {
-            likedSongsDAO.unlikeSong(user.getUserId(), song.getSongId());
-            likeBtn.getStyleClass().remove("liked");
-        } else {
-            likedSongsDAO.likeSong(user.getUserId(), song.getSongId());
+        if (Session.getInstance().getCurrentUser() == null) return;
+        // ✅ Instant UI; the store coalesces rapid clicks into one batched write
+        if (likedStore.toggle(song.getSongId())) {
             if (!likeBtn.getStyleClass().contains("liked")) likeBtn.getStyleClass().add("liked");
+        } else {
+            likeBtn.getStyleClass().remove("liked");
         }
     }
 
@@ -191,7 +452,7 @@ public class AllSongsController {
     //  CUSTOM: Add to Playlist dialog
     // ─────────────────────────────────────────────────────────────
     private void showPlaylistDialog(Song song) {
-        Stage choiceStage = buildDialogStage(songListContainer);
+        Stage choiceStage = buildDialogStage(songList);
 
         Label titleLbl = new Label("Add Song");
         titleLbl.setStyle(
@@ -259,12 +520,12 @@ public class AllSongsController {
 
         addToPlaylistBtn.setOnAction(e -> {
             choiceStage.close();
-            showPlaylistDialogFor(song, playlistDAO, songListContainer, null);
+            showPlaylistDialogFor(song, songList, null);
         });
     }
 
     void showAlert(String header, String message) {
-        Stage stage = buildDialogStage(songListContainer);
+        Stage stage = buildDialogStage(songList);
 
         Label titleLbl = new Label(header);
         titleLbl.setStyle(
@@ -381,11 +642,16 @@ public class AllSongsController {
                 "-fx-border-color: rgba(255,255,255,0.12); -fx-border-width: 1px; -fx-border-radius: 10px;";
     }
 
-    static void showPlaylistDialogFor(Song song, PlaylistDAO playlistDAO, Region ownerNode, Runnable onAdded) {
+    static void showPlaylistDialogFor(Song song, Region ownerNode, Runnable onAdded) {
         User user = Session.getInstance().getCurrentUser();
         if (user == null) return;
 
-        List<Map<String, Object>> playlists = playlistDAO.getUserPlaylists(user.getUserId());
+        AsyncDAO.getInstance().getUserPlaylists(user.getUserId())
+                .thenAccept(playlists -> showPlaylistDialogFor(song, playlists, ownerNode, onAdded));
+    }
+
+    private static void showPlaylistDialogFor(Song song, List<Map<String, Object>> playlists,
+                                              Region ownerNode, Runnable onAdded) {
         if (playlists.isEmpty()) {
             showAlertStatic("No Playlists Found", "Create a playlist first before adding songs.", ownerNode);
             return;
@@ -477,16 +743,17 @@ public class AllSongsController {
         confirmBtn.setOnAction(e -> {
             String chosen = selectedName.get();
             stage.close();
-            Platform.runLater(() -> {
-                for (Map<String, Object> pl : playlists) {
-                    if (pl.get("playlist_name").equals(chosen)) {
-                        playlistDAO.addSongToPlaylist((int) pl.get("playlist_id"), song.getSongId());
-                        showAlertStatic("Added!", "\"" + song.getTitle() + "\" added to " + chosen + ".", ownerNode);
-                        if (onAdded != null) onAdded.run();
-                        break;
-                    }
+            for (Map<String, Object> pl : playlists) {
+                if (pl.get("playlist_name").equals(chosen)) {
+                    AsyncDAO.getInstance()
+                            .addSongToPlaylist((int) pl.get("playlist_id"), song.getSongId())
+                            .thenRun(() -> {
+                                showAlertStatic("Added!", "\"" + song.getTitle() + "\" added to " + chosen + ".", ownerNode);
+                                if (onAdded != null) onAdded.run();
+                            });
+                    break;
                 }
-            });
+            }
         });
 
         HBox btnRow = new HBox(10, cancelBtn, confirmBtn);
@@ -1,12 +1,13 @@
 
 package com.example.new_better.controllers;
 
-import com.example.new_better.dao.LikedSongsDAO;
-import com.example.new_better.dao.PlaylistDAO;
-import com.example.new_better.dao.RecentlyPlayedDAO;
+import com.example.new_better.dao.AsyncDAO;
 import com.example.new_better.models.Song;
 import com.example.new_better.models.User;
+import com.example.new_better.utils.FacetIndex;
+import com.example.new_better.utils.LikedSongsStore;
 import com.example.new_better.utils.MusicPlayerManager;
+import com.example.new_better.utils.PlaybackTrace;
 import com.example.new_better.utils.Session;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -24,43 +25,45 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
-public class LikedSongsController {
+public class LikedSongsController implements ViewCache.Refreshable {
 
     @FXML private VBox songListContainer;
 
-    private List<Song> likedSongs;
-    private List<Song> allLikedSongs;
-    private LikedSongsDAO likedSongsDAO;
-    private RecentlyPlayedDAO recentlyPlayedDAO;
-    private PlaylistDAO playlistDAO;
+    private List<Song> likedSongs = new ArrayList<>();
+    private List<Song> allLikedSongs = new ArrayList<>();
+    private AsyncDAO asyncDAO;
+    private final LikedSongsStore likedStore = LikedSongsStore.getInstance();
 
     @FXML
     private void initialize() {
-        likedSongsDAO = new LikedSongsDAO();
-        recentlyPlayedDAO = new RecentlyPlayedDAO();
-        playlistDAO = new PlaylistDAO();
+        asyncDAO = AsyncDAO.getInstance();
+        loadLikedSongs();
+    }
+
+    @Override
+    public void refresh() {
         loadLikedSongs();
     }
 
     private void loadLikedSongs() {
         User user = Session.getInstance().getCurrentUser();
         if (user == null) return;
-        allLikedSongs = likedSongsDAO.getLikedSongs(user.getUserId());
-        likedSongs = new ArrayList<>(allLikedSongs);
-        displaySongs();
+        // ✅ Let coalesced like/unlike clicks land first so the list is current
+        likedStore.ensureLoaded(user.getUserId())
+                .thenCompose(v -> likedStore.flushed())
+                .thenCompose(v -> asyncDAO.getLikedSongs(user.getUserId()))
+                .thenAccept(loaded -> {
+                    allLikedSongs = loaded;
+                    likedSongs = new ArrayList<>(allLikedSongs);
+                    displaySongs();
+                });
     }
 
     public void filterSongs(String query) {
-        if (query.isEmpty()) {
-            likedSongs = new ArrayList<>(allLikedSongs);
-        } else {
-            likedSongs = allLikedSongs.stream()
-                    .filter(song -> song.getTitle().toLowerCase().contains(query.toLowerCase()) ||
-                            song.getGenre().toLowerCase().contains(query.toLowerCase()))
-                    .collect(Collectors.toList());
-        }
+        // ✅ Matches against the facet index's pre-normalized keys (SearchKeys) instead of
+        // lowercasing every title on every keystroke
+        likedSongs = FacetIndex.current().filterText(allLikedSongs, query);
         displaySongs();
     }
 
@@ -132,8 +135,10 @@ public class LikedSongsController {
             unlikeBtn.setOnAction(e -> {
                 e.consume(); // ✅ stop bubbling to row
                 if (user == null) return;
-                likedSongsDAO.unlikeSong(user.getUserId(), song.getSongId());
-                loadLikedSongs();
+                likedStore.setLiked(song.getSongId(), false);
+                allLikedSongs.remove(song);
+                likedSongs.remove(song);
+                displaySongs();
             });
 
             // ✅ Row click plays the song
@@ -147,11 +152,12 @@ public class LikedSongsController {
     private void playSong(Song song) {
         MusicPlayerManager manager = MusicPlayerManager.getInstance();
         manager.setQueue(likedSongs);
+        PlaybackTrace.begin("liked");
         manager.playFromQueue(likedSongs.indexOf(song));
 
         User user = Session.getInstance().getCurrentUser();
         if (user != null) {
-            recentlyPlayedDAO.addToRecentlyPlayed(user.getUserId(), song.getSongId());
+            asyncDAO.addToRecentlyPlayed(user.getUserId(), song.getSongId());
         }
     }
 
@@ -162,7 +168,11 @@ public class LikedSongsController {
         User user = Session.getInstance().getCurrentUser();
         if (user == null) return;
 
-        List<Map<String, Object>> playlists = playlistDAO.getUserPlaylists(user.getUserId());
+        asyncDAO.getUserPlaylists(user.getUserId())
+                .thenAccept(playlists -> showPlaylistDialog(song, playlists));
+    }
+
+    private void showPlaylistDialog(Song song, List<Map<String, Object>> playlists) {
         if (playlists.isEmpty()) {
             showAlert("No Playlists Found", "Create a playlist first before adding songs.");
             return;
@@ -254,15 +264,13 @@ public class LikedSongsController {
         confirmBtn.setOnAction(e -> {
             String chosen = selectedName.get();
             stage.close();
-            Platform.runLater(() -> {
-                for (Map<String, Object> pl : playlists) {
-                    if (pl.get("playlist_name").equals(chosen)) {
-                        playlistDAO.addSongToPlaylist((int) pl.get("playlist_id"), song.getSongId());
-                        showAlert("Added!", "\"" + song.getTitle() + "\" added to " + chosen + ".");
-                        break;
-                    }
+            for (Map<String, Object> pl : playlists) {
+                if (pl.get("playlist_name").equals(chosen)) {
+                    asyncDAO.addSongToPlaylist((int) pl.get("playlist_id"), song.getSongId())
+                            .thenRun(() -> showAlert("Added!", "\"" + song.getTitle() + "\" added to " + chosen + "."));
+                    break;
                 }
-            });
+            }
         });
 
         HBox btnRow = new HBox(10, cancelBtn, confirmBtn);
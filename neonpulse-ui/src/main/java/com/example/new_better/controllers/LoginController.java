@@ -6,7 +6,6 @@ import com.example.new_better.MainApp;
 import com.example.new_better.dao.UserDAO;
 import com.example.new_better.models.User;
 import com.example.new_better.utils.Session;
-import com.example.new_better.utils.SongFolderImporter;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
@@ -80,11 +79,8 @@ public class LoginController {
                     return;
                 }
                 Session.getInstance().setCurrentUser(user);
-                // ✅ New call - pass the saved songs directory
-                String songsDir = SongFolderImporter.getSavedSongsDir();
-                if (songsDir != null) {
-                    SongFolderImporter.importSongsInBackground(songsDir);
-                }
+                // No rescan here: LibraryWatcher has been applying folder
+                // changes live since startup.
                 MainApp.changeScene(
                         "/com/example/new_better/views/mainPage.fxml",
                         "/com/example/new_better/css/sidebar.css",
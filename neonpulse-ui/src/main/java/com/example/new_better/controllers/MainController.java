@@ -1,10 +1,11 @@
 package com.example.new_better.controllers;
 
 import com.example.new_better.MainApp;
-import com.example.new_better.dao.PlaylistDAO;
-import com.example.new_better.dao.SongDAO;
-import com.example.new_better.models.Song;
+import com.example.new_better.dao.AsyncDAO;
 import com.example.new_better.models.User;
+import com.example.new_better.utils.LikedSongsStore;
+import com.example.new_better.utils.MusicPlayerManager;
+import com.example.new_better.utils.PerfStats;
 import com.example.new_better.utils.Session;
 import com.example.new_better.utils.SongFolderImporter;
 import javafx.application.Platform;
@@ -25,6 +26,7 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class MainController {
 
@@ -39,16 +41,40 @@ public class MainController {
     @FXML private VBox queueList;
     @FXML private VBox queuePanelContainer;
 
+    private static final String VIEWS = "/com/example/new_better/views/";
+
     private String currentView = "all_songs";
+    private String currentKey;  // currentView, plus the id for playlist pages
     private Object currentController;
+    private PlayerBarController playerBarController;
+    private QueueController queueController;
+
+    /*
+     * ✅ Pages stay loaded between tab switches (ViewCache). Instead of rebuilding
+     * them, these listeners mark the cached pages whose data changed; a stale
+     * page refreshes itself in place the next time it is shown. They're removed
+     * again on logout (along with the player bar's and queue panel's) so a new
+     * MainController doesn't leave the old one alive.
+     */
+    private final ViewCache views = new ViewCache();
+
+    private final Runnable importListener = () -> Platform.runLater(() -> {
+        views.markAllStale(currentKey);
+        if ("all_songs".equals(currentView)) views.refresh(currentKey);
+    });
+
+    private final LikedSongsStore.LikeListener likeListener =
+            (songId, liked) -> Platform.runLater(() -> views.markAllStale(currentKey));
+
+    // Song starts change the recents list and the profile's latency stats
+    private final MusicPlayerManager.SongChangeListener playbackListener =
+            song -> views.markStale("recently_played", "profile");
 
     @FXML
     private void initialize() {
-        SongFolderImporter.addImportListener(() -> {
-            Platform.runLater(() -> {
-                if ("all_songs".equals(currentView)) loadAllSongs();
-            });
-        });
+        SongFolderImporter.addImportListener(importListener);
+        LikedSongsStore.getInstance().addListener(likeListener);
+        MusicPlayerManager.getInstance().addListener(playbackListener);
 
         loadPlayerBar();
         loadPlaylists();
@@ -142,26 +168,16 @@ public class MainController {
     }
 
     private void handleSearch(String query) {
-        if (query.isEmpty()) {
-            reloadCurrentView();
-            return;
-        }
-        if (currentController instanceof AllSongsController) {
-            SongDAO songDAO = new SongDAO();
-            List<Song> results = songDAO.searchSongs(query);
-            ((AllSongsController) currentController).setSongs(results);
-            pageTitleLabel.setText("Search: " + query);
-        }
-    }
-
-    private void reloadCurrentView() {
-        switch (currentView) {
-            case "all_songs"       -> loadAllSongs();
-            case "liked_songs"     -> loadLikedSongs();
-            case "recently_played" -> loadRecentlyPlayed();
-            case "playlist"        -> loadPlaylistView();
-            default                -> loadAllSongs();
+        // ✅ Filtering is in memory now (FacetIndex): no reload or SQL LIKE per keystroke
+        if (currentController instanceof AllSongsController controller) {
+            controller.filterSongs(query);
+            pageTitleLabel.setText(query.isEmpty() ? "All Songs" : "Search: " + query);
+        } else if (currentController instanceof LikedSongsController controller) {
+            controller.filterSongs(query);
+        } else if (currentController instanceof RecentlyPlayedController controller) {
+            controller.filterSongs(query);
         }
+        // Other pages don't filter; typing there leaves them as they are
     }
 
     /* =========================================================
@@ -176,12 +192,14 @@ public class MainController {
             PlayerBarController pController = loader.getController();
             pController.setQueuePanelContainer(queuePanelContainer);
             pController.setMainController(this);
+            playerBarController = pController;
 
             playerBarContainer.getChildren().setAll(playerBar);
 
             FXMLLoader queueLoader = new FXMLLoader(
                     getClass().getResource("/com/example/new_better/views/queue_panel.fxml"));
             Node queuePanel = queueLoader.load();
+            queueController = queueLoader.getController();
             queueList.getChildren().setAll(queuePanel);
 
         } catch (Exception e) {
@@ -218,9 +236,10 @@ public class MainController {
         User user = Session.getInstance().getCurrentUser();
         if (user == null) return;
 
-        PlaylistDAO playlistDAO = new PlaylistDAO();
-        List<Map<String, Object>> playlists = playlistDAO.getUserPlaylists(user.getUserId());
+        AsyncDAO.getInstance().getUserPlaylists(user.getUserId()).thenAccept(this::showPlaylists);
+    }
 
+    private void showPlaylists(List<Map<String, Object>> playlists) {
         playlistList.getChildren().clear();
         for (Map<String, Object> playlist : playlists) {
             int playlistId    = (int) playlist.get("playlist_id");
@@ -234,120 +253,92 @@ public class MainController {
         }
     }
 
-    public void refreshPlaylists() { loadPlaylists(); }
+    public void refreshPlaylists() {
+        loadPlaylists();
+        views.markStale("playlist");
+    }
 
     /* =========================================================
        NAVIGATION
        ========================================================= */
-    public void loadPlaylistPage(int playlistId) {
-        try {
-            searchField.clear();
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/example/new_better/views/playlist_page.fxml"));
-            Node content = loader.load();
 
-            PlaylistPageController controller = loader.getController();
-            controller.setPlaylistId(playlistId);
-            controller.loadPlaylist();
+    /**
+     * Puts a page on screen: from the view cache once it has been built, so a
+     * warm tab switch is a node swap. Returns false if its FXML failed to load.
+     */
+    private boolean showView(String key, String view, String fxml, Consumer<Object> onCreate) {
+        long start = System.nanoTime();
+        // Clearing first resets the outgoing page's filter, so it comes back unfiltered
+        searchField.clear();
+        ViewCache.View cached = views.get(key, getClass().getResource(VIEWS + fxml), onCreate);
+        if (cached == null) return false;
+
+        pageContentContainer.getChildren().setAll(cached.root());
+        currentController = cached.controller();
+        currentView = view;
+        currentKey = key;
+
+        double millis = PerfStats.record("view switch", start);
+        if (millis > 16) PerfStats.log("🐢 Switching to %s took %.1f ms%n", key, millis);
+        return true;
+    }
 
-            pageContentContainer.getChildren().setAll(content);
-            currentController = controller;
-            currentView = "playlist_page";
+    public void loadPlaylistPage(int playlistId) {
+        if (!showView("playlist_page:" + playlistId, "playlist_page", "playlist_page.fxml",
+                c -> ((PlaylistPageController) c).setPlaylistId(playlistId))) return;
 
-            PlaylistDAO dao = new PlaylistDAO();
-            Map<String, Object> pl = dao.getPlaylistById(playlistId);
-            if (pl != null) pageTitleLabel.setText((String) pl.get("playlist_name"));
+        // Songs get added to playlists from every song list without an event to
+        // hang a stale mark on, so even a cached playlist page re-reads its songs.
+        PlaylistPageController controller = (PlaylistPageController) currentController;
+        controller.loadPlaylist();
 
-        } catch (Exception e) { e.printStackTrace(); }
+        AsyncDAO.getInstance().getPlaylistById(playlistId).thenAccept(pl -> {
+            if (pl != null && currentController == controller) {
+                pageTitleLabel.setText((String) pl.get("playlist_name"));
+            }
+        });
     }
 
     @FXML
     private void loadPlaylistView() {
-        try {
-            searchField.clear();
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/example/new_better/views/playlist.fxml"));
-            Node content = loader.load();
-
-            PlaylistController controller = loader.getController();
+        if (showView("playlist", "playlist", "playlist.fxml", c -> {
+            PlaylistController controller = (PlaylistController) c;
             controller.setMainController(this);
             controller.loadUserPlaylists();
-
-            pageContentContainer.getChildren().setAll(content);
-            currentController = controller;
-            currentView = "playlist";
+        })) {
             pageTitleLabel.setText("Your Playlists");
-
-        } catch (Exception e) { e.printStackTrace(); }
+        }
     }
 
     @FXML
     private void loadAllSongs() {
-        try {
-            searchField.clear();
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/example/new_better/views/all_songs.fxml"));
-            Node content = loader.load();
-
-            pageContentContainer.getChildren().setAll(content);
-            currentController = loader.getController();
-            currentView = "all_songs";
+        if (showView("all_songs", "all_songs", "all_songs.fxml", null)) {
             pageTitleLabel.setText("All Songs");
-
-        } catch (Exception e) { e.printStackTrace(); }
+        }
     }
 
     @FXML
     private void loadLikedSongs() {
-        try {
-            searchField.clear();
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/example/new_better/views/liked_songs.fxml"));
-            Node content = loader.load();
-
-            pageContentContainer.getChildren().setAll(content);
-            currentController = loader.getController();
-            currentView = "liked_songs";
+        if (showView("liked_songs", "liked_songs", "liked_songs.fxml", null)) {
             pageTitleLabel.setText("Liked Songs");
-
-        } catch (Exception e) { e.printStackTrace(); }
+        }
     }
 
     @FXML
     private void loadRecentlyPlayed() {
-        try {
-            searchField.clear();
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/example/new_better/views/recently_played.fxml"));
-            Node content = loader.load();
-
-            pageContentContainer.getChildren().setAll(content);
-            currentController = loader.getController();
-            currentView = "recently_played";
+        if (showView("recently_played", "recently_played", "recently_played.fxml", null)) {
             pageTitleLabel.setText("Recently Played");
-
-        } catch (Exception e) { e.printStackTrace(); }
+        }
     }
 
     @FXML
     private void loadProfile() {
-        try {
-            searchField.clear();
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/example/new_better/views/profile.fxml"));
-            Node content = loader.load();
-
-            // ✅ Pass MainController reference to ProfileController so it can
-            // call refreshProfileAvatar() after the user changes their picture
-            ProfileController profileController = loader.getController();
-            profileController.setMainController(this);
-
-            pageContentContainer.getChildren().setAll(content);
-            currentController = profileController;
-            currentView = "profile";
+        // ✅ Pass MainController reference to ProfileController so it can
+        // call refreshProfileAvatar() after the user changes their picture
+        if (showView("profile", "profile", "profile.fxml",
+                c -> ((ProfileController) c).setMainController(this))) {
             pageTitleLabel.setText("Profile");
-
-        } catch (Exception e) { e.printStackTrace(); }
+        }
     }
 
     /* =========================================================
@@ -355,6 +346,12 @@ public class MainController {
        ========================================================= */
     @FXML
     private void handleLogout() {
+        SongFolderImporter.removeImportListener(importListener);
+        LikedSongsStore.getInstance().removeListener(likeListener);
+        MusicPlayerManager.getInstance().removeListener(playbackListener);
+        if (playerBarController != null) playerBarController.dispose();
+        if (queueController != null) queueController.dispose();
+        views.clear();
         Session.getInstance().logout();
         MainApp.changeScene("/com/example/new_better/views/login.fxml",
                 "/com/example/new_better/css/auth.css");
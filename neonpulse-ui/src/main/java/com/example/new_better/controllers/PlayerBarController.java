@@ -1,19 +1,33 @@
 package com.example.new_better.controllers;
 
-import com.example.new_better.dao.LikedSongsDAO;
-import com.example.new_better.dao.RecentlyPlayedDAO;
+import com.example.new_better.dao.AsyncDAO;
 import com.example.new_better.models.Song;
+import com.example.new_better.utils.JavaFxBackend;
+import com.example.new_better.utils.LikedSongsStore;
 import com.example.new_better.utils.MusicPlayerManager;
+import com.example.new_better.utils.PlaybackTrace;
 import com.example.new_better.utils.Session;
+import com.example.new_better.utils.SpectrumVisualizer;
+import com.example.new_better.utils.WaveformCache;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
+import javafx.beans.value.ObservableValue;
 import javafx.fxml.FXML;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.shape.SVGPath;
+import javafx.stage.Stage;
 import javafx.util.Duration;
 
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * ARCHITECTURAL CHANGES vs ORIGINAL:
  *
@@ -25,6 +39,10 @@ import javafx.util.Duration;
  *        every ~66ms for audio, timed to the media clock, not a wall clock).
  *      - Timeline polling can drift; the native listener never does.
  *      - We still guard against seek conflicts with isUserDraggingSlider.
+ *    ✅ FIX: The listener no longer posts a runLater per tick. It only stores
+ *    the position in a volatile field; one AnimationTimer applies it at most
+ *    once per pulse, skips unchanged positions, reformats the time label only
+ *    when a whole second rolls over, and stops while paused or minimized.
  *
  * 2. [UI PRECISION] totalDurationProperty listener sets the slider max ONCE when
  *    the media is ready, rather than recalculating it every update tick.
@@ -35,14 +53,17 @@ import javafx.util.Duration;
  *    one, causing listener accumulation and potential memory leaks over a long
  *    listening session.
  *
- * 4. [ERROR HANDLING] handleLike() now wraps DAO calls in a try/catch and shows
- *    a non-fatal warning dialog on failure rather than silently swallowing errors.
+ * 4. [ERROR HANDLING] handleLike() flips the heart instantly through
+ *    LikedSongsStore, which coalesces rapid toggles into one batched write. If
+ *    the batch fails the store reverts the heart and we show a non-fatal
+ *    warning dialog rather than silently swallowing errors.
  *
  * 5. [THREAD SAFETY] All UI mutations are explicitly wrapped in Platform.runLater()
  *    where there's any chance they're called from a non-JAT context (e.g., the
  *    MediaPlayer's internal media thread).
  */
-public class PlayerBarController implements MusicPlayerManager.SongChangeListener {
+public class PlayerBarController implements MusicPlayerManager.SongChangeListener,
+        LikedSongsStore.LikeListener {
 
     // ─── FXML Bindings ───────────────────────────────────────────────────────
 
@@ -58,6 +79,9 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
     @FXML private Button likeBtn;
     @FXML private Slider progressSlider;
     @FXML private Slider volumeSlider;
+    @FXML private StackPane seekPane;
+    @FXML private Canvas waveformCanvas;
+    @FXML private SpectrumVisualizer spectrumVisualizer;
 
     // ─── SVG Icon Paths ──────────────────────────────────────────────────────
 
@@ -68,8 +92,8 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
 
     // ─── State ───────────────────────────────────────────────────────────────
 
-    private LikedSongsDAO likedSongsDAO;
-    private RecentlyPlayedDAO recentlyPlayedDAO;
+    private AsyncDAO asyncDAO;
+    private LikedSongsStore likedStore;
     private boolean isUserDraggingSlider = false;
     private MainController mainController;
 
@@ -82,18 +106,63 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
     private InvalidationListener currentTimeListener;
     private InvalidationListener statusListener;
 
+    // Pulse-aligned progress: the media thread writes the latest position,
+    // progressTimer renders it. Paused seeks post a single coalesced refresh.
+    private volatile double latestPosition = -1;
+    private volatile boolean progressTimerRunning;
+    private final AtomicBoolean refreshPosted = new AtomicBoolean();
+    private double renderedPosition = -1;
+    private double renderedTotal = -1;
+    private int labelSecond = -1;
+    private int labelTotalSecond = -1;
+    private final AnimationTimer progressTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            updateProgressUI();
+        }
+    };
+    // The player our listeners are on. With crossfade the manager has already
+    // switched to the incoming player when it notifies us, so asking it for the
+    // "old" one would detach from the wrong player and leave the outgoing one
+    // driving the progress bar until it's disposed.
+    private MediaPlayer attachedPlayer;
+
+    // Seek-bar waveform for the current song (null until loaded) and the
+    // background job producing it, cancelled when the song changes.
+    private static final Color WAVE_PLAYED   = Color.web("#0A84FF");
+    private static final Color WAVE_UNPLAYED = Color.rgb(255, 255, 255, 0.25);
+    private WaveformCache.Waveform waveform;
+    private Future<?> waveformTask;
+
     // ─── Initialization ──────────────────────────────────────────────────────
 
     @FXML
     public void initialize() {
-        likedSongsDAO    = new LikedSongsDAO();
-        recentlyPlayedDAO = new RecentlyPlayedDAO();
+        asyncDAO = AsyncDAO.getInstance();
+        likedStore = LikedSongsStore.getInstance();
+        likedStore.addListener(this);
         MusicPlayerManager.getInstance().addListener(this);
         initializeVolumeControl();
         initializeProgressLogic();
+        initializeWaveform();
         syncCurrentState();
     }
 
+    /**
+     * Unhooks this player bar from the app-wide singletons on logout. The next
+     * login builds a new bar; without this the old one stayed registered, so
+     * every song change and failed like sync ran once per past login.
+     */
+    public void dispose() {
+        likedStore.removeListener(this);
+        MusicPlayerManager.getInstance().removeListener(this);
+        detachMediaListeners(attachedPlayer);
+        attachedPlayer = null;
+        progressTimer.stop();
+        if (waveformTask != null) waveformTask.cancel(true);
+        waveformTask = null;
+    }
+
     public void setMainController(MainController mainController) {
         this.mainController = mainController;
     }
@@ -117,22 +186,49 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
 
         // Drag end: seek to where the user dropped the thumb.
         progressSlider.setOnMouseReleased(e -> {
-            MediaPlayer player = MusicPlayerManager.getInstance().getMediaPlayer();
-            if (player != null) {
-                player.seek(Duration.seconds(progressSlider.getValue()));
-            }
+            MusicPlayerManager.getInstance().seek(progressSlider.getValue());
             isUserDraggingSlider = false;
         });
 
         // ✅ FIX: Define listeners as fields (not inline lambdas) so they can
         // be cleanly removed when the MediaPlayer changes.
         currentTimeListener = obs -> {
-            if (!isUserDraggingSlider) {
-                Platform.runLater(this::updateProgressUI);
+            Object time = ((ObservableValue<?>) obs).getValue();
+            latestPosition = time instanceof Duration d ? d.toSeconds() : -1;
+            if (!progressTimerRunning && refreshPosted.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    refreshPosted.set(false);
+                    updateProgressUI();
+                });
             }
         };
 
-        statusListener = obs -> Platform.runLater(this::updatePlayPauseButton);
+        statusListener = obs -> Platform.runLater(() -> {
+            updatePlayPauseButton();
+            updateProgressTimer();
+        });
+
+        // Minimizing stops the timer; restoring restarts it if still playing.
+        progressSlider.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (scene == null) return;
+            scene.windowProperty().addListener((o, oldWindow, window) -> {
+                if (window instanceof Stage stage) {
+                    stage.iconifiedProperty().addListener(i -> updateProgressTimer());
+                }
+            });
+        });
+    }
+
+    /** Runs the progress timer only while the attached player is playing and the window is up. */
+    private void updateProgressTimer() {
+        boolean minimized = progressSlider.getScene() != null
+                && progressSlider.getScene().getWindow() instanceof Stage stage && stage.isIconified();
+        boolean run = attachedPlayer != null && !minimized
+                && attachedPlayer.getStatus() == MediaPlayer.Status.PLAYING;
+        if (run == progressTimerRunning) return;
+        progressTimerRunning = run;
+        if (run) progressTimer.start();
+        else progressTimer.stop();
     }
 
     /**
@@ -174,22 +270,90 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
         if (statusListener != null)      player.statusProperty().removeListener(statusListener);
     }
 
+    /**
+     * Applies the newest position from the media thread. Runs once per pulse
+     * while playing (or once per coalesced refresh while paused) and does
+     * nothing if the position hasn't moved or the user is dragging.
+     */
     private void updateProgressUI() {
-        MediaPlayer player = MusicPlayerManager.getInstance().getMediaPlayer();
-        if (player == null) return;
+        MediaPlayer player = attachedPlayer;
+        if (player == null || isUserDraggingSlider) return;
+
+        Duration totalDuration = player.getTotalDuration();
+        double current = latestPosition;
+        double total = totalDuration != null ? totalDuration.toSeconds() : 0;
+        if (current < 0 || total <= 0) return;
+        if (current == renderedPosition && total == renderedTotal) return;
+        renderedPosition = current;
+        renderedTotal = total;
+
+        progressSlider.setValue(current);
+        drawWaveform();
+
+        // Strings are only built when the displayed second actually changes
+        if (timeLabel != null && ((int) current != labelSecond || (int) total != labelTotalSecond)) {
+            labelSecond = (int) current;
+            labelTotalSecond = (int) total;
+            timeLabel.setText(formatTime(current) + " / " + formatTime(total));
+        }
+    }
 
-        Duration currentDuration = player.getCurrentTime();
-        Duration totalDuration   = player.getTotalDuration();
-        if (currentDuration == null || totalDuration == null) return;
+    // ─── Waveform ────────────────────────────────────────────────────────────
 
-        double current = currentDuration.toSeconds();
-        double total   = totalDuration.toSeconds();
+    private void initializeWaveform() {
+        // The canvas is unmanaged so it never drives the pane's size; it just
+        // tracks the slider's width and redraws when resized or dragged.
+        waveformCanvas.widthProperty().bind(seekPane.widthProperty());
+        waveformCanvas.widthProperty().addListener(obs -> drawWaveform());
+        progressSlider.valueProperty().addListener(obs -> {
+            if (isUserDraggingSlider) drawWaveform();
+        });
+    }
 
-        if (total > 0) {
-            progressSlider.setValue(current);
-            if (timeLabel != null) {
-                timeLabel.setText(formatTime(current) + " / " + formatTime(total));
-            }
+    /**
+     * Cancels the previous song's waveform job and starts one for this song.
+     * Partial results stream in from WaveformCache on the FX thread.
+     */
+    private void requestWaveform(Song song) {
+        if (waveformTask != null) waveformTask.cancel(true);
+        waveformTask = null;
+        showWaveform(null);
+        if (song == null) return;
+
+        waveformTask = WaveformCache.request(song, wf -> {
+            if (song.equals(MusicPlayerManager.getInstance().getCurrentSong())) showWaveform(wf);
+        });
+    }
+
+    private void showWaveform(WaveformCache.Waveform wf) {
+        waveform = wf;
+        seekPane.getStyleClass().remove("has-waveform");
+        if (wf != null) seekPane.getStyleClass().add("has-waveform");
+        drawWaveform();
+    }
+
+    /** One bar per bucket, blue up to the playhead and grey after it. */
+    private void drawWaveform() {
+        GraphicsContext g = waveformCanvas.getGraphicsContext2D();
+        double width = waveformCanvas.getWidth();
+        double height = waveformCanvas.getHeight();
+        g.clearRect(0, 0, width, height);
+        if (waveform == null || width <= 0) return;
+
+        double played = progressSlider.getMax() > 0 ? progressSlider.getValue() / progressSlider.getMax() : 0;
+        double step = width / WaveformCache.BUCKETS;
+        double barWidth = Math.max(1, step - 0.5);
+        double mid = height / 2;
+        double scale = mid / 127.0;
+
+        byte[] min = waveform.min();
+        byte[] max = waveform.max();
+        for (int i = 0; i < waveform.filled() && i < WaveformCache.BUCKETS; i++) {
+            double x = i * step;
+            g.setFill(x < played * width ? WAVE_PLAYED : WAVE_UNPLAYED);
+            double top = mid - max[i] * scale;
+            double bottom = mid - min[i] * scale;
+            g.fillRect(x, top, barWidth, Math.max(1, bottom - top));
         }
     }
 
@@ -203,8 +367,15 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
     // ─── Playback Controls ───────────────────────────────────────────────────
 
     @FXML private void handlePlayPause() { MusicPlayerManager.getInstance().playPause(); }
-    @FXML private void handleNext()      { MusicPlayerManager.getInstance().playNext(); }
-    @FXML private void handlePrevious() { MusicPlayerManager.getInstance().playPrevious(); }
+    @FXML private void handleNext() {
+        PlaybackTrace.begin("next");
+        MusicPlayerManager.getInstance().playNext();
+    }
+
+    @FXML private void handlePrevious() {
+        PlaybackTrace.begin("previous");
+        MusicPlayerManager.getInstance().playPrevious();
+    }
 
     @FXML
     private void handleShuffle() {
@@ -235,33 +406,34 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
     private void handleLike() {
         Song current = MusicPlayerManager.getInstance().getCurrentSong();
         if (current == null || Session.getInstance().getCurrentUser() == null) return;
-        int userId = Session.getInstance().getCurrentUser().getUserId();
-
-        // ✅ FIX: Wrap DAO calls in try/catch and show a warning on failure.
-        try {
-            boolean isLiked = likedSongsDAO.isLiked(userId, current.getSongId());
-            if (isLiked) likedSongsDAO.unlikeSong(userId, current.getSongId());
-            else         likedSongsDAO.likeSong(userId, current.getSongId());
-            updateLikeState();
-        } catch (Exception e) {
-            System.err.println("Like action failed: " + e.getMessage());
-            // Non-fatal: show warning but don't crash the app
-            Platform.runLater(() -> {
-                Alert alert = new Alert(Alert.AlertType.WARNING);
-                alert.setTitle("Like Failed");
-                alert.setHeaderText("Could not update like status.");
-                alert.setContentText("Please check your database connection and try again.");
-                alert.show();
-            });
+
+        // Flips instantly; the store batches the write and calls back on failure.
+        showLikeIcon(likedStore.toggle(current.getSongId()));
+    }
+
+    @Override
+    public void onLikeChanged(int songId, boolean liked) {
+        Song current = MusicPlayerManager.getInstance().getCurrentSong();
+        if (current != null && current.getSongId() == songId) {
+            showLikeIcon(liked);
         }
     }
 
+    /** ✅ FIX: show a warning when a batched like/unlike could not be saved. */
+    @Override
+    public void onLikeSyncFailed() {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Like Failed");
+        alert.setHeaderText("Could not update like status.");
+        alert.setContentText("Please check your database connection and try again.");
+        alert.show();
+    }
+
     // ─── UI State Updaters ───────────────────────────────────────────────────
 
     private void updatePlayPauseButton() {
-        MediaPlayer player = MusicPlayerManager.getInstance().getMediaPlayer();
         if (playPauseIcon == null) return;
-        boolean playing = player != null && player.getStatus() == MediaPlayer.Status.PLAYING;
+        boolean playing = MusicPlayerManager.getInstance().isPlaying();
         playPauseIcon.setContent(playing ? PAUSE_PATH : PLAY_PATH);
     }
 
@@ -289,16 +461,19 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
     private void updateLikeState() {
         Song current = MusicPlayerManager.getInstance().getCurrentSong();
         if (current == null || Session.getInstance().getCurrentUser() == null) return;
-        try {
-            boolean liked = likedSongsDAO.isLiked(
-                    Session.getInstance().getCurrentUser().getUserId(),
-                    current.getSongId());
-            if (likeBtn != null && likeBtn.getGraphic() instanceof SVGPath icon) {
-                icon.setContent(liked ? HEART_FILLED : HEART_OUTLINE);
-                icon.setStyle(liked ? "-fx-fill: #FF2D55;" : "-fx-fill: white;");
-            }
-        } catch (Exception e) {
-            System.err.println("Could not read like state: " + e.getMessage());
+        likedStore.ensureLoaded(Session.getInstance().getCurrentUser().getUserId())
+                .thenRun(() -> {
+                    // Ignore answers for a track that is no longer playing
+                    if (current.equals(MusicPlayerManager.getInstance().getCurrentSong())) {
+                        showLikeIcon(likedStore.isLiked(current.getSongId()));
+                    }
+                });
+    }
+
+    private void showLikeIcon(boolean liked) {
+        if (likeBtn != null && likeBtn.getGraphic() instanceof SVGPath icon) {
+            icon.setContent(liked ? HEART_FILLED : HEART_OUTLINE);
+            icon.setStyle(liked ? "-fx-fill: #FF2D55;" : "-fx-fill: white;");
         }
     }
 
@@ -321,24 +496,30 @@ public class PlayerBarController implements MusicPlayerManager.SongChangeListene
      */
     @Override
     public void onSongChanged(Song song) {
-        // Detach from whatever player was active before
-        MediaPlayer oldPlayer = MusicPlayerManager.getInstance().getMediaPlayer();
-        detachMediaListeners(oldPlayer);
-
         Platform.runLater(() -> {
+            // Detach from whatever player was active before
+            detachMediaListeners(attachedPlayer);
+            attachedPlayer = null;
+            requestWaveform(song);
+
             if (song != null) {
                 songTitleLabel.setText(song.getTitle());
                 songGenreLabel.setText(song.getGenre());
                 updateLikeState();
                 if (Session.getInstance().getCurrentUser() != null) {
-                    recentlyPlayedDAO.addToRecentlyPlayed(
+                    asyncDAO.addToRecentlyPlayed(
                             Session.getInstance().getCurrentUser().getUserId(),
                             song.getSongId());
                 }
             }
             // Attach to the new player
-            MediaPlayer newPlayer = MusicPlayerManager.getInstance().getMediaPlayer();
+            MediaPlayer newPlayer = JavaFxBackend.playerOf(MusicPlayerManager.getInstance().getCurrentTrack());
+            latestPosition = -1;
+            renderedPosition = renderedTotal = -1;
             attachMediaListeners(newPlayer);
+            attachedPlayer = newPlayer;
+            spectrumVisualizer.attach(newPlayer);
+            updateProgressTimer();
             updatePlayPauseButton();
         });
     }
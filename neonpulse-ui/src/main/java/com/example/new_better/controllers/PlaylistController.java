@@ -1,7 +1,6 @@
 package com.example.new_better.controllers;
 
-import com.example.new_better.dao.PlaylistDAO;
-import com.example.new_better.models.Song;
+import com.example.new_better.dao.AsyncDAO;
 import com.example.new_better.models.User;
 import com.example.new_better.utils.PlaylistDownloader;
 import com.example.new_better.utils.Session;
@@ -29,7 +28,7 @@ import java.net.URL;
 import java.util.List;
 import java.util.Map;
 
-public class PlaylistController {
+public class PlaylistController implements ViewCache.Refreshable {
 
     @FXML
     private FlowPane playlistsContainer;
@@ -40,6 +39,11 @@ public class PlaylistController {
         this.mainController = mainController;
     }
 
+    @Override
+    public void refresh() {
+        loadUserPlaylists();
+    }
+
     /**
      * Loads user and system playlists into the UI container.
      * iOS Level: Adds a Context Menu for triggering the Download utility.
@@ -47,14 +51,18 @@ public class PlaylistController {
     public void loadUserPlaylists() {
         // 🔥 Fix: Add bottom padding so the last card isn't clipped or blocked by the UI edge
         playlistsContainer.setPadding(new javafx.geometry.Insets(20, 20, 80, 20));
-        playlistsContainer.getChildren().clear();
 
         User user = Session.getInstance().getCurrentUser();
-        if (user == null) return;
+        if (user == null) {
+            playlistsContainer.getChildren().clear();
+            return;
+        }
 
-        PlaylistDAO playlistDAO = new PlaylistDAO();
-        List<Map<String, Object>> playlists = playlistDAO.getUserPlaylists(user.getUserId());
+        AsyncDAO.getInstance().getUserPlaylists(user.getUserId()).thenAccept(this::showPlaylists);
+    }
 
+    private void showPlaylists(List<Map<String, Object>> playlists) {
+        playlistsContainer.getChildren().clear();
         for (Map<String, Object> playlist : playlists) {
             int playlistId = (int) playlist.get("playlist_id");
             String playlistName = (String) playlist.get("playlist_name");
@@ -122,14 +130,13 @@ public class PlaylistController {
      * Handles the call to the specialized PlaylistDownloader utility.
      */
     private void handleDownloadAction(int playlistId, String playlistName, boolean isSystem) {
-        PlaylistDAO dao = new PlaylistDAO();
-        List<Song> songs = dao.getPlaylistSongs(playlistId);
+        AsyncDAO.getInstance().getPlaylistSongs(playlistId).thenAccept(songs -> {
+            // Retrieve the current stage for the DirectoryChooser dialog
+            Stage stage = (Stage) playlistsContainer.getScene().getWindow();
 
-        // Retrieve the current stage for the DirectoryChooser dialog
-        Stage stage = (Stage) playlistsContainer.getScene().getWindow();
-
-        // Execute the real file download utility
-        PlaylistDownloader.downloadPlaylist(playlistName, songs, stage, isSystem);
+            // Execute the real file download utility
+            PlaylistDownloader.downloadPlaylist(playlistName, songs, stage, isSystem);
+        });
     }
 
     /**
@@ -167,9 +174,11 @@ public class PlaylistController {
                 if (!name.isEmpty()) {
                     User user = Session.getInstance().getCurrentUser();
                     if (user != null) {
-                        new PlaylistDAO().createPlaylist(user.getUserId(), name, false);
-                        loadUserPlaylists();
-                        if (mainController != null) mainController.refreshPlaylists();
+                        AsyncDAO.getInstance().createPlaylist(user.getUserId(), name, false)
+                                .thenRun(() -> {
+                                    loadUserPlaylists();
+                                    if (mainController != null) mainController.refreshPlaylists();
+                                });
                     }
                 }
                 dialogStage.close();
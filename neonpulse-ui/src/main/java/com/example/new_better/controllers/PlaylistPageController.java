@@ -1,9 +1,9 @@
 package com.example.new_better.controllers;
 
-import com.example.new_better.dao.PlaylistDAO;
-import com.example.new_better.dao.SongDAO;
+import com.example.new_better.dao.AsyncDAO;
 import com.example.new_better.models.Song;
 import com.example.new_better.utils.MusicPlayerManager;
+import com.example.new_better.utils.PlaybackTrace;
 import com.example.new_better.utils.PlaylistDownloader;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
@@ -12,14 +12,12 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
-import javafx.scene.media.MediaPlayer;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-public class PlaylistPageController {
+public class PlaylistPageController implements ViewCache.Refreshable {
 
     @FXML private VBox songListContainer;
     @FXML private Button infinityBtn;
@@ -31,14 +29,12 @@ public class PlaylistPageController {
     private boolean infinityMode = false;
     private List<Song> currentSongs;
 
-    private PlaylistDAO playlistDAO;
-    private SongDAO songDAO;
+    private AsyncDAO asyncDAO;
 
     @FXML
     private void initialize() {
-        // ✅ Deployment Ready: These DAOs now use dynamic DB paths
-        playlistDAO = new PlaylistDAO();
-        songDAO = new SongDAO();
+        // ✅ All DB work goes through the async facade — nothing blocks the FX thread
+        asyncDAO = AsyncDAO.getInstance();
         Tooltip.install(infinityBtn, new Tooltip("Loop entire playlist"));
     }
 
@@ -46,24 +42,34 @@ public class PlaylistPageController {
         this.playlistId = playlistId;
     }
 
+    @Override
+    public void refresh() {
+        loadPlaylist();
+    }
+
     public void loadPlaylist() {
         if (songListContainer == null) return;
-        songListContainer.getChildren().clear();
 
-        // 1. Get Metadata from synchronized DB
-        Map<String, Object> details = playlistDAO.getPlaylistById(playlistId);
-        if (details == null) return;
-
-        this.playlistName = (String) details.get("playlist_name");
-        int systemFlag = (int) details.getOrDefault("is_system", 0);
-        this.isSystem = (systemFlag == 1);
+        // 1. Get Metadata, then 2. load songs based on deployment-safe logic
+        asyncDAO.getPlaylistById(playlistId).thenAccept(details -> {
+            if (details == null) return;
+
+            this.playlistName = (String) details.get("playlist_name");
+            int systemFlag = (int) details.getOrDefault("is_system", 0);
+            this.isSystem = (systemFlag == 1);
+
+            // System playlists are genre-keyed: resolve their songs by genre id
+            int genreId = (int) details.getOrDefault("genre_id", 0);
+            CompletableFuture<List<Song>> songsFuture = !isSystem ? asyncDAO.getPlaylistSongs(playlistId)
+                    : genreId > 0 ? asyncDAO.getSongsByGenreId(genreId)
+                    : asyncDAO.getSongsByGenre(playlistName);
+            songsFuture.thenAccept(this::showSongs);
+        });
+    }
 
-        // 2. Load Songs based on deployment-safe logic
-        if (isSystem) {
-            currentSongs = songDAO.getSongsByGenre(playlistName);
-        } else {
-            currentSongs = playlistDAO.getPlaylistSongs(playlistId);
-        }
+    private void showSongs(List<Song> songs) {
+        currentSongs = songs;
+        songListContainer.getChildren().clear();
 
         if (currentSongs == null || currentSongs.isEmpty()) {
             Label empty = new Label("No songs in this playlist");
@@ -126,8 +132,8 @@ public class PlaylistPageController {
 
                 removeBtn.setOnAction(e -> {
                     e.consume(); // ✅ stop bubbling to row
-                    playlistDAO.removeSongFromPlaylist(playlistId, song.getSongId());
-                    loadPlaylist();
+                    asyncDAO.removeSongFromPlaylist(playlistId, song.getSongId())
+                            .thenRun(this::loadPlaylist);
                 });
 
                 songRow.getChildren().add(removeBtn);
@@ -143,6 +149,7 @@ public class PlaylistPageController {
     private void playFromPlaylist(Song song) {
         MusicPlayerManager manager = MusicPlayerManager.getInstance();
         manager.setQueue(currentSongs);
+        PlaybackTrace.begin("playlist");
         manager.playFromQueue(currentSongs.indexOf(song));
 
         if (infinityMode) {
@@ -177,19 +184,19 @@ public class PlaylistPageController {
 
     @FXML
     private void handleJumpAhead() {
-        MediaPlayer player = MusicPlayerManager.getInstance().getMediaPlayer();
-        if (player != null) {
-            Duration newTime = player.getCurrentTime().add(Duration.seconds(10));
-            player.seek(newTime.greaterThan(player.getTotalDuration()) ? player.getTotalDuration() : newTime);
+        MusicPlayerManager manager = MusicPlayerManager.getInstance();
+        if (manager.getCurrentTrack() != null) {
+            double newTime = manager.getPosition() + 10;
+            double total = manager.getDuration();
+            manager.seek(newTime > total ? total : newTime);
         }
     }
 
     @FXML
     private void handleJumpBack() {
-        MediaPlayer player = MusicPlayerManager.getInstance().getMediaPlayer();
-        if (player != null) {
-            Duration newTime = player.getCurrentTime().subtract(Duration.seconds(10));
-            player.seek(newTime.lessThan(Duration.ZERO) ? Duration.ZERO : newTime);
+        MusicPlayerManager manager = MusicPlayerManager.getInstance();
+        if (manager.getCurrentTrack() != null) {
+            manager.seek(Math.max(0, manager.getPosition() - 10));
         }
     }
 }
\ No newline at end of file
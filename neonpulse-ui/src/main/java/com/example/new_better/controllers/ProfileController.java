@@ -2,6 +2,9 @@ package com.example.new_better.controllers;
 
 import com.example.new_better.MainApp;
 import com.example.new_better.models.User;
+import com.example.new_better.utils.PerfStats;
+import com.example.new_better.utils.PlaybackTrace;
+import com.example.new_better.utils.ReadAheadPrefetcher;
 import com.example.new_better.utils.Session;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -32,11 +35,15 @@ import java.nio.file.StandardCopyOption;
  * 4. [NEW] setMainController() added so that after a picture change, the
  *    top-right circle avatar in MainController refreshes automatically.
  */
-public class ProfileController {
+public class ProfileController implements ViewCache.Refreshable {
 
     @FXML private ImageView profileImageView;
     @FXML private javafx.scene.control.Label usernameLabel;
     @FXML private javafx.scene.control.Label emailLabel;
+    @FXML private javafx.scene.control.Label crossfadeLabel;
+    @FXML private javafx.scene.control.Slider crossfadeSlider;
+    @FXML private javafx.scene.control.Label latencyLabel;
+    @FXML private javafx.scene.control.Label perfLabel;
 
     // Centralised path helper to avoid repetition
     private static final String IMAGES_DIR =
@@ -52,6 +59,41 @@ public class ProfileController {
     @FXML
     private void initialize() {
         loadProfile();
+        initializeCrossfade();
+        showDiagnostics();
+    }
+
+    /** Cached page shown again: new diagnostics after songs played, or a new picture. */
+    @Override
+    public void refresh() {
+        loadProfile();
+        showDiagnostics();
+    }
+
+    /** Playback start latency, read-ahead hit rate and the library views' background timings. */
+    private void showDiagnostics() {
+        if (latencyLabel != null) latencyLabel.setText(PlaybackTrace.summary());
+        if (perfLabel != null) {
+            perfLabel.setText(PerfStats.summary() + "\nRead-ahead: " + ReadAheadPrefetcher.getInstance().stats());
+        }
+    }
+
+    /** Crossfade length, picked up by MusicPlayerManager from the next track on. */
+    private void initializeCrossfade() {
+        if (crossfadeSlider == null) return;
+        crossfadeSlider.setValue(Session.getInstance().getCrossfadeSeconds());
+        showCrossfade(crossfadeSlider.getValue());
+        crossfadeSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
+            double seconds = Math.round(newVal.doubleValue());
+            Session.getInstance().setCrossfadeSeconds(seconds);
+            showCrossfade(seconds);
+        });
+    }
+
+    private void showCrossfade(double seconds) {
+        if (crossfadeLabel != null) {
+            crossfadeLabel.setText(seconds <= 0 ? "Crossfade: Off" : "Crossfade: " + (int) seconds + " s");
+        }
     }
 
     private void loadProfile() {
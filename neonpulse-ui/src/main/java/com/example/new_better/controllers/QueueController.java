@@ -2,6 +2,7 @@ package com.example.new_better.controllers;
 
 import com.example.new_better.models.Song;
 import com.example.new_better.utils.MusicPlayerManager;
+import com.example.new_better.utils.PlaybackTrace;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -26,6 +27,11 @@ public class QueueController implements MusicPlayerManager.SongChangeListener {
         loadQueue();
     }
 
+    /** Stops listening to the player; MainController calls it on logout. */
+    public void dispose() {
+        MusicPlayerManager.getInstance().removeListener(this);
+    }
+
     private void loadQueue() {
         queueContainer.getChildren().clear();
         List<Song> queue = MusicPlayerManager.getInstance().getQueue();
@@ -73,7 +79,10 @@ public class QueueController implements MusicPlayerManager.SongChangeListener {
                 // CSS handles hover via .queue-row:hover, no Java listeners needed
             }
 
-            queueRow.setOnMouseClicked(e -> MusicPlayerManager.getInstance().playFromQueue(finalI));
+            queueRow.setOnMouseClicked(e -> {
+                PlaybackTrace.begin("queue");
+                MusicPlayerManager.getInstance().playFromQueue(finalI);
+            });
 
             // --- Index badge ---
             Label indexLabel = new Label(String.valueOf(i + 1));
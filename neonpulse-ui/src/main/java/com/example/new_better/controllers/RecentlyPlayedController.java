@@ -1,12 +1,13 @@
 
 package com.example.new_better.controllers;
 
-import com.example.new_better.dao.LikedSongsDAO;
-import com.example.new_better.dao.PlaylistDAO;
-import com.example.new_better.dao.RecentlyPlayedDAO;
+import com.example.new_better.dao.AsyncDAO;
 import com.example.new_better.models.Song;
 import com.example.new_better.models.User;
+import com.example.new_better.utils.FacetIndex;
+import com.example.new_better.utils.LikedSongsStore;
 import com.example.new_better.utils.MusicPlayerManager;
+import com.example.new_better.utils.PlaybackTrace;
 import com.example.new_better.utils.Session;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -24,43 +25,42 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
-public class RecentlyPlayedController {
+public class RecentlyPlayedController implements ViewCache.Refreshable {
 
     @FXML private VBox songListContainer;
 
-    private List<Song> recentSongs;
-    private List<Song> allRecentSongs;
-    private LikedSongsDAO likedSongsDAO;
-    private RecentlyPlayedDAO recentlyPlayedDAO;
-    private PlaylistDAO playlistDAO;
+    private List<Song> recentSongs = new ArrayList<>();
+    private List<Song> allRecentSongs = new ArrayList<>();
+    private AsyncDAO asyncDAO;
+    private final LikedSongsStore likedStore = LikedSongsStore.getInstance();
 
     @FXML
     private void initialize() {
-        likedSongsDAO = new LikedSongsDAO();
-        recentlyPlayedDAO = new RecentlyPlayedDAO();
-        playlistDAO = new PlaylistDAO();
+        asyncDAO = AsyncDAO.getInstance();
+        loadRecentlyPlayed();
+    }
+
+    @Override
+    public void refresh() {
         loadRecentlyPlayed();
     }
 
     private void loadRecentlyPlayed() {
         User user = Session.getInstance().getCurrentUser();
         if (user == null) return;
-        allRecentSongs = recentlyPlayedDAO.getRecentlyPlayed(user.getUserId());
-        recentSongs = new ArrayList<>(allRecentSongs);
-        displaySongs();
+        asyncDAO.getRecentlyPlayed(user.getUserId())
+                .thenAcceptBoth(likedStore.ensureLoaded(user.getUserId()), (loaded, ignored) -> {
+                    allRecentSongs = loaded;
+                    recentSongs = new ArrayList<>(allRecentSongs);
+                    displaySongs();
+                });
     }
 
     public void filterSongs(String query) {
-        if (query.isEmpty()) {
-            recentSongs = new ArrayList<>(allRecentSongs);
-        } else {
-            recentSongs = allRecentSongs.stream()
-                    .filter(song -> song.getTitle().toLowerCase().contains(query.toLowerCase()) ||
-                            song.getGenre().toLowerCase().contains(query.toLowerCase()))
-                    .collect(Collectors.toList());
-        }
+        // ✅ Matches against the facet index's pre-normalized keys (SearchKeys) instead of
+        // lowercasing every title on every keystroke
+        recentSongs = FacetIndex.current().filterText(allRecentSongs, query);
         displaySongs();
     }
 
@@ -130,7 +130,7 @@ public class RecentlyPlayedController {
             heartIcon.getStyleClass().addAll("icon-region", "icon-heart");
             likeBtn.setGraphic(heartIcon);
 
-            boolean isLiked = (user != null) && likedSongsDAO.isLiked(user.getUserId(), song.getSongId());
+            boolean isLiked = (user != null) && likedStore.isLiked(song.getSongId());
             if (isLiked) likeBtn.getStyleClass().add("liked");
             likeBtn.setOnAction(e -> {
                 e.consume(); // ✅ stop bubbling to row
@@ -148,24 +148,22 @@ public class RecentlyPlayedController {
     private void playSong(Song song) {
         MusicPlayerManager manager = MusicPlayerManager.getInstance();
         manager.setQueue(recentSongs);
+        PlaybackTrace.begin("recent");
         manager.playFromQueue(recentSongs.indexOf(song));
 
         User user = Session.getInstance().getCurrentUser();
         if (user != null) {
-            recentlyPlayedDAO.addToRecentlyPlayed(user.getUserId(), song.getSongId());
+            asyncDAO.addToRecentlyPlayed(user.getUserId(), song.getSongId());
         }
     }
 
     private void toggleLike(Song song, Button likeBtn) {
-        User user = Session.getInstance().getCurrentUser();
-        if (user == null) return;
-        boolean isLiked = likedSongsDAO.isLiked(user.getUserId(), song.getSongId());
-        if (isLiked) {
-            likedSongsDAO.unlikeSong(user.getUserId(), song.getSongId());
-            likeBtn.getStyleClass().remove("liked");
-        } else {
-            likedSongsDAO.likeSong(user.getUserId(), song.getSongId());
+        if (Session.getInstance().getCurrentUser() == null) return;
+        // ✅ Instant UI; the store coalesces rapid clicks into one batched write
+        if (likedStore.toggle(song.getSongId())) {
             if (!likeBtn.getStyleClass().contains("liked")) likeBtn.getStyleClass().add("liked");
+        } else {
+            likeBtn.getStyleClass().remove("liked");
         }
     }
 
@@ -176,7 +174,11 @@ public class RecentlyPlayedController {
         User user = Session.getInstance().getCurrentUser();
         if (user == null) return;
 
-        List<Map<String, Object>> playlists = playlistDAO.getUserPlaylists(user.getUserId());
+        asyncDAO.getUserPlaylists(user.getUserId())
+                .thenAccept(playlists -> showPlaylistDialog(song, playlists));
+    }
+
+    private void showPlaylistDialog(Song song, List<Map<String, Object>> playlists) {
         if (playlists.isEmpty()) {
             showAlert("No Playlists Found", "Create a playlist first before adding songs.");
             return;
@@ -268,15 +270,13 @@ public class RecentlyPlayedController {
         confirmBtn.setOnAction(e -> {
             String chosen = selectedName.get();
             stage.close();
-            Platform.runLater(() -> {
-                for (Map<String, Object> pl : playlists) {
-                    if (pl.get("playlist_name").equals(chosen)) {
-                        playlistDAO.addSongToPlaylist((int) pl.get("playlist_id"), song.getSongId());
-                        showAlert("Added!", "\"" + song.getTitle() + "\" added to " + chosen + ".");
-                        break;
-                    }
+            for (Map<String, Object> pl : playlists) {
+                if (pl.get("playlist_name").equals(chosen)) {
+                    asyncDAO.addSongToPlaylist((int) pl.get("playlist_id"), song.getSongId())
+                            .thenRun(() -> showAlert("Added!", "\"" + song.getTitle() + "\" added to " + chosen + "."));
+                    break;
                 }
-            });
+            }
         });
 
         HBox btnRow = new HBox(10, cancelBtn, confirmBtn);
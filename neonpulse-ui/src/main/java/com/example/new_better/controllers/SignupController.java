@@ -2,10 +2,10 @@ package com.example.new_better.controllers;
 
 import com.example.new_better.MainApp;
 import com.example.new_better.dao.PlaylistDAO;
-import com.example.new_better.dao.SongDAO;
 import com.example.new_better.dao.UserDAO;
-import com.example.new_better.models.Song;
+import com.example.new_better.models.Genre;
 import com.example.new_better.models.User;
+import com.example.new_better.utils.GenreRegistry;
 import com.example.new_better.utils.PasswordUtil;
 import com.example.new_better.utils.Session;
 import javafx.application.Platform;
@@ -22,7 +22,6 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
-import java.util.List;
 
 public class SignupController {
 
@@ -167,15 +166,10 @@ public class SignupController {
 
     private void createSystemPlaylists(int userId) {
         PlaylistDAO playlistDAO = new PlaylistDAO();
-        SongDAO songDAO = new SongDAO();
-        String[] moods = {"Party", "Pop", "Classical", "Romantic", "Sad"};
-
-        for (String mood : moods) {
-            int playlistId = playlistDAO.createPlaylist(userId, mood, true);
-            List<Song> songs = songDAO.getSongsByGenre(mood);
-            for (Song song : songs) {
-                playlistDAO.addSongToPlaylist(playlistId, song.getSongId());
-            }
+        // One genre-keyed system playlist per known genre (defaults + discovered folders).
+        // Their songs are resolved live by genre_id, so nothing is copied into playlist_songs.
+        for (Genre genre : GenreRegistry.all()) {
+            playlistDAO.createSystemPlaylist(userId, genre);
         }
     }
 
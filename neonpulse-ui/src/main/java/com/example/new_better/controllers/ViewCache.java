@@ -0,0 +1,161 @@
+package com.example.new_better.controllers;
+
+import com.example.new_better.utils.PerfStats;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The main window's pages, kept loaded between visits so switching tabs
+ * re-attaches an existing node tree instead of parsing FXML, building a new
+ * controller and querying the database again.
+ *
+ * ARCHITECTURAL NOTES:
+ *
+ * 1. [BOUNDED LRU] An access-ordered LinkedHashMap keyed by view ("all_songs",
+ *    "playlist_page:12", …), capped at MAX_VIEWS. When the heap is nearly full,
+ *    every get() trims the cache down to the view being shown.
+ *
+ * 2. [REFRESH, DON'T REBUILD] MainController marks views stale when something
+ *    they show changes (import, like, playback, playlists). A stale view's
+ *    controller is asked to refresh() its data in place the next time it is
+ *    shown; controllers that aren't Refreshable are rebuilt instead.
+ *
+ * 3. [ORDER] Only get() counts as a use. Bookkeeping (markStale, refresh)
+ *    walks entrySet() so it doesn't touch the access order: the pages marked
+ *    stale on every track change would otherwise never be evicted.
+ *
+ * 4. [EVICTION] Evicted views (and all views on clear()) have their
+ *    controller's dispose() called if it is Disposable, so background loads
+ *    and indexes don't outlive the page.
+ *
+ * 5. [FX THREAD] All access is on the FX thread; no locking.
+ */
+final class ViewCache {
+
+    /** A page controller that can reload its data into the nodes it already has. */
+    interface Refreshable {
+        void refresh();
+    }
+
+    /** A page controller holding something (indexes, pending loads) to release when it's evicted. */
+    interface Disposable {
+        void dispose();
+    }
+
+    record View(Node root, Object controller) {}
+
+    private static final int MAX_VIEWS = 8;
+
+    private final Map<String, Entry> views = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final class Entry {
+        final View view;
+        boolean stale;
+
+        Entry(View view) {
+            this.view = view;
+        }
+    }
+
+    /**
+     * The view for {@code key}: cached (refreshed first if stale), or loaded from
+     * {@code fxml} with {@code onCreate} run on its new controller. Null if loading failed.
+     */
+    View get(String key, URL fxml, Consumer<Object> onCreate) {
+        Entry entry = views.get(key);
+        if (entry != null && entry.stale) {
+            if (entry.view.controller() instanceof Refreshable refreshable) {
+                entry.stale = false;
+                refreshable.refresh();
+            } else {
+                dispose(views.remove(key));
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            long start = System.nanoTime();
+            try {
+                FXMLLoader loader = new FXMLLoader(fxml);
+                Node root = loader.load();
+                Object controller = loader.getController();
+                if (onCreate != null) onCreate.accept(controller);
+                entry = new Entry(new View(root, controller));
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+            views.put(key, entry);
+            PerfStats.log("🧩 Built %s view in %.1f ms (%d cached)%n", key,
+                    PerfStats.record("view build", start), views.size());
+        }
+        trim(key);
+        return entry.view;
+    }
+
+    /** The next get() of these views refreshes them. */
+    void markStale(String... keys) {
+        for (String key : keys) {
+            Entry entry = peek(key);
+            if (entry != null) entry.stale = true;
+        }
+    }
+
+    /** Marks every view stale except {@code keep} (typically the one on screen). */
+    void markAllStale(String keep) {
+        for (Map.Entry<String, Entry> e : views.entrySet()) {
+            if (!e.getKey().equals(keep)) e.getValue().stale = true;
+        }
+    }
+
+    /** Refreshes the view now (e.g. it is on screen), or rebuilds it on its next get(). */
+    void refresh(String key) {
+        Entry entry = peek(key);
+        if (entry == null) return;
+        if (entry.view.controller() instanceof Refreshable refreshable) {
+            entry.stale = false;
+            refreshable.refresh();
+        } else {
+            entry.stale = true;
+        }
+    }
+
+    void clear() {
+        for (Entry entry : views.values()) dispose(entry);
+        views.clear();
+    }
+
+    /** Looks a view up without counting it as used (get() on an access-ordered map would). */
+    private Entry peek(String key) {
+        for (Map.Entry<String, Entry> e : views.entrySet()) {
+            if (e.getKey().equals(key)) return e.getValue();
+        }
+        return null;
+    }
+
+    private static void dispose(Entry entry) {
+        if (entry.view.controller() instanceof Disposable disposable) disposable.dispose();
+    }
+
+    /** Evicts least recently shown views past MAX_VIEWS, or all but {@code keep} when memory is low. */
+    private void trim(String keep) {
+        Runtime rt = Runtime.getRuntime();
+        long headroom = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+        boolean lowMemory = headroom < rt.maxMemory() / 10;
+
+        Iterator<Map.Entry<String, Entry>> it = views.entrySet().iterator();
+        while (it.hasNext() && views.size() > 1 && (lowMemory || views.size() > MAX_VIEWS)) {
+            Map.Entry<String, Entry> next = it.next();
+            String key = next.getKey();
+            if (key.equals(keep)) continue;
+            it.remove();
+            dispose(next.getValue());
+            if (lowMemory) System.out.println("🧹 Low memory: dropped cached " + key + " view");
+        }
+    }
+}
@@ -1,7 +1,10 @@
 
 package com.example.new_better;
 
+import com.example.new_better.utils.DbExecutor;
+import com.example.new_better.utils.JavaFxBackend;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
@@ -12,6 +15,8 @@ public class music_app extends Application {
 
     @Override
     public void start(Stage stage) {
+        DbExecutor.setUiThread(Platform::runLater);
+        JavaFxBackend.install();
         try {
 
             String fxmlPath = "/com/example/new_better/views/login.fxml";
@@ -0,0 +1,161 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.control.Alert;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaException;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The real PlaybackBackend: one javafx MediaPlayer per track, callbacks on the
+ * FX thread. Media comes from MediaCache, upcoming files are read ahead by
+ * ReadAheadPrefetcher, and tickers are Timelines.
+ */
+public final class JavaFxBackend implements PlaybackBackend {
+
+    private static boolean errorShowing; // FX thread only, see showError()
+
+    /** Makes this the player's backend and shows its playback errors as dialogs. Call from start(). */
+    public static void install() {
+        MusicPlayerManager.setDefaultBackend(new JavaFxBackend());
+        MusicPlayerManager.getInstance().setErrorHandler(JavaFxBackend::showError);
+    }
+
+    /** At most one playback error dialog at a time: a run of bad files doesn't stack them up. */
+    private static void showError(String title, String message) {
+        // Deferred: showAndWait() isn't allowed inside the Timeline/player callbacks we're called from
+        Platform.runLater(() -> {
+            if (errorShowing) return;
+            errorShowing = true;
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle(title);
+            alert.setHeaderText(null);
+            alert.setContentText(message);
+            alert.showAndWait();
+            errorShowing = false;
+        });
+    }
+
+    @Override
+    public Track load(Song song) {
+        ReadAheadPrefetcher.getInstance().onPlaybackStart(song);
+        try {
+            // ✅ Recently played / upcoming songs reuse their Media (MediaCache)
+            Media media = MediaCache.getInstance().get(song, new File[1]);
+            return media == null ? null : new FxTrack(song, new MediaPlayer(media));
+        } catch (MediaException e) {
+            if (isPermanent(e)) throw new UnplayableException(e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /** Corrupt or unsupported media won't decode next time either; anything else (locked, unavailable) might. */
+    private static boolean isPermanent(MediaException error) {
+        return error != null && (error.getType() == MediaException.Type.MEDIA_CORRUPTED
+                || error.getType() == MediaException.Type.MEDIA_UNSUPPORTED);
+    }
+
+    @Override
+    public Ticker every(double intervalSeconds, Runnable tick) {
+        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(intervalSeconds), e -> tick.run()));
+        timeline.setCycleCount(Animation.INDEFINITE);
+        timeline.play();
+        return timeline::stop;
+    }
+
+    @Override
+    public void prepare(List<Song> upcoming, Song previous) {
+        MediaCache.getInstance().warm(upcoming.isEmpty() ? null : upcoming.get(0), previous);
+        ReadAheadPrefetcher.getInstance().schedule(upcoming);
+    }
+
+    /** The MediaPlayer behind a track from this backend (progress, spectrum), or null. */
+    public static MediaPlayer playerOf(Track track) {
+        return track instanceof FxTrack fx ? fx.player : null;
+    }
+
+    private static final class FxTrack implements Track {
+
+        private final Song song;
+        private final MediaPlayer player;
+        private ChangeListener<Duration> cue; // the current cueAt(), see there
+
+        FxTrack(Song song, MediaPlayer player) {
+            this.song = song;
+            this.player = player;
+        }
+
+        @Override public void play() { player.play(); }
+        @Override public void pause() { player.pause(); }
+        @Override public void stop() { player.stop(); }
+        @Override public void dispose() { player.dispose(); }
+        @Override public void seek(double seconds) { player.seek(Duration.seconds(seconds)); }
+
+        @Override
+        public double position() {
+            Duration time = player.getCurrentTime();
+            return time == null || time.isUnknown() ? 0 : time.toSeconds();
+        }
+
+        @Override
+        public double duration() {
+            Duration total = player.getTotalDuration();
+            return total == null || total.isUnknown() || total.isIndefinite() ? Double.NaN : total.toSeconds();
+        }
+
+        @Override
+        public boolean isPlaying() {
+            return player.getStatus() == MediaPlayer.Status.PLAYING;
+        }
+
+        @Override public void setVolume(double volume) { player.setVolume(volume); }
+        @Override public void setOnReady(Runnable action) { player.setOnReady(action); }
+        @Override public void setOnEndOfMedia(Runnable action) { player.setOnEndOfMedia(action); }
+
+        @Override
+        public void setOnError(Consumer<Failure> action) {
+            player.setOnError(() -> {
+                MediaCache.getInstance().invalidate(song); // next attempt starts from a fresh Media
+                MediaException error = player.getError();
+                action.accept(new Failure(String.valueOf(error), isPermanent(error)));
+            });
+        }
+
+        @Override
+        public void setOnAudible(Runnable action) {
+            InvalidationListener[] listener = new InvalidationListener[1];
+            listener[0] = obs -> {
+                Duration time = player.getCurrentTime();
+                if (time == null || time.lessThanOrEqualTo(Duration.ZERO)) return;
+                player.currentTimeProperty().removeListener(listener[0]);
+                action.run();
+            };
+            player.currentTimeProperty().addListener(listener[0]);
+        }
+
+        /**
+         * Watches this player's own position rather than adding a Media marker:
+         * the Media is shared through MediaCache, so a marker would outlive the
+         * track and fire in every later player of the same song.
+         */
+        @Override
+        public void cueAt(double seconds, Runnable action) {
+            if (cue != null) player.currentTimeProperty().removeListener(cue);
+            cue = (obs, before, now) -> {
+                if (before.toSeconds() < seconds && now.toSeconds() >= seconds) action.run();
+            };
+            player.currentTimeProperty().addListener(cue);
+        }
+    }
+}
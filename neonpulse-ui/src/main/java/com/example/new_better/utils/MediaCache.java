@@ -0,0 +1,191 @@
+package com.example.new_better.utils;
+
+import com.example.new_better.models.Song;
+import javafx.collections.MapChangeListener;
+import javafx.scene.image.Image;
+import javafx.scene.media.Media;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Recently and imminently played songs' Media objects, so replays and
+ * back/forward skips don't resolve the path, stat the file and rebuild the
+ * Media (URI parsing, locator probe, container sniffing) every time.
+ *
+ * ARCHITECTURAL NOTES:
+ *
+ * 1. [BOUNDED LRU] An access-ordered LinkedHashMap keyed by song id, capped at
+ *    MAX_ENTRIES and at a byte budget. Media itself holds no decoded audio;
+ *    its weight is a flat BASE_WEIGHT plus the cover art from its metadata,
+ *    which is added when the "image" entry arrives.
+ *
+ * 2. [MEMORY AWARE] If the heap is nearly full, every insert trims the cache
+ *    down to the newest entry. Evicted entries drop their metadata listener so
+ *    the cache holds nothing back once a Media's player is disposed.
+ *
+ * 3. [WARMING] warm() builds the Media for the songs around the current one on
+ *    a MIN_PRIORITY thread, so "next" usually starts from a ready Media.
+ *
+ * 4. [CORRECTNESS] An entry is only used if the song's file_path still matches
+ *    (LibraryReconciler may have relinked it); entries for songs that fail to
+ *    play are invalidated so the next attempt starts fresh.
+ */
+final class MediaCache {
+
+    private static final int MAX_ENTRIES = 8;
+    private static final long BASE_WEIGHT = 64 * 1024;
+    private static final long MAX_WEIGHT = Math.min(32L << 20, Runtime.getRuntime().maxMemory() / 32);
+
+    private static MediaCache instance;
+
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    private long hits;
+    private long misses;
+
+    private final ExecutorService warmer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "media-cache");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private static final class Entry {
+        final String filePath;
+        final File file;
+        final Media media;
+        long weight = BASE_WEIGHT;
+        boolean evicted;
+        MapChangeListener<String, Object> artListener;
+
+        Entry(String filePath, File file, Media media) {
+            this.filePath = filePath;
+            this.file = file;
+            this.media = media;
+        }
+    }
+
+    private MediaCache() {}
+
+    static synchronized MediaCache getInstance() {
+        if (instance == null) instance = new MediaCache();
+        return instance;
+    }
+
+    /**
+     * The song's Media, from the cache or freshly built. Returns null when the
+     * file doesn't exist; {@code resolved[0]} then holds the path we looked at.
+     */
+    Media get(Song song, File[] resolved) {
+        synchronized (this) {
+            Entry entry = entries.get(song.getSongId());
+            if (entry != null && entry.filePath.equals(song.getFilePath())) {
+                hits++;
+                resolved[0] = entry.file;
+                PlaybackTrace.mark(PlaybackTrace.Phase.RESOLVE);
+                PlaybackTrace.mark(PlaybackTrace.Phase.MEDIA);
+                return entry.media;
+            }
+            misses++;
+        }
+
+        long start = System.nanoTime();
+        File file = SongFolderImporter.resolveFile(song.getFilePath());
+        resolved[0] = file;
+        if (!file.exists()) return null;
+        PlaybackTrace.mark(PlaybackTrace.Phase.RESOLVE);
+
+        Media media = new Media(file.toURI().toString());
+        PlaybackTrace.mark(PlaybackTrace.Phase.MEDIA);
+        put(song, file, media);
+        PerfStats.log("🎞️ Media for %s in %.1f ms (%s)%n", song.getTitle(), PerfStats.record("media load", start), stats());
+        return media;
+    }
+
+    /** Builds the Media for these songs in the background if they aren't cached yet. */
+    void warm(Song... songs) {
+        for (Song song : songs) {
+            if (song == null) continue;
+            synchronized (this) {
+                Entry entry = entries.get(song.getSongId());
+                if (entry != null && entry.filePath.equals(song.getFilePath())) continue;
+            }
+            warmer.execute(() -> {
+                synchronized (this) {
+                    if (entries.containsKey(song.getSongId())) return; // raced a get()
+                }
+                try {
+                    File file = SongFolderImporter.resolveFile(song.getFilePath());
+                    if (file.exists()) put(song, file, new Media(file.toURI().toString()));
+                } catch (Exception e) {
+                    System.err.println("⚠️ Could not prepare " + song.getTitle() + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /** Drops the song's Media, e.g. after it failed to play. */
+    synchronized void invalidate(Song song) {
+        Entry entry = entries.remove(song.getSongId());
+        if (entry != null) release(entry);
+    }
+
+    synchronized String stats() {
+        long lookups = hits + misses;
+        return String.format("cache %d/%d, %d KB, %d%% hits", entries.size(), MAX_ENTRIES,
+                totalWeight / 1024, lookups == 0 ? 0 : hits * 100 / lookups);
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    private synchronized void put(Song song, File file, Media media) {
+        Entry old = entries.remove(song.getSongId());
+        if (old != null) release(old);
+
+        Entry entry = new Entry(song.getFilePath(), file, media);
+        entries.put(song.getSongId(), entry);
+        totalWeight += entry.weight;
+
+        // Cover art shows up in the metadata once the media has been parsed
+        entry.artListener = change -> {
+            if (change.wasAdded() && change.getValueAdded() instanceof Image image) {
+                reweigh(entry, BASE_WEIGHT + (long) (image.getWidth() * image.getHeight() * 4));
+            }
+        };
+        media.getMetadata().addListener(entry.artListener);
+        trim();
+    }
+
+    private synchronized void reweigh(Entry entry, long weight) {
+        if (entry.evicted) return;
+        totalWeight += weight - entry.weight;
+        entry.weight = weight;
+        trim();
+    }
+
+    /** Evicts least recently used entries past the count/byte budget, or all but one under heap pressure. */
+    private void trim() {
+        Runtime rt = Runtime.getRuntime();
+        long headroom = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+        boolean lowMemory = headroom < rt.maxMemory() / 10;
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > 1 && it.hasNext()
+                && (lowMemory || entries.size() > MAX_ENTRIES || totalWeight > MAX_WEIGHT)) {
+            Entry eldest = it.next();
+            it.remove();
+            release(eldest);
+        }
+    }
+
+    /** Forgets the entry. A player still using the Media keeps it alive on its own. */
+    private void release(Entry entry) {
+        entry.evicted = true;
+        totalWeight -= entry.weight;
+        if (entry.artListener != null) entry.media.getMetadata().removeListener(entry.artListener);
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.new_better.utils;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.media.AudioSpectrumListener;
+import javafx.scene.media.MediaPlayer;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bar spectrum for the player bar, fed by MediaPlayer's audio spectrum callback.
+ *
+ * ARCHITECTURAL NOTES:
+ *
+ * 1. [ZERO ALLOCATION] The media thread copies each callback's magnitudes
+ *    into a preallocated ring of RING frames and publishes the slot with a
+ *    volatile sequence number. The AnimationTimer picks up the newest frame,
+ *    eases the bars toward it and paints with prebuilt Colors — nothing is
+ *    allocated per callback or per rendered frame.
+ *
+ * 2. [DISPLAY RATE] Callbacks arrive every SPECTRUM_INTERVAL; the timer runs at
+ *    the display's pulse and interpolates between them, so bars move smoothly
+ *    at 60+ fps without asking GStreamer for more FFTs.
+ *
+ * 3. [SUSPENSION] The timer only runs while a player is attached, the node is
+ *    visible, and its window is showing and not minimized. It also parks
+ *    itself once the bars have decayed to the floor (paused/stopped) and the
+ *    next callback wakes it — the only runLater this class ever posts.
+ *
+ * 4. [COST] Each rendered frame is timed; when the timer stops a one-line
+ *    summary (frames, mean and worst µs/frame) is logged.
+ */
+public class SpectrumVisualizer extends Canvas {
+
+    private static final int BANDS = 32;
+    private static final int RING = 8;
+    private static final double SPECTRUM_INTERVAL = 1 / 30.0;
+    private static final int THRESHOLD_DB = -60;
+    private static final double RISE_PER_SECOND = 12.0;  // fraction of full height
+    private static final double FALL_PER_SECOND = 2.5;
+    private static final double GAP = 1.0;
+    private static final double PEAK = 0.85;
+
+    private static final Color BAR = Color.web("#0A84FF");
+    private static final Color BAR_PEAK = Color.web("#64D2FF");
+
+    // Written by the media thread, read by the FX thread
+    private final float[] ring = new float[RING * BANDS];
+    private volatile long published; // frames written so far; newest is (published - 1) % RING
+
+    // FX thread only
+    private final double[] target = new double[BANDS];
+    private final double[] level = new double[BANDS];
+    private long consumed;
+    private long lastNanos;
+    private boolean running;
+    private final AtomicBoolean parked = new AtomicBoolean();
+
+    private MediaPlayer player;
+    private Stage stage;
+
+    private long frames;
+    private long totalFrameNanos;
+    private long worstFrameNanos;
+
+    private final AudioSpectrumListener spectrumListener = (timestamp, duration, magnitudes, phases) -> {
+        long seq = published;
+        int base = (int) (seq % RING) * BANDS;
+        int n = Math.min(BANDS, magnitudes.length);
+        System.arraycopy(magnitudes, 0, ring, base, n);
+        published = seq + 1;
+        if (parked.compareAndSet(true, false)) Platform.runLater(this::updateRunning);
+    };
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            long start = System.nanoTime();
+            boolean idle = step(now);
+            draw();
+            long cost = System.nanoTime() - start;
+            frames++;
+            totalFrameNanos += cost;
+            if (cost > worstFrameNanos) worstFrameNanos = cost;
+            if (idle) park();
+        }
+    };
+
+    private final InvalidationListener stateListener = obs -> updateRunning();
+    private final InvalidationListener windowListener = obs -> hookWindow();
+
+    public SpectrumVisualizer() {
+        this(120, 28);
+    }
+
+    public SpectrumVisualizer(double width, double height) {
+        super(width, height);
+        setMouseTransparent(true);
+        visibleProperty().addListener(stateListener);
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null) oldScene.windowProperty().removeListener(windowListener);
+            if (newScene != null) newScene.windowProperty().addListener(windowListener);
+            hookWindow();
+        });
+    }
+
+    /** Starts listening to this player's spectrum (and stops listening to the previous one). */
+    public void attach(MediaPlayer newPlayer) {
+        if (newPlayer == player) return;
+        if (player != null) player.setAudioSpectrumListener(null);
+        player = newPlayer;
+        if (player != null) {
+            player.setAudioSpectrumNumBands(BANDS);
+            player.setAudioSpectrumInterval(SPECTRUM_INTERVAL);
+            player.setAudioSpectrumThreshold(THRESHOLD_DB);
+            player.setAudioSpectrumListener(spectrumListener);
+        }
+        updateRunning();
+    }
+
+    private void hookWindow() {
+        Scene scene = getScene();
+        Window window = scene != null ? scene.getWindow() : null;
+        Stage newStage = window instanceof Stage s ? s : null;
+        if (newStage != stage) {
+            if (stage != null) {
+                stage.iconifiedProperty().removeListener(stateListener);
+                stage.showingProperty().removeListener(stateListener);
+            }
+            stage = newStage;
+            if (stage != null) {
+                stage.iconifiedProperty().addListener(stateListener);
+                stage.showingProperty().addListener(stateListener);
+            }
+        }
+        updateRunning();
+    }
+
+    private void updateRunning() {
+        boolean shouldRun = player != null && isVisible() && !parked.get()
+                && stage != null && stage.isShowing() && !stage.isIconified();
+        if (shouldRun == running) return;
+        running = shouldRun;
+        if (running) {
+            lastNanos = 0;
+            timer.start();
+        } else {
+            timer.stop();
+            logCost();
+        }
+    }
+
+    /** Stops the timer until the next spectrum callback arrives. */
+    private void park() {
+        parked.set(true);
+        if (published != consumed) parked.set(false); // a callback raced us: keep going
+        else updateRunning();
+    }
+
+    /** Eases the bars toward the newest frame; returns true once nothing is moving. */
+    private boolean step(long now) {
+        long seq = published;
+        if (seq != consumed) {
+            int base = (int) ((seq - 1) % RING) * BANDS;
+            for (int i = 0; i < BANDS; i++) {
+                target[i] = Math.max(0, 1 - ring[base + i] / THRESHOLD_DB);
+            }
+            consumed = seq;
+        } else if (player == null || player.getStatus() != MediaPlayer.Status.PLAYING) {
+            for (int i = 0; i < BANDS; i++) target[i] = 0;
+        }
+
+        double dt = lastNanos == 0 ? 0 : Math.min(0.1, (now - lastNanos) / 1e9);
+        lastNanos = now;
+
+        boolean idle = true;
+        for (int i = 0; i < BANDS; i++) {
+            double delta = target[i] - level[i];
+            double limit = (delta > 0 ? RISE_PER_SECOND : FALL_PER_SECOND) * dt;
+            level[i] += Math.max(-limit, Math.min(limit, delta));
+            if (level[i] > 0.001 || target[i] > 0) idle = false;
+        }
+        return idle;
+    }
+
+    private void draw() {
+        GraphicsContext g = getGraphicsContext2D();
+        double width = getWidth();
+        double height = getHeight();
+        g.clearRect(0, 0, width, height);
+
+        // Two passes so the fill changes at most twice per frame
+        double barWidth = width / BANDS - GAP;
+        g.setFill(BAR);
+        for (int i = 0; i < BANDS; i++) {
+            if (level[i] <= PEAK) fillBar(g, i, barWidth, height);
+        }
+        g.setFill(BAR_PEAK);
+        for (int i = 0; i < BANDS; i++) {
+            if (level[i] > PEAK) fillBar(g, i, barWidth, height);
+        }
+    }
+
+    private void fillBar(GraphicsContext g, int band, double barWidth, double height) {
+        double h = Math.max(1, level[band] * height);
+        g.fillRect(band * (barWidth + GAP), height - h, barWidth, h);
+    }
+
+    private void logCost() {
+        if (frames == 0) return;
+        System.out.printf("📊 Spectrum: %d frames, %.1f µs/frame avg, %.1f µs worst%n",
+                frames, totalFrameNanos / 1e3 / frames, worstFrameNanos / 1e3);
+        frames = totalFrameNanos = worstFrameNanos = 0;
+    }
+}